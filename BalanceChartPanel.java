@@ -0,0 +1,111 @@
+package org.example;
+
+import javax.swing.ToolTipManager;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.time.LocalDate;
+import java.util.function.IntToDoubleFunction;
+
+class BalanceChartPanel extends ChartPanel {
+    private static final long serialVersionUID = 1L;
+
+    private double[] days = new double[0];
+    private double[] balances = new double[0];
+    private int[] sampled = new int[0];
+    private int sampledThreshold = -1;
+    private IntToDoubleFunction balanceLookup;
+    private int plotLeft, plotRight;
+    private double plotMinX, plotSpanX;
+
+    public void setData(double[] days, double[] balances) {
+        if (days.length != balances.length) {
+            throw new IllegalArgumentException("Размеры рядов не совпадают: " + days.length + " и " + balances.length);
+        }
+        this.days = days;
+        this.balances = balances;
+        this.sampledThreshold = -1;
+        invalidateRaster();
+    }
+
+    public void setBalanceLookup(IntToDoubleFunction balanceLookup) {
+        this.balanceLookup = balanceLookup;
+        ToolTipManager.sharedInstance().registerComponent(this);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        if (balanceLookup == null || days.length < 2 || plotRight <= plotLeft) return null;
+        if (event.getX() < plotLeft || event.getX() > plotRight) return null;
+        int day = (int) Math.round(plotMinX + (double) (event.getX() - plotLeft) / (plotRight - plotLeft) * plotSpanX);
+        return String.format("%s: баланс %.2f", LocalDate.ofEpochDay(day), balanceLookup.applyAsDouble(day));
+    }
+
+    @Override
+    protected void render(Graphics2D g, int width, int height) {
+        if (days.length < 2) {
+            drawEmpty(g, width, height, "Недостаточно данных для графика баланса.");
+            return;
+        }
+
+        FontMetrics metrics = g.getFontMetrics();
+        int left = metrics.stringWidth("-000000000.00") + 8;
+        int right = width - 10;
+        int top = 8;
+        int bottom = height - metrics.getHeight() - 6;
+        if (right - left < 10 || bottom - top < 10) return;
+
+        int threshold = right - left;
+        if (threshold != sampledThreshold) {
+            sampled = SeriesDownsampler.largestTriangleThreeBuckets(days, balances, threshold);
+            sampledThreshold = threshold;
+        }
+
+        double minX = days[0];
+        double maxX = days[days.length - 1];
+        double minY = 0;
+        double maxY = 0;
+        for (int index : sampled) {
+            minY = Math.min(minY, balances[index]);
+            maxY = Math.max(maxY, balances[index]);
+        }
+        if (maxY == minY) maxY = minY + 1;
+        double spanX = Math.max(maxX - minX, 1);
+        double spanY = maxY - minY;
+        plotLeft = left;
+        plotRight = right;
+        plotMinX = minX;
+        plotSpanX = spanX;
+
+        g.setColor(new Color(230, 230, 230));
+        g.drawRect(left, top, right - left, bottom - top);
+        int zeroY = (int) Math.round(bottom - (0 - minY) / spanY * (bottom - top));
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawLine(left, zeroY, right, zeroY);
+
+        Path2D.Double path = new Path2D.Double();
+        for (int i = 0; i < sampled.length; i++) {
+            int index = sampled[i];
+            double px = left + (days[index] - minX) / spanX * (right - left);
+            double py = bottom - (balances[index] - minY) / spanY * (bottom - top);
+            if (i == 0) path.moveTo(px, py);
+            else path.lineTo(px, py);
+        }
+        g.setColor(PALETTE[0]);
+        g.setStroke(new BasicStroke(1.5f));
+        g.draw(path);
+
+        g.setColor(Color.DARK_GRAY);
+        String maxLabel = String.format("%.2f", maxY);
+        String minLabel = String.format("%.2f", minY);
+        g.drawString(maxLabel, left - metrics.stringWidth(maxLabel) - 4, top + metrics.getAscent());
+        g.drawString(minLabel, left - metrics.stringWidth(minLabel) - 4, bottom);
+        String firstDate = LocalDate.ofEpochDay((long) minX).toString();
+        String lastDate = LocalDate.ofEpochDay((long) maxX).toString();
+        g.drawString(firstDate, left, height - 4);
+        g.drawString(lastDate, right - metrics.stringWidth(lastDate), height - 4);
+    }
+}
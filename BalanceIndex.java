@@ -0,0 +1,92 @@
+package org.example;
+
+import java.time.LocalDate;
+
+class BalanceIndex implements RebuildableAggregate {
+    private static final int INITIAL_CAPACITY = 4 * 366;
+
+    private double[] daily = new double[0];
+    private double[] tree = new double[1];
+    private int firstDay;
+
+    @Override
+    public synchronized void onIncome(Income income, int sign) {
+        add(RollupCube.dayKey(income.getDate()), sign * income.getAmount());
+    }
+
+    @Override
+    public synchronized void onExpense(Expense expense, int sign) {
+        add(RollupCube.dayKey(expense.getDate()), -sign * expense.getAmount());
+    }
+
+    @Override
+    public synchronized void clear() {
+        daily = new double[0];
+        tree = new double[1];
+    }
+
+    @Override
+    public RebuildableAggregate detached() {
+        return new BalanceIndex();
+    }
+
+    @Override
+    public synchronized void adopt(RebuildableAggregate built) {
+        BalanceIndex other = (BalanceIndex) built;
+        daily = other.daily;
+        tree = other.tree;
+        firstDay = other.firstDay;
+    }
+
+    public synchronized double balanceAt(LocalDate date) {
+        return prefix(RollupCube.dayKey(date));
+    }
+
+    public synchronized double balanceAtDay(int dayKey) {
+        return prefix(dayKey);
+    }
+
+    public synchronized double netFlow(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return 0;
+        return prefix(RollupCube.dayKey(to)) - prefix(RollupCube.dayKey(from) - 1);
+    }
+
+    private void add(int day, double amount) {
+        ensureCovers(day);
+        daily[day - firstDay] += amount;
+        for (int i = day - firstDay + 1; i < tree.length; i += i & -i) tree[i] += amount;
+    }
+
+    private double prefix(int day) {
+        int i = Math.min(day - firstDay + 1, daily.length);
+        double sum = 0;
+        for (; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    private void ensureCovers(int day) {
+        if (daily.length == 0) {
+            daily = new double[INITIAL_CAPACITY];
+            tree = new double[INITIAL_CAPACITY + 1];
+            firstDay = day - INITIAL_CAPACITY / 2;
+            return;
+        }
+        if (day >= firstDay && day < firstDay + daily.length) return;
+
+        int newFirst = Math.min(firstDay, day);
+        int newEnd = Math.max(firstDay + daily.length, day + 1);
+        int capacity = Math.max(daily.length * 2, newEnd - newFirst);
+        if (day < firstDay) newFirst = newEnd - capacity;
+        double[] grown = new double[capacity];
+        System.arraycopy(daily, 0, grown, firstDay - newFirst, daily.length);
+        daily = grown;
+        firstDay = newFirst;
+
+        tree = new double[capacity + 1];
+        System.arraycopy(daily, 0, tree, 1, capacity);
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) tree[parent] += tree[i];
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+class BudgetAlerts implements LedgerAggregate {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    static final class Alert {
+        final LocalDateTime time;
+        final String message;
+
+        private Alert(String message) {
+            this.time = LocalDateTime.now();
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return time.format(TIME_FORMATTER) + "  " + message;
+        }
+    }
+
+    private final PeriodSpendIndex periodSpend;
+    private final DailySpendingIndex dailySpending;
+    private final Supplier<Ledger> ledger;
+    private final Consumer<Alert> sink;
+    private final Map<String, LocalDate> fired = new HashMap<>();
+    private double[] thresholds = new double[0];
+    private double dailyLimit;
+
+    BudgetAlerts(PeriodSpendIndex periodSpend, DailySpendingIndex dailySpending, Supplier<Ledger> ledger, Consumer<Alert> sink) {
+        this.periodSpend = periodSpend;
+        this.dailySpending = dailySpending;
+        this.ledger = ledger;
+        this.sink = sink;
+    }
+
+    public void configure(List<Double> percents, double dailyLimit) {
+        double[] sorted = new double[percents.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = percents.get(i) / 100;
+        Arrays.sort(sorted);
+        this.thresholds = sorted;
+        this.dailyLimit = dailyLimit;
+    }
+
+    @Override
+    public void onIncome(Income income, int sign) {
+    }
+
+    @Override
+    public void onExpense(Expense expense, int sign) {
+        if (sign <= 0) return;
+        LocalDate today = LocalDate.now();
+        if (thresholds.length > 0) {
+            Ledger current = ledger.get();
+            for (String category : CategoryTree.withAncestors(expense.getCategory())) {
+                Double limit = current.getBudget().get(category);
+                BudgetPeriod period = current.getBudgetPeriods().get(category);
+                if (limit == null || period == null) continue;
+                PeriodSpendIndex.Status status = periodSpend.status(category, limit, period, today);
+                if (period.getUnit().bucketOf(expense.getDate()) == status.bucket) {
+                    checkBudget(category, period, status, expense.getAmount(), today);
+                }
+            }
+        }
+        if (dailyLimit > 0 && expense.getDate().equals(today)) {
+            double after = dailySpending.spentOn(today);
+            if (after > dailyLimit && after - expense.getAmount() <= dailyLimit) {
+                fire("day|" + today, today, today, String.format("Расходы за %s: %.2f — больше дневного порога %.2f", today, after, dailyLimit));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        fired.clear();
+    }
+
+    private void checkBudget(String category, BudgetPeriod period, PeriodSpendIndex.Status status, double amount, LocalDate today) {
+        double available = status.available();
+        double after = status.utilization();
+        double before = available > 0 ? (status.spent - amount) / available : status.spent - amount > 0 ? Double.POSITIVE_INFINITY : 0;
+        int index = Arrays.binarySearch(thresholds, after);
+        if (index < 0) index = -index - 2;
+        if (index < 0 || thresholds[index] <= before) return;
+
+        double threshold = thresholds[index];
+        String key = category + "|" + period.getUnit() + "|" + status.bucket + "|" + threshold;
+        String state = threshold >= 1 ? "превышен" : "израсходован на " + Math.round(threshold * 100) + "%";
+        fire(key, period.getUnit().end(status.bucket), today, String.format("Бюджет «%s» (%s, %s) %s: потрачено %.2f из %.2f",
+                LedgerReports.capitalize(category), period.getUnit().getLabel(), status.periodLabel(), state, status.spent, available));
+    }
+
+    private void fire(String key, LocalDate lastDay, LocalDate today, String message) {
+        fired.values().removeIf(day -> day.isBefore(today));
+        if (fired.putIfAbsent(key, lastDay) == null) sink.accept(new Alert(message));
+    }
+}
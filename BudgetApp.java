@@ -2,189 +2,102 @@ package org.example;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.*;
-import java.util.stream.Collectors;
-
-class Income {
-    private double amount;
-    private String description;
-    private LocalDate date;
-
-    public Income(double amount, String description, LocalDate date) {
-        this.amount = amount;
-        this.description = description;
-        this.date = date;
-    }
-
-    public double getAmount() { return amount; }
-    public String getDescription() { return description; }
-    public LocalDate getDate() { return date; }
-
-    public void setAmount(double amount) { this.amount = amount; }
-    public void setDescription(String description) { this.description = description; }
-    public void setDate(LocalDate date) { this.date = date; }
-
-    @Override
-    public String toString() {
-        return String.format("Доход: %.2f, Описание: %s, Дата: %s", amount, description, date.format(DateTimeFormatter.ISO_LOCAL_DATE));
-    }
-}
-
-class Expense {
-    private double amount;
-    private String description;
-    private String category;
-    private LocalDate date;
-
-    public Expense(double amount, String description, String category, LocalDate date) {
-        this.amount = amount;
-        this.description = description;
-        this.category = category;
-        this.date = date;
-    }
-
-    public double getAmount() { return amount; }
-    public String getDescription() { return description; }
-    public String getCategory() { return category; }
-    public LocalDate getDate() { return date; }
-
-    public void setAmount(double amount) { this.amount = amount; }
-    public void setDescription(String description) { this.description = description; }
-    public void setCategory(String category) { this.category = category; }
-    public void setDate(LocalDate date) { this.date = date; }
-
-    @Override
-    public String toString() {
-        return String.format("Расход: %.2f, Описание: %s, Категория: %s, Дата: %s", amount, description, category, date.format(DateTimeFormatter.ISO_LOCAL_DATE));
-    }
-}
-
-class RecurringIncome extends Income {
-    private String frequency;
-    private int repetitions;
-
-    public RecurringIncome(double amount, String description, LocalDate startDate, String frequency, int repetitions) {
-        super(amount, description, startDate);
-        this.frequency = frequency;
-        this.repetitions = repetitions;
-    }
-
-    public String getFrequency() { return frequency; }
-    public int getRepetitions() { return repetitions; }
-
-    public void setFrequency(String frequency) { this.frequency = frequency; }
-    public void setRepetitions(int repetitions) { this.repetitions = repetitions; }
-
-    @Override
-    public String toString() {
-        return String.format("Повторяющийся доход: %.2f, Описание: %s, Нач. дата: %s, Частота: %s, Повторений: %d",
-                getAmount(), getDescription(), getDate().format(DateTimeFormatter.ISO_LOCAL_DATE), frequency, repetitions);
-    }
-}
-
-class RecurringExpense extends Expense {
-    private String frequency;
-    private int repetitions;
-
-    public RecurringExpense(double amount, String description, String category, LocalDate startDate, String frequency, int repetitions) {
-        super(amount, description, category, startDate);
-        this.frequency = frequency;
-        this.repetitions = repetitions;
-    }
-
-    public String getFrequency() { return frequency; }
-    public int getRepetitions() { return repetitions; }
-
-    public void setFrequency(String frequency) { this.frequency = frequency; }
-    public void setRepetitions(int repetitions) { this.repetitions = repetitions; }
-
-    @Override
-    public String toString() {
-        return String.format("Повторяющийся расход: %.2f, Описание: %s, Категория: %s, Нач. дата: %s, Частота: %s, Повторений: %d",
-                getAmount(), getDescription(), getCategory(), getDate().format(DateTimeFormatter.ISO_LOCAL_DATE), frequency, repetitions);
-    }
-}
-
-class FinancialGoal {
-    private String name;
-    private double targetAmount;
-    private double currentAmount;
-    private LocalDate dueDate;
-
-    public FinancialGoal(String name, double targetAmount, double currentAmount, LocalDate dueDate) {
-        this.name = name;
-        this.targetAmount = targetAmount;
-        this.currentAmount = currentAmount;
-        this.dueDate = dueDate;
-    }
-
-    public String getName() { return name; }
-    public double getTargetAmount() { return targetAmount; }
-    public double getCurrentAmount() { return currentAmount; }
-    public LocalDate getDueDate() { return dueDate; }
-
-    public void setName(String name) { this.name = name; }
-    public void setTargetAmount(double targetAmount) { this.targetAmount = targetAmount; }
-    public void setCurrentAmount(double currentAmount) { this.currentAmount = currentAmount; }
-    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
-
-    public double getProgressPercentage() {
-        return (targetAmount > 0) ? (currentAmount / targetAmount) * 100 : 0;
-    }
-
-    public double getRemainingAmount() {
-        return targetAmount - currentAmount;
-    }
-
-    @Override
-    public String toString() {
-        return String.format("Цель: %s, Целевая сумма: %.2f, Текущая сумма: %.2f, Дата завершения: %s",
-                name, targetAmount, currentAmount, dueDate.format(DateTimeFormatter.ISO_LOCAL_DATE));
-    }
-}
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
 
 public class BudgetApp extends JFrame {
     private static final String DATA_FILE = "budget_data.csv";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
 
-    private List<Income> incomes = new ArrayList<>();
-    private List<Expense> expenses = new ArrayList<>();
-    private Map<String, Double> budget = new HashMap<>();
-    private List<RecurringIncome> recurringIncomes = new ArrayList<>();
-    private List<RecurringExpense> recurringExpenses = new ArrayList<>();
-    private List<FinancialGoal> goals = new ArrayList<>();
-    private Set<String> categories = new HashSet<>(Arrays.asList("Еда", "Транспорт", "Развлечения", "Жилье", "Зарплата", "Подарки"));
+    private File dataFile = canonicalFile(new File(System.getProperty("budget.file", DATA_FILE)));
+    private Ledger ledger;
+    private List<Income> incomes;
+    private List<Expense> expenses;
+    private Map<String, Double> budget;
+    private List<RecurringIncome> recurringIncomes;
+    private List<RecurringExpense> recurringExpenses;
+    private List<FinancialGoal> goals;
+    private Set<String> categories;
+    private final LedgerCache ledgerCache = new LedgerCache(Integer.getInteger("budget.cache.ledgers", 16),
+            Long.getLong("budget.cache.records", 2_000_000L));
+    private DefaultComboBoxModel<File> knownLedgers;
+    private JComboBox<File> ledgerSwitcher;
+    private boolean loadingData;
+    private boolean saveDeferred;
+
+    private final FxRates fxRates = FxRates.loadDefault();
+    private final LedgerIndexes ledgerIndexes = new LedgerIndexes(fxRates);
+    private final ExpenseDistributionIndex expenseDistribution = new ExpenseDistributionIndex();
+    private final RollupCube rollupCube = new RollupCube();
+    private final GoalProjection goalProjection = new GoalProjection(rollupCube, fxRates, 6, 600);
+    private final DailySpendingIndex dailySpending = new DailySpendingIndex();
+    private final BalanceIndex balanceIndex = new BalanceIndex();
+    private final PeriodSpendIndex periodSpend = new PeriodSpendIndex();
+    private final BudgetAlerts budgetAlerts = new BudgetAlerts(periodSpend, dailySpending, () -> ledger, this::showAlert);
+    private static final int ALERT_LOG_LIMIT = 500;
+    private final DefaultListModel<String> alertLog = new DefaultListModel<>();
+    private JWindow alertToast;
+    private JLabel alertToastLabel;
+    private javax.swing.Timer alertToastTimer;
+    private final ViewRecomputer viewRecomputer = new ViewRecomputer(this::recomputeFailed);
+    private final ViewGraph viewGraph = new ViewGraph();
+    private final LedgerReports reports = new LedgerReports(rollupCube, expenseDistribution, periodSpend);
 
     private JLabel statusLabel;
+    private JProgressBar loadProgressBar;
     private JTabbedPane tabbedPane;
+    private final Map<Integer, Supplier<JComponent>> pendingTabs = new HashMap<>();
 
     private JTextField incomeAmountField, incomeDescriptionField;
+    private JComboBox<String> incomeCurrencyComboBox;
     private JCheckBox recurringIncomeCheckBox;
     private JComboBox<String> incomeFrequencyComboBox;
     private JTextField incomeRepetitionsField;
     private DatePicker incomeDatePicker;
+    private DatePicker incomeUntilDatePicker;
 
     private JTextField expenseAmountField, expenseDescriptionField;
+    private JComboBox<String> expenseCurrencyComboBox;
     private JComboBox<String> expenseCategoryComboBox;
     private JCheckBox recurringExpenseCheckBox;
     private JComboBox<String> expenseFrequencyComboBox;
     private JTextField expenseRepetitionsField;
     private DatePicker expenseDatePicker;
+    private DatePicker expenseUntilDatePicker;
 
     private JComboBox<String> budgetCategoryComboBox;
     private JTextField budgetAmountField;
+    private JComboBox<String> budgetPeriodComboBox;
+    private JCheckBox budgetRolloverCheckBox;
+    private DefaultTableModel periodBudgetTableModel;
 
     private JTextField editIndexField;
     private JRadioButton incomeEditRadio, expenseEditRadio, recurringIncomeEditRadio, recurringExpenseEditRadio;
@@ -193,18 +106,62 @@ public class BudgetApp extends JFrame {
     private Map<String, Object> editingRecordInfo = null;
 
     private JTextArea reportTextArea;
+    private JTextArea monthlySummaryTextArea, forecastTextArea;
+    private CategoryChartPanel categoryChart;
+    private BalanceChartPanel balanceChart;
+    private SpendingHeatmapPanel spendingHeatmap;
+    private DefaultListModel<String> categoryListModel;
     private JTextField filterDescriptionField, filterCategoryField, filterMonthField, filterYearField;
+    private DatePicker balanceFromDatePicker, balanceAsOfDatePicker;
+    private JLabel balanceAsOfLabel;
 
     private JTextField goalNameField, goalTargetAmountField, goalCurrentAmountField;
+    private JComboBox<String> goalCurrencyComboBox;
     private DatePicker goalDueDateField;
     private JTable goalsTable;
-    private DefaultTableModel goalsTableModel;
+    private GoalsTableModel goalsTableModel;
+
+    private JComboBox<String> summaryYearComboBox, summaryMonthComboBox, summaryCategoryComboBox;
+
+    private static final Integer[] FORECAST_HORIZONS = {6, 12, 24, 60, 120, 240, 360};
+    private JComboBox<Integer> forecastHorizonComboBox;
+    private JTextField forecastMonthField;
+    private JCheckBox stochasticForecastCheckBox;
+    private ForecastEngine forecastEngine;
+    private LedgerApiServer apiServer;
+    private static final int INGEST_SAVE_DELAY_MILLIS = 1000;
+    private javax.swing.Timer ingestSaveTimer;
+    private static final int DAY_ROLLOVER_CHECK_MILLIS = 60_000;
+    private javax.swing.Timer dayRolloverTimer;
+    private static final long SHUTDOWN_DRAIN_SECONDS = 30;
+    private boolean shuttingDown;
+    private final TransactionIngestor ingestor = new TransactionIngestor(1 << 16, 4096, this::applyIngested);
+    private final Map<File, Ledger> pendingSaves = new ConcurrentHashMap<>();
+    private final Map<File, LedgerDiff.Digest> diskDigests = new ConcurrentHashMap<>();
+    private final Map<File, String> diskStamps = new ConcurrentHashMap<>();
+    private final List<LedgerDiff> deferredExternalChanges = new ArrayList<>();
+    private LedgerFileWatcher fileWatcher;
+    private final ExecutorService persistExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "ledger-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String BASE_SCENARIO_NAME = "Текущие данные";
+    private static final String KEEP_VALUE_LABEL = "— не менять —";
+    private CategoryRules compiledRules;
+    private JTextArea categoryRulesArea;
+    private final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+    private JTextField scenarioNameField, scenarioValueField, scenarioDescriptionField, scenarioRepetitionsField;
+    private JComboBox<String> scenarioBaseComboBox, scenarioAdjustmentComboBox, scenarioCategoryComboBox;
+    private JComboBox<Integer> scenarioHorizonComboBox;
+    private DefaultTableModel scenariosTableModel;
 
     public BudgetApp() {
         setTitle("Инструмент для бюджетирования и прогнозирования");
         setSize(1200, 850);
         setMinimumSize(new Dimension(900, 750));
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setLocationRelativeTo(null);
 
         try {
@@ -213,32 +170,347 @@ public class BudgetApp extends JFrame {
             System.err.println("Не удалось установить Nimbus LookAndFeel: " + e.getMessage());
         }
 
+        ledgerIndexes.register(expenseDistribution);
+        ledgerIndexes.register(rollupCube);
+        ledgerIndexes.register(goalProjection);
+        ledgerIndexes.register(dailySpending);
+        ledgerIndexes.register(balanceIndex);
+        ledgerIndexes.register(periodSpend);
+        ledgerIndexes.register(viewGraph);
+        ledgerIndexes.observe(budgetAlerts);
+        bindLedger(new Ledger());
+
         initComponents();
+        registerViews();
+        ingestSaveTimer = new javax.swing.Timer(INGEST_SAVE_DELAY_MILLIS, e -> saveData());
+        ingestSaveTimer.setRepeats(false);
+        dayRolloverTimer = new javax.swing.Timer(DAY_ROLLOVER_CHECK_MILLIS, e -> indexNewOccurrences());
+        dayRolloverTimer.start();
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                shutDown();
+            }
+        });
+        ingestor.start();
+        startFileWatcher();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushPendingSave, "ledger-save-on-exit"));
+        startApiServer();
         loadData();
-        updateCategoriesComboBoxes();
-        refreshUI();
+    }
+
+    private void registerViews() {
+        viewGraph.register("categories", () -> {
+            updateCategoriesComboBoxes();
+            if (categoryListModel != null) updateCategoryListModel(categoryListModel);
+        }, ViewGraph.Part.CATEGORIES);
+    }
+
+    private static File canonicalFile(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private void bindLedger(Ledger target) {
+        ledger = target;
+        incomes = target.getIncomes();
+        expenses = target.getExpenses();
+        budget = target.getBudget();
+        recurringIncomes = target.getRecurringIncomes();
+        recurringExpenses = target.getRecurringExpenses();
+        goals = target.getGoals();
+        categories = target.getCategories();
+        compiledRules = null;
+        budgetAlerts.clear();
+        budgetAlerts.configure(target.getAlertThresholds(), target.getDailyAlertLimit());
+        forgetEvicted(ledgerCache.put(dataFile, target));
+    }
+
+    private void forgetEvicted(List<File> evicted) {
+        for (File file : evicted) {
+            // Queued behind any pending save of the file, which would otherwise record its digest again.
+            persistExecutor.execute(() -> {
+                diskDigests.remove(file);
+                diskStamps.remove(file);
+            });
+        }
+    }
+
+    private void ledgerRebound() {
+        ledgerIndexes.rebuild(incomes, expenses, recurringIncomes, recurringExpenses);
+        viewsRebound();
+    }
+
+    private void viewsRebound() {
+        if (goalsTableModel != null) goalsTableModel.setGoals(goals);
+        if (categoryRulesArea != null) categoryRulesArea.setText(CategoryRules.format(ledger.getCategoryRules()));
+        viewGraph.invalidateAll();
+    }
+
+    private void shutDown() {
+        if (shuttingDown) return;
+        shuttingDown = true;
+        dayRolloverTimer.stop();
+        if (apiServer != null) apiServer.stop();
+        if (fileWatcher != null) fileWatcher.stop();
+        ingestor.stop();
+        updateStatus("Завершение работы: применяются записи из очереди...");
+        Thread drain = new Thread(() -> {
+            try {
+                if (!ingestor.awaitDrained(SHUTDOWN_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                    System.err.println("Очередь записей не обработана до выхода, осталось: " + ingestor.getPending());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            SwingUtilities.invokeLater(() -> {
+                ingestSaveTimer.stop();
+                saveData();
+                dispose();
+                System.exit(0);
+            });
+        }, "ledger-shutdown");
+        drain.start();
+    }
+
+    private void indexNewOccurrences() {
+        if (ledgerIndexes.advanceTo(LocalDate.now())) viewGraph.invalidateAll();
+    }
+
+    private JPanel createLedgerSwitcherPanel() {
+        knownLedgers = new DefaultComboBoxModel<>();
+        knownLedgers.addElement(dataFile);
+        ledgerSwitcher = new JComboBox<>(knownLedgers);
+        ledgerSwitcher.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof File) {
+                    File file = (File) value;
+                    setText(ledgerCache.contains(file) ? file.getName() : file.getName() + " (на диске)");
+                    setToolTipText(file.getPath());
+                }
+                return this;
+            }
+        });
+        ledgerSwitcher.addActionListener(e -> {
+            Object selected = ledgerSwitcher.getSelectedItem();
+            if (selected instanceof File) switchLedger((File) selected);
+        });
+
+        JButton openButton = new JButton("Открыть или создать...");
+        openButton.addActionListener(e -> chooseLedgerFile());
+
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        panel.add(new JLabel("Бюджет (Ctrl+L):"));
+        panel.add(ledgerSwitcher);
+        panel.add(openButton);
+
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke("control L"), "switchLedger");
+        getRootPane().getActionMap().put("switchLedger", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ledgerSwitcher.requestFocusInWindow();
+                ledgerSwitcher.showPopup();
+            }
+        });
+        updateLedgerTitle();
+        return panel;
+    }
+
+    private void chooseLedgerFile() {
+        JFileChooser fileChooser = new JFileChooser(dataFile.getParentFile());
+        fileChooser.setDialogTitle("Выберите файл бюджета или введите имя нового");
+        if (fileChooser.showDialog(this, "Открыть") == JFileChooser.APPROVE_OPTION) {
+            switchLedger(fileChooser.getSelectedFile());
+        } else {
+            updateStatus("Переключение бюджета отменено.");
+        }
+    }
+
+    private void switchLedger(File file) {
+        File target = canonicalFile(file);
+        if (target.equals(dataFile)) return;
+        if (loadingData) {
+            updateStatus("Дождитесь окончания загрузки текущего бюджета.", true);
+            rememberLedger(dataFile);
+            return;
+        }
+        if (ingestSaveTimer.isRunning()) {
+            ingestSaveTimer.stop();
+            saveData();
+        }
+
+        Ledger cached = ledgerCache.get(target);
+        dataFile = target;
+        bindLedger(cached != null ? cached : new Ledger());
+        ledgerRebound();
+        clearEntries();
+        rememberLedger(target);
+        updateLedgerTitle();
+        watchDataFile();
+        if (cached != null) {
+            updateStatus("Открыт бюджет " + target);
+            persistExecutor.execute(() -> checkExternalChange(target, null));
+        } else {
+            loadData();
+        }
+    }
+
+    private void rememberLedger(File file) {
+        if (knownLedgers.getIndexOf(file) == 0 && file.equals(knownLedgers.getSelectedItem())) return;
+        ActionListener[] listeners = ledgerSwitcher.getActionListeners();
+        for (ActionListener listener : listeners) ledgerSwitcher.removeActionListener(listener);
+        knownLedgers.removeElement(file);
+        knownLedgers.insertElementAt(file, 0);
+        knownLedgers.setSelectedItem(file);
+        for (ActionListener listener : listeners) ledgerSwitcher.addActionListener(listener);
+    }
+
+    private void updateLedgerTitle() {
+        setTitle("Инструмент для бюджетирования и прогнозирования — " + dataFile.getName());
+    }
+
+    private void startFileWatcher() {
+        try {
+            fileWatcher = new LedgerFileWatcher(file -> {
+                try {
+                    persistExecutor.execute(() -> checkExternalChange(file, null));
+                } catch (RejectedExecutionException e) {
+                    // приложение завершается
+                }
+            });
+            fileWatcher.start();
+            watchDataFile();
+        } catch (IOException e) {
+            fileWatcher = null;
+            updateStatus("Не удалось включить отслеживание изменений файла данных: " + e.getMessage(), true);
+            e.printStackTrace();
+        }
+    }
+
+    private void watchDataFile() {
+        if (fileWatcher == null) return;
+        try {
+            fileWatcher.watch(dataFile);
+        } catch (IOException e) {
+            updateStatus("Не удалось отслеживать изменения файла " + dataFile + ": " + e.getMessage(), true);
+            e.printStackTrace();
+        }
+    }
+
+    private void startApiServer() {
+        Integer port = Integer.getInteger("budget.api.port");
+        if (port == null) return;
+
+        apiServer = new LedgerApiServer(ingestor, fxRates, new LedgerApiServer.Mutations() {
+            @Override
+            public Income addIncome(double amount, String description, LocalDate date, String currency) {
+                return addIncomeFromApi(amount, description, date, currency);
+            }
+
+            @Override
+            public Expense addExpense(double amount, String description, String category, LocalDate date, String currency) {
+                return addExpenseFromApi(amount, description, category, date, currency);
+            }
+        });
+        try {
+            apiServer.start(port);
+        } catch (IOException e) {
+            apiServer = null;
+            updateStatus("Не удалось запустить API на порту " + port + ": " + e.getMessage(), true);
+            e.printStackTrace();
+            return;
+        }
+        viewGraph.register("api", this::publishApiState, ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES,
+                ViewGraph.Part.RECURRING, ViewGraph.Part.BUDGET, ViewGraph.Part.GOALS);
+        System.out.println("API доступен по адресу http://127.0.0.1:" + apiServer.getPort() + "/api/");
+    }
+
+    private void publishApiState() {
+        if (loadingData) return;
+        LocalDate today = LocalDate.now();
+        Map<String, PeriodSpendIndex.Status> periodStatus = new HashMap<>();
+        ledger.getBudgetPeriods().forEach((category, period) -> {
+            Double limit = budget.get(category);
+            if (limit != null) periodStatus.put(category, periodSpend.status(category, limit, period, today));
+        });
+        apiServer.publish(new LedgerApiServer.State(takeSnapshot(),
+                rollupCube.series(RollupCube.Level.MONTH, RollupCube.ALL_CATEGORIES),
+                rollupCube.series(RollupCube.Level.YEAR, RollupCube.ALL_CATEGORIES),
+                reports.currentBalance(), periodStatus));
+    }
+
+    private Income addIncomeFromApi(double amount, String description, LocalDate date, String currency) {
+        Income inc = new Income(amount, description, date);
+        inc.setCurrency(currency);
+        incomes.add(inc);
+        ledgerIndexes.incomeAdded(inc);
+        saveData();
+        updateStatus("Доход добавлен через API: " + description);
+        viewGraph.flush();
+        return inc;
+    }
+
+    private Expense addExpenseFromApi(double amount, String description, String category, LocalDate date, String currency) {
+        Expense exp = new Expense(amount, description, category != null ? category : categorize(description), date);
+        exp.setCurrency(currency);
+        expenses.add(exp);
+        if (categories.add(exp.getCategory())) viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
+        ledgerIndexes.expenseAdded(exp);
+        saveData();
+        updateStatus("Расход добавлен через API: " + description);
+        viewGraph.flush();
+        return exp;
     }
 
     private void initComponents() {
         statusLabel = new JLabel("Готов");
         statusLabel.setBorder(BorderFactory.createEtchedBorder());
         statusLabel.setPreferredSize(new Dimension(getWidth(), 25));
-        add(statusLabel, BorderLayout.SOUTH);
+        loadProgressBar = new JProgressBar(0, 100);
+        loadProgressBar.setStringPainted(true);
+        loadProgressBar.setVisible(false);
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(loadProgressBar, BorderLayout.EAST);
+        add(statusPanel, BorderLayout.SOUTH);
+        add(createLedgerSwitcherPanel(), BorderLayout.NORTH);
 
         tabbedPane = new JTabbedPane();
         add(tabbedPane, BorderLayout.CENTER);
 
-        setupDataManagementTab();
-        setupReportsTab();
-        setupDashboardTab();
-        setupGoalsTab();
-        setupCategoryManagementTab();
+        tabbedPane.addTab("Управление данными", setupDataManagementTab());
+        addLazyTab("Отчеты и аналитика", this::setupReportsTab);
+        addLazyTab("Панель инструментов", this::setupDashboardTab);
+        addLazyTab("Финансовые цели", this::setupGoalsTab);
+        addLazyTab("Управление категориями", this::setupCategoryManagementTab);
+        addLazyTab("Сценарии", this::setupScenariosTab);
+        addLazyTab("Календарь расходов", this::setupSpendingCalendarTab);
+        addLazyTab("Уведомления", this::setupAlertsTab);
+        tabbedPane.addChangeListener(e -> buildSelectedTab());
+    }
+
+    private void addLazyTab(String title, Supplier<JComponent> builder) {
+        pendingTabs.put(tabbedPane.getTabCount(), builder);
+        tabbedPane.addTab(title, new JLabel("Загрузка...", SwingConstants.CENTER));
     }
 
-    private void setupDataManagementTab() {
+    private void buildSelectedTab() {
+        int index = tabbedPane.getSelectedIndex();
+        Supplier<JComponent> builder = pendingTabs.remove(index);
+        if (builder == null) return;
+        tabbedPane.setComponentAt(index, builder.get());
+        viewGraph.invalidateView("categories");
+    }
+
+    private JComponent setupDataManagementTab() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
-        tabbedPane.addTab("Управление данными", panel);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
@@ -274,6 +546,33 @@ public class BudgetApp extends JFrame {
         gbc.weighty = 1;
         panel.add(editDeletePanel, gbc);
         setupEditDeletePanel(editDeletePanel);
+        return panel;
+    }
+
+    private JComboBox<String> createCurrencyComboBox() {
+        JComboBox<String> comboBox = new JComboBox<>();
+        comboBox.addItem(fxRates.getBase());
+        for (String currency : fxRates.currencies()) comboBox.addItem(currency);
+        comboBox.setEnabled(comboBox.getItemCount() > 1);
+        return comboBox;
+    }
+
+    private static JPanel withCurrency(JTextField amountField, JComboBox<String> currencyComboBox) {
+        JPanel panel = new JPanel(new BorderLayout(4, 0));
+        panel.add(amountField, BorderLayout.CENTER);
+        panel.add(currencyComboBox, BorderLayout.EAST);
+        return panel;
+    }
+
+    private void selectCurrency(JComboBox<String> comboBox, String currency) {
+        String label = fxRates.label(currency);
+        if (((DefaultComboBoxModel<String>) comboBox.getModel()).getIndexOf(label) < 0) comboBox.addItem(label);
+        comboBox.setSelectedItem(label);
+    }
+
+    private String selectedCurrency(JComboBox<String> comboBox) {
+        String currency = (String) comboBox.getSelectedItem();
+        return currency == null || currency.equals(fxRates.getBase()) ? null : currency;
     }
 
     private JPanel createTitledPanel(String title) {
@@ -291,7 +590,8 @@ public class BudgetApp extends JFrame {
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
         gbc.gridx = 0; gbc.gridy = 0; panel.add(new JLabel("Сумма:"), gbc);
-        gbc.gridx = 1; gbc.weightx = 1; incomeAmountField = createPlaceholderTextField("Введите сумму"); panel.add(incomeAmountField, gbc);
+        gbc.gridx = 1; gbc.weightx = 1; incomeAmountField = createPlaceholderTextField("Введите сумму");
+        incomeCurrencyComboBox = createCurrencyComboBox(); panel.add(withCurrency(incomeAmountField, incomeCurrencyComboBox), gbc);
 
         gbc.gridx = 0; gbc.gridy = 1; gbc.weightx = 0; panel.add(new JLabel("Описание:"), gbc);
         gbc.gridx = 1; gbc.weightx = 1; incomeDescriptionField = createPlaceholderTextField("Например: Зарплата, подарок"); panel.add(incomeDescriptionField, gbc);
@@ -315,11 +615,15 @@ public class BudgetApp extends JFrame {
         subGbc.fill = GridBagConstraints.HORIZONTAL;
 
         subGbc.gridx = 0; subGbc.gridy = 0; recurringOptionsPanel.add(new JLabel("Частота:"), subGbc);
-        subGbc.gridx = 1; subGbc.weightx = 1; incomeFrequencyComboBox = new JComboBox<>(new String[]{"Ежемесячно"}); recurringOptionsPanel.add(incomeFrequencyComboBox, subGbc);
+        subGbc.gridx = 1; subGbc.weightx = 1; incomeFrequencyComboBox = new JComboBox<>(RecurrenceRule.LABELS); recurringOptionsPanel.add(incomeFrequencyComboBox, subGbc);
+        incomeFrequencyComboBox.setSelectedItem(RecurrenceRule.MONTHLY_LABEL);
 
         subGbc.gridx = 0; subGbc.gridy = 1; subGbc.weightx = 0; recurringOptionsPanel.add(new JLabel("Повторений:"), subGbc);
         subGbc.gridx = 1; subGbc.weightx = 1; incomeRepetitionsField = createPlaceholderTextField("Количество повторений"); recurringOptionsPanel.add(incomeRepetitionsField, subGbc);
 
+        subGbc.gridx = 0; subGbc.gridy = 2; subGbc.weightx = 0; recurringOptionsPanel.add(new JLabel("Дата окончания:"), subGbc);
+        subGbc.gridx = 1; subGbc.weightx = 1; incomeUntilDatePicker = new DatePicker(); recurringOptionsPanel.add(incomeUntilDatePicker, subGbc);
+
         toggleRecurringIncomeOptions();
 
         gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 2;
@@ -334,13 +638,24 @@ public class BudgetApp extends JFrame {
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
         gbc.gridx = 0; gbc.gridy = 0; panel.add(new JLabel("Сумма:"), gbc);
-        gbc.gridx = 1; gbc.weightx = 1; expenseAmountField = createPlaceholderTextField("Введите сумму"); panel.add(expenseAmountField, gbc);
+        gbc.gridx = 1; gbc.weightx = 1; expenseAmountField = createPlaceholderTextField("Введите сумму");
+        expenseCurrencyComboBox = createCurrencyComboBox(); panel.add(withCurrency(expenseAmountField, expenseCurrencyComboBox), gbc);
 
         gbc.gridx = 0; gbc.gridy = 1; gbc.weightx = 0; panel.add(new JLabel("Описание:"), gbc);
         gbc.gridx = 1; gbc.weightx = 1; expenseDescriptionField = createPlaceholderTextField("Например: Продукты, такси"); panel.add(expenseDescriptionField, gbc);
 
         gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 0; panel.add(new JLabel("Категория:"), gbc);
         gbc.gridx = 1; gbc.weightx = 1; expenseCategoryComboBox = new JComboBox<>(); panel.add(expenseCategoryComboBox, gbc);
+        expenseDescriptionField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { suggestExpenseCategory(); }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) { suggestExpenseCategory(); }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) { }
+        });
 
 
         gbc.gridx = 0; gbc.gridy = 3; gbc.weightx = 0; panel.add(new JLabel("Дата (ГГГГ-ММ-ДД):"), gbc);
@@ -362,11 +677,15 @@ public class BudgetApp extends JFrame {
         subGbc.fill = GridBagConstraints.HORIZONTAL;
 
         subGbc.gridx = 0; subGbc.gridy = 0; recurringOptionsPanel.add(new JLabel("Частота:"), subGbc);
-        subGbc.gridx = 1; subGbc.weightx = 1; expenseFrequencyComboBox = new JComboBox<>(new String[]{"Ежемесячно"}); recurringOptionsPanel.add(expenseFrequencyComboBox, subGbc);
+        subGbc.gridx = 1; subGbc.weightx = 1; expenseFrequencyComboBox = new JComboBox<>(RecurrenceRule.LABELS); recurringOptionsPanel.add(expenseFrequencyComboBox, subGbc);
+        expenseFrequencyComboBox.setSelectedItem(RecurrenceRule.MONTHLY_LABEL);
 
         subGbc.gridx = 0; subGbc.gridy = 1; subGbc.weightx = 0; recurringOptionsPanel.add(new JLabel("Повторений:"), subGbc);
         subGbc.gridx = 1; subGbc.weightx = 1; expenseRepetitionsField = createPlaceholderTextField("Количество повторений"); recurringOptionsPanel.add(expenseRepetitionsField, subGbc);
 
+        subGbc.gridx = 0; subGbc.gridy = 2; subGbc.weightx = 0; recurringOptionsPanel.add(new JLabel("Дата окончания:"), subGbc);
+        subGbc.gridx = 1; subGbc.weightx = 1; expenseUntilDatePicker = new DatePicker(); recurringOptionsPanel.add(expenseUntilDatePicker, subGbc);
+
         toggleRecurringExpenseOptions();
 
         gbc.gridx = 0; gbc.gridy = 6; gbc.gridwidth = 2;
@@ -387,7 +706,18 @@ public class BudgetApp extends JFrame {
         gbc.gridx = 0; gbc.gridy = 1; gbc.weightx = 0; panel.add(new JLabel("Сумма бюджета:"), gbc);
         gbc.gridx = 1; gbc.weightx = 1; budgetAmountField = createPlaceholderTextField("Например: 500.00"); panel.add(budgetAmountField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2;
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 0; panel.add(new JLabel("Период:"), gbc);
+        gbc.gridx = 1; gbc.weightx = 1; budgetPeriodComboBox = new JComboBox<>(new String[]{BudgetPeriod.ALL_TIME_LABEL,
+                BudgetPeriod.Unit.WEEK.getLabel(), BudgetPeriod.Unit.MONTH.getLabel(), BudgetPeriod.Unit.YEAR.getLabel()});
+        panel.add(budgetPeriodComboBox, gbc);
+
+        gbc.gridx = 1; gbc.gridy = 3;
+        budgetRolloverCheckBox = new JCheckBox("Переносить остаток на следующий период");
+        budgetRolloverCheckBox.setEnabled(false);
+        budgetPeriodComboBox.addActionListener(e -> budgetRolloverCheckBox.setEnabled(budgetPeriodComboBox.getSelectedIndex() > 0));
+        panel.add(budgetRolloverCheckBox, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2;
         JButton setBudgetButton = new JButton("Установить бюджет");
         setBudgetButton.addActionListener(e -> setBudget());
         panel.add(setBudgetButton, gbc);
@@ -398,7 +728,7 @@ public class BudgetApp extends JFrame {
         gbc.insets = new Insets(2, 2, 2, 2);
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
-        gbc.gridx = 0; gbc.gridy = 0; panel.add(new JLabel("Индекс записи (из отчета):"), gbc);
+        gbc.gridx = 0; gbc.gridy = 0; panel.add(new JLabel("Индексы записей (например: 3 или 1-10, 15):"), gbc);
         gbc.gridx = 0; gbc.gridy = 1; editIndexField = createPlaceholderTextField("Введите индекс"); panel.add(editIndexField, gbc);
 
         gbc.gridx = 0; gbc.gridy = 2; panel.add(new JLabel("Тип записи:"), gbc);
@@ -432,11 +762,21 @@ public class BudgetApp extends JFrame {
         panel.add(saveEditButton, gbc);
 
         gbc.gridy = 9;
-        JButton deleteButton = new JButton("Удалить запись");
+        JButton deleteButton = new JButton("Удалить выбранные записи");
         deleteButton.addActionListener(e -> deleteEntry());
         panel.add(deleteButton, gbc);
 
         gbc.gridy = 10;
+        JButton bulkEditButton = new JButton("Изменить выбранные записи...");
+        bulkEditButton.addActionListener(e -> bulkEditEntries());
+        panel.add(bulkEditButton, gbc);
+
+        gbc.gridy = 11;
+        JButton selectByFilterButton = new JButton("Выбрать по фильтрам отчета");
+        selectByFilterButton.addActionListener(e -> selectEntriesByReportFilter());
+        panel.add(selectByFilterButton, gbc);
+
+        gbc.gridy = 12;
         JButton clearAllButton = new JButton("Очистить все данные");
         clearAllButton.setBackground(new Color(255, 82, 82));
         clearAllButton.setForeground(Color.WHITE);
@@ -445,16 +785,15 @@ public class BudgetApp extends JFrame {
         clearAllButton.addActionListener(e -> clearAllData());
         panel.add(clearAllButton, gbc);
 
-        gbc.gridy = 11;
+        gbc.gridy = 13;
         JButton exportCsvButton = new JButton("Экспорт в CSV");
         exportCsvButton.addActionListener(e -> exportToCsv());
         panel.add(exportCsvButton, gbc);
     }
 
-    private void setupReportsTab() {
+    private JComponent setupReportsTab() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
-        tabbedPane.addTab("Отчеты и аналитика", panel);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
@@ -490,18 +829,63 @@ public class BudgetApp extends JFrame {
         resetFilterButton.addActionListener(e -> resetFilters());
         filterPanel.add(resetFilterButton, filterGbc);
 
+        JPanel balancePanel = createTitledPanel("Баланс на дату");
+        gbc.gridx = 0; gbc.gridy = 1;
+        panel.add(balancePanel, gbc);
+
+        GridBagConstraints balanceGbc = new GridBagConstraints();
+        balanceGbc.insets = new Insets(2, 2, 2, 2);
+        balanceGbc.fill = GridBagConstraints.HORIZONTAL;
+
+        balanceGbc.gridx = 0; balanceGbc.gridy = 0; balancePanel.add(new JLabel("На дату:"), balanceGbc);
+        balanceGbc.gridx = 1; balanceGbc.weightx = 1; balanceAsOfDatePicker = new DatePicker(); balanceAsOfDatePicker.setDate(LocalDate.now()); balancePanel.add(balanceAsOfDatePicker, balanceGbc);
+
+        balanceGbc.gridx = 2; balanceGbc.weightx = 0; balancePanel.add(new JLabel("Движение средств с:"), balanceGbc);
+        balanceGbc.gridx = 3; balanceGbc.weightx = 1; balanceFromDatePicker = new DatePicker(); balanceFromDatePicker.setDate(LocalDate.now().withDayOfMonth(1)); balancePanel.add(balanceFromDatePicker, balanceGbc);
+
+        balanceGbc.gridx = 4; balanceGbc.weightx = 0;
+        JButton balanceAsOfButton = new JButton("Рассчитать");
+        balanceAsOfButton.addActionListener(e -> updateBalanceAsOf());
+        balancePanel.add(balanceAsOfButton, balanceGbc);
+
+        balanceGbc.gridx = 0; balanceGbc.gridy = 1; balanceGbc.gridwidth = 5;
+        balanceAsOfLabel = new JLabel(" ");
+        balancePanel.add(balanceAsOfLabel, balanceGbc);
+
         reportTextArea = new JTextArea();
         reportTextArea.setEditable(false);
         reportTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane scrollPane = new JScrollPane(reportTextArea);
-        gbc.gridx = 0; gbc.gridy = 1; gbc.weighty = 1; gbc.fill = GridBagConstraints.BOTH;
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weighty = 1; gbc.fill = GridBagConstraints.BOTH;
         panel.add(scrollPane, gbc);
+
+        viewGraph.register("report", this::regenerateReport,
+                ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING, ViewGraph.Part.BUDGET);
+        viewGraph.register("balanceAsOf", this::updateBalanceAsOf,
+                ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        return panel;
+    }
+
+    private void updateBalanceAsOf() {
+        LocalDate asOf = balanceAsOfDatePicker.getDate();
+        LocalDate from = balanceFromDatePicker.getDate();
+        if (asOf == null) {
+            balanceAsOfLabel.setText("Выберите дату.");
+            return;
+        }
+        String text = String.format("Баланс на %s: %.2f", asOf.format(DATE_FORMATTER), balanceIndex.balanceAt(asOf));
+        if (from != null && !from.isAfter(asOf)) {
+            text += String.format("    Движение средств с %s по %s: %.2f",
+                    from.format(DATE_FORMATTER), asOf.format(DATE_FORMATTER), balanceIndex.netFlow(from, asOf));
+        } else if (from != null) {
+            text += "    Начало периода позже выбранной даты.";
+        }
+        balanceAsOfLabel.setText(text);
     }
 
-    private void setupDashboardTab() {
+    private JComponent setupDashboardTab() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
-        tabbedPane.addTab("Панель инструментов", panel);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
@@ -510,37 +894,134 @@ public class BudgetApp extends JFrame {
         JPanel chartPanel1 = createTitledPanel("Расходы по категориям");
         gbc.gridx = 0; gbc.gridy = 0; gbc.weightx = 1; gbc.weighty = 0.5;
         panel.add(chartPanel1, gbc);
+        categoryChart = new CategoryChartPanel();
+        chartPanel1.setLayout(new BorderLayout());
+        chartPanel1.add(categoryChart, BorderLayout.CENTER);
 
-        JPanel chartPanel2 = createTitledPanel("Динамика баланса (по месяцам)");
+        JPanel chartPanel2 = createTitledPanel("Динамика баланса (по дням)");
         gbc.gridx = 0; gbc.gridy = 1; gbc.weightx = 1; gbc.weighty = 0.5;
         panel.add(chartPanel2, gbc);
+        balanceChart = new BalanceChartPanel();
+        balanceChart.setBalanceLookup(balanceIndex::balanceAtDay);
+        chartPanel2.setLayout(new BorderLayout());
+        chartPanel2.add(balanceChart, BorderLayout.CENTER);
 
         JPanel summaryPanel = createTitledPanel("Ежемесячная/ежегодная сводка");
         gbc.gridx = 0; gbc.gridy = 2; gbc.weighty = 0.2;
         panel.add(summaryPanel, gbc);
-        JTextArea monthlySummaryText = new JTextArea();
-        monthlySummaryText.setEditable(false);
-        monthlySummaryText.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        summaryPanel.add(new JScrollPane(monthlySummaryText));
-
-        JPanel forecastPanel = createTitledPanel("Прогноз баланса (на 6 месяцев)");
+        monthlySummaryTextArea = new JTextArea();
+        monthlySummaryTextArea.setEditable(false);
+        monthlySummaryTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        summaryPanel.setLayout(new BorderLayout());
+        summaryPanel.add(createDrillDownPanel(monthlySummaryTextArea), BorderLayout.NORTH);
+        summaryPanel.add(new JScrollPane(monthlySummaryTextArea), BorderLayout.CENTER);
+
+        JPanel forecastPanel = createTitledPanel("Прогноз баланса");
         gbc.gridx = 0; gbc.gridy = 3; gbc.weighty = 0.2;
         panel.add(forecastPanel, gbc);
-        JTextArea forecastText = new JTextArea();
-        forecastText.setEditable(false);
-        forecastText.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        forecastPanel.add(new JScrollPane(forecastText));
+        forecastTextArea = new JTextArea();
+        forecastTextArea.setEditable(false);
+        forecastTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        forecastPanel.setLayout(new BorderLayout());
+        forecastPanel.add(createForecastControlsPanel(forecastTextArea), BorderLayout.NORTH);
+        forecastPanel.add(new JScrollPane(forecastTextArea), BorderLayout.CENTER);
+
+        JPanel periodBudgetPanel = createTitledPanel("Бюджеты текущего периода");
+        gbc.gridx = 0; gbc.gridy = 4; gbc.weighty = 0.15;
+        panel.add(periodBudgetPanel, gbc);
+        periodBudgetTableModel = new DefaultTableModel(new String[]{"Категория", "Период", "Доступно", "Потрачено", "Использовано"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        periodBudgetPanel.setLayout(new BorderLayout());
+        periodBudgetPanel.add(new JScrollPane(new JTable(periodBudgetTableModel)), BorderLayout.CENTER);
 
         JButton updateChartsButton = new JButton("Обновить графики и прогноз");
         updateChartsButton.addActionListener(e -> plotCharts());
-        gbc.gridx = 0; gbc.gridy = 4; gbc.weighty = 0;
+        gbc.gridx = 0; gbc.gridy = 5; gbc.weighty = 0;
         panel.add(updateChartsButton, gbc);
+
+        viewGraph.register("charts", this::updateCharts,
+                ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        viewGraph.register("summary", () -> updateMonthlySummaryText(monthlySummaryTextArea),
+                ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        viewGraph.register("forecast", () -> generateForecast(forecastTextArea, getForecastHorizon()),
+                ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        viewGraph.register("periodBudgets", this::updatePeriodBudgets,
+                ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING, ViewGraph.Part.BUDGET);
+        return panel;
+    }
+
+    private void updatePeriodBudgets() {
+        periodBudgetTableModel.setRowCount(0);
+        LocalDate today = LocalDate.now();
+        budget.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    BudgetPeriod period = ledger.getBudgetPeriods().get(entry.getKey());
+                    if (period == null) return;
+                    PeriodSpendIndex.Status status = periodSpend.status(entry.getKey(), entry.getValue(), period, today);
+                    double utilization = status.utilization();
+                    periodBudgetTableModel.addRow(new Object[]{
+                            LedgerReports.capitalize(entry.getKey()),
+                            period.describe() + ": " + status.periodLabel(),
+                            String.format("%.2f", status.available()),
+                            String.format("%.2f", status.spent),
+                            Double.isInfinite(utilization) ? "—" : String.format("%.0f%%", utilization * 100)});
+                });
+    }
+
+    private JPanel createDrillDownPanel(JTextArea summaryText) {
+        JPanel drillPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        summaryYearComboBox = new JComboBox<>(new String[]{"Все годы"});
+        summaryMonthComboBox = new JComboBox<>(new String[]{"Все месяцы", "01", "02", "03", "04", "05", "06", "07", "08", "09", "10", "11", "12"});
+        summaryCategoryComboBox = new JComboBox<>(new String[]{"Все категории"});
+
+        JButton drillDownButton = new JButton("Детализировать");
+        drillDownButton.addActionListener(e -> updateDrillDownText(summaryText));
+
+        drillPanel.add(new JLabel("Год:"));
+        drillPanel.add(summaryYearComboBox);
+        drillPanel.add(new JLabel("Месяц:"));
+        drillPanel.add(summaryMonthComboBox);
+        drillPanel.add(new JLabel("Категория:"));
+        drillPanel.add(summaryCategoryComboBox);
+        drillPanel.add(drillDownButton);
+        return drillPanel;
+    }
+
+    private JPanel createForecastControlsPanel(JTextArea forecastText) {
+        JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        forecastHorizonComboBox = new JComboBox<>(FORECAST_HORIZONS);
+        forecastHorizonComboBox.addActionListener(e -> generateForecast(forecastText, getForecastHorizon()));
+
+        forecastMonthField = createPlaceholderTextField("ГГГГ-ММ");
+        forecastMonthField.setColumns(8);
+        JButton balanceAtButton = new JButton("Баланс на месяц");
+        balanceAtButton.addActionListener(e -> showProjectedBalanceAt());
+
+        stochasticForecastCheckBox = new JCheckBox("Монте-Карло (P10/P50/P90)");
+        stochasticForecastCheckBox.addActionListener(e -> generateForecast(forecastText, getForecastHorizon()));
+
+        controlsPanel.add(new JLabel("Горизонт (мес.):"));
+        controlsPanel.add(forecastHorizonComboBox);
+        controlsPanel.add(new JLabel("Месяц:"));
+        controlsPanel.add(forecastMonthField);
+        controlsPanel.add(balanceAtButton);
+        controlsPanel.add(stochasticForecastCheckBox);
+        return controlsPanel;
+    }
+
+    private int getForecastHorizon() {
+        Integer horizon = (Integer) forecastHorizonComboBox.getSelectedItem();
+        return horizon != null ? horizon : 6;
     }
 
-    private void setupGoalsTab() {
+    private JComponent setupGoalsTab() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
-        tabbedPane.addTab("Финансовые цели", panel);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
@@ -558,7 +1039,8 @@ public class BudgetApp extends JFrame {
         inputGbc.gridx = 1; inputGbc.weightx = 1; goalNameField = createPlaceholderTextField("Название цели"); inputPanel.add(goalNameField, inputGbc);
 
         inputGbc.gridx = 0; inputGbc.gridy = 1; inputPanel.add(new JLabel("Целевая сумма:"), inputGbc);
-        inputGbc.gridx = 1; inputGbc.weightx = 1; goalTargetAmountField = createPlaceholderTextField("Целевая сумма"); inputPanel.add(goalTargetAmountField, inputGbc);
+        inputGbc.gridx = 1; inputGbc.weightx = 1; goalTargetAmountField = createPlaceholderTextField("Целевая сумма");
+        goalCurrencyComboBox = createCurrencyComboBox(); inputPanel.add(withCurrency(goalTargetAmountField, goalCurrencyComboBox), inputGbc);
 
         inputGbc.gridx = 0; inputGbc.gridy = 2; inputPanel.add(new JLabel("Текущая сумма:"), inputGbc);
         inputGbc.gridx = 1; inputGbc.weightx = 1; goalCurrentAmountField = createPlaceholderTextField("Текущая сумма"); inputPanel.add(goalCurrentAmountField, inputGbc);
@@ -586,30 +1068,33 @@ public class BudgetApp extends JFrame {
         inputGbc.gridx = 0; inputGbc.gridy = 4; inputGbc.gridwidth = 2; inputPanel.add(buttonPanel, inputGbc);
 
 
-        String[] columnNames = {"Название", "Цель", "Текущая", "Прогресс", "Осталось", "Крайний срок"};
-        goalsTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        goalsTableModel = new GoalsTableModel(goals, goalProjection, fxRates);
         goalsTable = new JTable(goalsTableModel);
-        goalsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        goalsTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        goalsTable.setRowSorter(new TableRowSorter<>(goalsTableModel));
+        GoalsTableRenderer goalsRenderer = new GoalsTableRenderer();
+        for (int i = 0; i < goalsTable.getColumnCount(); i++) {
+            goalsTable.getColumnModel().getColumn(i).setCellRenderer(goalsRenderer);
+        }
         goalsTable.getSelectionModel().addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting() && goalsTable.getSelectedRow() != -1) {
-                loadGoalForEdit(goalsTable.getSelectedRow());
+            int selectedGoal = getSelectedGoalIndex();
+            if (!e.getValueIsAdjusting() && selectedGoal != -1) {
+                loadGoalForEdit(selectedGoal);
             }
         });
 
         JScrollPane scrollPane = new JScrollPane(goalsTable);
         gbc.gridx = 0; gbc.gridy = 1; gbc.weighty = 0.7;
         panel.add(scrollPane, gbc);
+
+        viewGraph.register("goals", this::updateGoalsDisplay,
+                ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        return panel;
     }
 
-    private void setupCategoryManagementTab() {
+    private JComponent setupCategoryManagementTab() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
-        tabbedPane.addTab("Управление категориями", panel);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(5, 5, 5, 5);
@@ -619,13 +1104,13 @@ public class BudgetApp extends JFrame {
         gbc.gridx = 0; gbc.gridy = 0; gbc.weightx = 1;
         panel.add(addCategoryPanel, gbc);
 
-        JTextField newCategoryField = createPlaceholderTextField("Название новой категории");
+        JTextField newCategoryField = createPlaceholderTextField("Название, для подкатегории: жилье/аренда");
         JButton addCategoryButton = new JButton("Добавить категорию");
         addCategoryButton.addActionListener(e -> {
-            String newCat = newCategoryField.getText().trim();
+            String newCat = CategoryTree.normalize(newCategoryField.getText());
             if (!newCat.isEmpty() && !categories.contains(newCat.toLowerCase())) {
-                categories.add(newCat.toLowerCase());
-                updateCategoriesComboBoxes();
+                categories.addAll(CategoryTree.withAncestors(newCat.toLowerCase()));
+                viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
                 newCategoryField.setText("");
                 updateStatus("Категория '" + newCat + "' успешно добавлена.");
                 saveData();
@@ -646,7 +1131,7 @@ public class BudgetApp extends JFrame {
         gbc.gridx = 0; gbc.gridy = 1; gbc.weightx = 1; gbc.weighty = 1;
         panel.add(viewDeleteCategoryPanel, gbc);
 
-        DefaultListModel<String> categoryListModel = new DefaultListModel<>();
+        categoryListModel = new DefaultListModel<>();
         JList<String> categoryJList = new JList<>(categoryListModel);
         JScrollPane categoryScrollPane = new JScrollPane(categoryJList);
         JButton deleteSelectedCategoryButton = new JButton("Удалить выбранную категорию");
@@ -659,7 +1144,7 @@ public class BudgetApp extends JFrame {
             if (selectedCat != null) {
                 if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите удалить категорию '" + selectedCat + "'?\nЭто не повлияет на уже существующие записи, но категория больше не будет доступна для выбора.", "Подтвердить удаление", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
                     categories.remove(selectedCat.toLowerCase());
-                    updateCategoriesComboBoxes();
+                    viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
                     updateStatus("Категория '" + selectedCat + "' успешно удалена.");
                     saveData();
                 }
@@ -672,60 +1157,473 @@ public class BudgetApp extends JFrame {
         viewDeleteCategoryPanel.add(categoryScrollPane, BorderLayout.CENTER);
         viewDeleteCategoryPanel.add(deleteSelectedCategoryButton, BorderLayout.SOUTH);
 
-        updateCategoryListModel(categoryListModel);
+        JPanel rulesPanel = createTitledPanel("Правила автокатегоризации");
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 1; gbc.weighty = 1;
+        panel.add(rulesPanel, gbc);
+
+        categoryRulesArea = new JTextArea(CategoryRules.format(ledger.getCategoryRules()), 8, 40);
+        JButton saveRulesButton = new JButton("Сохранить правила");
+        saveRulesButton.addActionListener(e -> saveCategoryRules());
+        JButton recategorizeButton = new JButton("Перекатегоризировать расходы");
+        recategorizeButton.addActionListener(e -> recategorizeExpenses());
+        JPanel rulesButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        rulesButtons.add(saveRulesButton);
+        rulesButtons.add(recategorizeButton);
+
+        rulesPanel.setLayout(new BorderLayout());
+        rulesPanel.add(new JLabel("По правилу на строку: пятёрочка|магнит → еда"), BorderLayout.NORTH);
+        rulesPanel.add(new JScrollPane(categoryRulesArea), BorderLayout.CENTER);
+        rulesPanel.add(rulesButtons, BorderLayout.SOUTH);
+        return panel;
     }
 
-    private void updateCategoryListModel(DefaultListModel<String> model) {
-        model.clear();
-        categories.stream().sorted(String.CASE_INSENSITIVE_ORDER).forEach(model::addElement);
+    private CategoryRules categoryRules() {
+        if (compiledRules == null) compiledRules = new CategoryRules(ledger.getCategoryRules());
+        return compiledRules;
+    }
+
+    private String categorize(String description) {
+        String category = categoryRules().categorize(description);
+        return category != null ? category : CategoryRules.UNCATEGORIZED;
     }
 
+    private void suggestExpenseCategory() {
+        if (!expenseDescriptionField.isFocusOwner()) return;
+        String category = categoryRules().categorize(expenseDescriptionField.getText());
+        if (category != null) expenseCategoryComboBox.setSelectedItem(category);
+    }
 
-    private JTextField createPlaceholderTextField(String placeholder) {
-        JTextField textField = new JTextField();
-        applyPlaceholderStyle(textField, placeholder);
-        textField.addFocusListener(new java.awt.event.FocusAdapter() {
+    private void saveCategoryRules() {
+        try {
+            Map<String, String> rules = CategoryRules.parse(categoryRulesArea.getText());
+            ledger.getCategoryRules().clear();
+            ledger.getCategoryRules().putAll(rules);
+            compiledRules = null;
+            if (categories.addAll(rules.values())) viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
+            categoryRulesArea.setText(CategoryRules.format(rules));
+            saveData();
+            updateStatus("Сохранено правил автокатегоризации: " + rules.size() + ".");
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage(), true);
+        }
+    }
+
+    private void recategorizeExpenses() {
+        CategoryRules rules = categoryRules();
+        if (rules.isEmpty()) {
+            updateStatus("Правила автокатегоризации не заданы.", true);
+            return;
+        }
+        Expense[] expenseSnapshot = expenses.toArray(new Expense[0]);
+        RecurringExpense[] recurringSnapshot = recurringExpenses.toArray(new RecurringExpense[0]);
+        updateStatus("Перекатегоризация расходов...");
+
+        new SwingWorker<String[][], Void>() {
             @Override
-            public void focusGained(java.awt.event.FocusEvent e) {
-                if (textField.getText().equals(placeholder)) {
-                    textField.setText("");
-                    textField.setForeground(Color.BLACK);
-                }
+            protected String[][] doInBackground() {
+                return new String[][] { matchCategories(rules, expenseSnapshot), matchCategories(rules, recurringSnapshot) };
             }
 
             @Override
-            public void focusLost(java.awt.event.FocusEvent e) {
-                if (textField.getText().isEmpty()) {
-                    applyPlaceholderStyle(textField, placeholder);
+            protected void done() {
+                try {
+                    String[][] matched = get();
+                    LedgerBatch batch = new LedgerBatch();
+                    stageRecategorized(batch, expenseSnapshot, matched[0]);
+                    stageRecategorized(batch, recurringSnapshot, matched[1]);
+                    if (batch.isEmpty()) {
+                        updateStatus("Категории всех расходов уже соответствуют правилам.");
+                        return;
+                    }
+                    LedgerBatch.Result result = applyBatch(batch);
+                    updateStatus("Перекатегоризировано расходов: " + result.added.size() + ".");
+                } catch (IllegalArgumentException e) {
+                    updateStatus(e.getMessage(), true);
+                } catch (InterruptedException | ExecutionException e) {
+                    updateStatus("Ошибка при перекатегоризации расходов: " + e.getMessage(), true);
+                    e.printStackTrace();
                 }
             }
-        });
-        return textField;
+        }.execute();
     }
 
-    private void applyPlaceholderStyle(JTextField textField, String placeholder) {
-        textField.setText(placeholder);
-        textField.setForeground(Color.GRAY);
+    private static String[] matchCategories(CategoryRules rules, Expense[] records) {
+        String[] matched = new String[records.length];
+        IntStream.range(0, records.length).parallel().forEach(i -> matched[i] = rules.categorize(records[i].getDescription()));
+        return matched;
     }
 
-    private void toggleRecurringIncomeOptions() {
-        boolean selected = recurringIncomeCheckBox.isSelected();
-        incomeFrequencyComboBox.setEnabled(selected);
-        incomeRepetitionsField.setEnabled(selected);
-        if (!selected) {
-            incomeRepetitionsField.setText("");
-            applyPlaceholderStyle(incomeRepetitionsField, "Количество повторений");
+    private static void stageRecategorized(LedgerBatch batch, Expense[] records, String[] matched) {
+        for (int i = 0; i < records.length; i++) {
+            if (matched[i] != null && !matched[i].equals(records[i].getCategory())) {
+                batch.replace(records[i], editedCopy(records[i], null, null, matched[i], null));
+            }
         }
     }
 
-    private void toggleRecurringExpenseOptions() {
-        boolean selected = recurringExpenseCheckBox.isSelected();
-        expenseFrequencyComboBox.setEnabled(selected);
-        expenseRepetitionsField.setEnabled(selected);
-        if (!selected) {
-            expenseRepetitionsField.setText("");
-            applyPlaceholderStyle(expenseRepetitionsField, "Количество повторений");
-        }
+    private JComponent setupAlertsTab() {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        JPanel rulesPanel = createTitledPanel("Правила уведомлений");
+        rulesPanel.setLayout(new FlowLayout(FlowLayout.LEFT));
+        JTextField thresholdsField = new JTextField(formatThresholds(ledger.getAlertThresholds()), 12);
+        JTextField dailyLimitField = new JTextField(ledger.getDailyAlertLimit() > 0 ? String.format("%.2f", ledger.getDailyAlertLimit()) : "", 10);
+        JButton saveRulesButton = new JButton("Сохранить");
+        saveRulesButton.addActionListener(e -> saveAlertRules(thresholdsField.getText(), dailyLimitField.getText()));
+        rulesPanel.add(new JLabel("Пороги бюджета периода, %:"));
+        rulesPanel.add(thresholdsField);
+        rulesPanel.add(new JLabel("Расходы за день больше:"));
+        rulesPanel.add(dailyLimitField);
+        rulesPanel.add(saveRulesButton);
+        panel.add(rulesPanel, BorderLayout.NORTH);
+
+        JPanel logPanel = createTitledPanel("Журнал уведомлений");
+        logPanel.setLayout(new BorderLayout());
+        logPanel.add(new JScrollPane(new JList<>(alertLog)), BorderLayout.CENTER);
+        JButton clearLogButton = new JButton("Очистить журнал");
+        clearLogButton.addActionListener(e -> alertLog.clear());
+        logPanel.add(clearLogButton, BorderLayout.SOUTH);
+        panel.add(logPanel, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private static String formatThresholds(List<Double> thresholds) {
+        StringBuilder text = new StringBuilder();
+        for (double threshold : thresholds) {
+            if (text.length() > 0) text.append(", ");
+            text.append(threshold == Math.rint(threshold) ? String.valueOf((long) threshold) : String.valueOf(threshold));
+        }
+        return text.toString();
+    }
+
+    private void saveAlertRules(String thresholdsText, String dailyLimitText) {
+        try {
+            List<Double> thresholds = new ArrayList<>();
+            for (String part : thresholdsText.split("[,;\\s]+")) {
+                if (part.isEmpty()) continue;
+                double threshold = Double.parseDouble(part);
+                if (!(threshold > 0)) {
+                    updateStatus("Порог уведомления должен быть положительным числом.", true);
+                    return;
+                }
+                thresholds.add(threshold);
+            }
+            String limitText = dailyLimitText.trim().replace(",", ".");
+            double dailyLimit = limitText.isEmpty() ? 0 : Double.parseDouble(limitText);
+            if (dailyLimit < 0) {
+                updateStatus("Дневной порог не может быть отрицательным.", true);
+                return;
+            }
+            ledger.getAlertThresholds().clear();
+            ledger.getAlertThresholds().addAll(thresholds);
+            ledger.setDailyAlertLimit(dailyLimit);
+            budgetAlerts.configure(thresholds, dailyLimit);
+            saveData();
+            updateStatus("Правила уведомлений сохранены.");
+        } catch (NumberFormatException ex) {
+            updateStatus("Неверный формат порога. Используйте числа, например: 80, 100.", true);
+        }
+    }
+
+    private void showAlert(BudgetAlerts.Alert alert) {
+        alertLog.add(0, alert.toString());
+        if (alertLog.size() > ALERT_LOG_LIMIT) alertLog.removeRange(ALERT_LOG_LIMIT, alertLog.size() - 1);
+        if (!isShowing()) return;
+
+        if (alertToast == null) {
+            alertToast = new JWindow(this);
+            alertToast.setFocusableWindowState(false);
+            alertToastLabel = new JLabel();
+            alertToastLabel.setOpaque(true);
+            alertToastLabel.setBackground(new Color(255, 243, 205));
+            alertToastLabel.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(230, 160, 0)), new EmptyBorder(8, 12, 8, 12)));
+            alertToast.add(alertToastLabel);
+            alertToastTimer = new javax.swing.Timer(6000, e -> alertToast.setVisible(false));
+            alertToastTimer.setRepeats(false);
+        }
+        alertToastLabel.setText(alert.message);
+        alertToast.pack();
+        Point origin = getLocationOnScreen();
+        alertToast.setLocation(origin.x + getWidth() - alertToast.getWidth() - 20, origin.y + getHeight() - alertToast.getHeight() - 50);
+        alertToast.setVisible(true);
+        alertToastTimer.restart();
+    }
+
+    private JComponent setupSpendingCalendarTab() {
+        spendingHeatmap = new SpendingHeatmapPanel(dailySpending);
+        spendingHeatmap.setBorder(new EmptyBorder(15, 15, 15, 15));
+        viewGraph.register("heatmap", () -> spendingHeatmap.refresh(),
+                ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        return spendingHeatmap;
+    }
+
+    private JComponent setupScenariosTab() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.fill = GridBagConstraints.BOTH;
+
+        JPanel inputPanel = createTitledPanel("Создать сценарий \"что если\"");
+        gbc.gridx = 0; gbc.gridy = 0; gbc.weightx = 1; gbc.weighty = 0.3;
+        panel.add(inputPanel, gbc);
+
+        GridBagConstraints inputGbc = new GridBagConstraints();
+        inputGbc.insets = new Insets(2, 2, 2, 2);
+        inputGbc.fill = GridBagConstraints.HORIZONTAL;
+
+        inputGbc.gridx = 0; inputGbc.gridy = 0; inputPanel.add(new JLabel("Название сценария:"), inputGbc);
+        inputGbc.gridx = 1; inputGbc.weightx = 1; scenarioNameField = createPlaceholderTextField("Например: Аренда +15%"); inputPanel.add(scenarioNameField, inputGbc);
+
+        inputGbc.gridx = 2; inputGbc.weightx = 0; inputPanel.add(new JLabel("На основе:"), inputGbc);
+        inputGbc.gridx = 3; inputGbc.weightx = 1; scenarioBaseComboBox = new JComboBox<>(new String[]{BASE_SCENARIO_NAME}); inputPanel.add(scenarioBaseComboBox, inputGbc);
+
+        inputGbc.gridx = 0; inputGbc.gridy = 1; inputGbc.weightx = 0; inputPanel.add(new JLabel("Изменение:"), inputGbc);
+        inputGbc.gridx = 1; inputGbc.weightx = 1;
+        scenarioAdjustmentComboBox = new JComboBox<>(new String[]{
+                "Изменить повторяющиеся расходы категории (%)",
+                "Добавить повторяющийся расход",
+                "Добавить повторяющийся доход",
+                "Исключить повторяющуюся запись"});
+        inputPanel.add(scenarioAdjustmentComboBox, inputGbc);
+
+        inputGbc.gridx = 2; inputGbc.weightx = 0; inputPanel.add(new JLabel("Категория:"), inputGbc);
+        inputGbc.gridx = 3; inputGbc.weightx = 1; scenarioCategoryComboBox = new JComboBox<>(); inputPanel.add(scenarioCategoryComboBox, inputGbc);
+
+        inputGbc.gridx = 0; inputGbc.gridy = 2; inputGbc.weightx = 0; inputPanel.add(new JLabel("Процент/сумма:"), inputGbc);
+        inputGbc.gridx = 1; inputGbc.weightx = 1; scenarioValueField = createPlaceholderTextField("Например: 15 или 5000"); inputPanel.add(scenarioValueField, inputGbc);
+
+        inputGbc.gridx = 2; inputGbc.weightx = 0; inputPanel.add(new JLabel("Описание:"), inputGbc);
+        inputGbc.gridx = 3; inputGbc.weightx = 1; scenarioDescriptionField = createPlaceholderTextField("Описание записи"); inputPanel.add(scenarioDescriptionField, inputGbc);
+
+        inputGbc.gridx = 0; inputGbc.gridy = 3; inputGbc.weightx = 0; inputPanel.add(new JLabel("Повторений:"), inputGbc);
+        inputGbc.gridx = 1; inputGbc.weightx = 1; scenarioRepetitionsField = createPlaceholderTextField("Количество повторений"); inputPanel.add(scenarioRepetitionsField, inputGbc);
+
+        inputGbc.gridx = 2; inputGbc.weightx = 0; inputPanel.add(new JLabel("Горизонт (мес.):"), inputGbc);
+        inputGbc.gridx = 3; inputGbc.weightx = 1; scenarioHorizonComboBox = new JComboBox<>(FORECAST_HORIZONS); scenarioHorizonComboBox.setSelectedItem(60); inputPanel.add(scenarioHorizonComboBox, inputGbc);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton addScenarioButton = new JButton("Создать сценарий");
+        addScenarioButton.addActionListener(e -> addScenario());
+        buttonPanel.add(addScenarioButton);
+
+        JButton compareButton = new JButton("Сравнить сценарии");
+        compareButton.addActionListener(e -> compareScenarios());
+        buttonPanel.add(compareButton);
+
+        JButton deleteScenarioButton = new JButton("Удалить сценарий");
+        deleteScenarioButton.addActionListener(e -> deleteScenario());
+        deleteScenarioButton.setBackground(new Color(255, 82, 82));
+        deleteScenarioButton.setForeground(Color.WHITE);
+        deleteScenarioButton.setOpaque(true);
+        deleteScenarioButton.setBorderPainted(false);
+        buttonPanel.add(deleteScenarioButton);
+
+        inputGbc.gridx = 0; inputGbc.gridy = 4; inputGbc.gridwidth = 4; inputPanel.add(buttonPanel, inputGbc);
+
+        String[] columnNames = {"Сценарий", "Изменения", "Баланс в конце", "Мин. баланс", "Целей к сроку"};
+        scenariosTableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable scenariosTable = new JTable(scenariosTableModel);
+        scenariosTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        scenariosTable.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && scenariosTable.getSelectedRow() != -1) {
+                scenarioBaseComboBox.setSelectedItem(scenariosTableModel.getValueAt(scenariosTable.getSelectedRow(), 0));
+            }
+        });
+
+        gbc.gridx = 0; gbc.gridy = 1; gbc.weighty = 0.7;
+        panel.add(new JScrollPane(scenariosTable), gbc);
+
+        scenarios.put(BASE_SCENARIO_NAME, Scenario.base(BASE_SCENARIO_NAME));
+
+        viewGraph.register("scenarios", this::compareScenarios,
+                ViewGraph.Part.GOALS, ViewGraph.Part.INCOMES, ViewGraph.Part.EXPENSES, ViewGraph.Part.RECURRING);
+        return panel;
+    }
+
+    private void addScenario() {
+        try {
+            String name = scenarioNameField.getText().trim();
+            if (name.isEmpty() || name.equals("Например: Аренда +15%")) {
+                updateStatus("Пожалуйста, введите название сценария.", true);
+                return;
+            }
+            if (scenarios.containsKey(name)) {
+                updateStatus("Сценарий '" + name + "' уже существует.", true);
+                return;
+            }
+
+            Scenario parent = scenarios.get((String) scenarioBaseComboBox.getSelectedItem());
+            String description = scenarioDescriptionField.getText().trim();
+            if (description.equals("Описание записи")) description = "";
+            Scenario.Adjustment adjustment;
+
+            switch (scenarioAdjustmentComboBox.getSelectedIndex()) {
+                case 0: {
+                    String category = (String) scenarioCategoryComboBox.getSelectedItem();
+                    if (category == null) {
+                        updateStatus("Пожалуйста, выберите категорию.", true);
+                        return;
+                    }
+                    adjustment = Scenario.scaleCategory(category, Double.parseDouble(scenarioValueField.getText().replace(",", ".")));
+                    break;
+                }
+                case 1:
+                case 2: {
+                    double amount = Double.parseDouble(scenarioValueField.getText().replace(",", "."));
+                    int repetitions = Integer.parseInt(scenarioRepetitionsField.getText());
+                    if (amount <= 0 || repetitions <= 0 || description.isEmpty()) {
+                        updateStatus("Укажите положительную сумму, количество повторений и описание.", true);
+                        return;
+                    }
+                    LocalDate start = YearMonth.now().plusMonths(1).atDay(1);
+                    if (scenarioAdjustmentComboBox.getSelectedIndex() == 1) {
+                        String category = (String) scenarioCategoryComboBox.getSelectedItem();
+                        adjustment = Scenario.addRecurringExpense(new RecurringExpense(amount, description, category, start, RecurrenceRule.monthly(), repetitions));
+                    } else {
+                        adjustment = Scenario.addRecurringIncome(new RecurringIncome(amount, description, start, RecurrenceRule.monthly(), repetitions));
+                    }
+                    break;
+                }
+                default: {
+                    if (description.isEmpty()) {
+                        updateStatus("Укажите описание повторяющейся записи для исключения.", true);
+                        return;
+                    }
+                    adjustment = Scenario.excludeRecurring(description);
+                }
+            }
+
+            scenarios.put(name, parent.derive(name, adjustment));
+            scenarioBaseComboBox.addItem(name);
+            scenarioNameField.setText(""); applyPlaceholderStyle(scenarioNameField, "Например: Аренда +15%");
+            compareScenarios();
+            updateStatus("Сценарий '" + name + "' создан.");
+        } catch (NumberFormatException ex) {
+            updateStatus("Неверный формат суммы, процента или повторений. Используйте числа.", true);
+        }
+    }
+
+    private void deleteScenario() {
+        String name = (String) scenarioBaseComboBox.getSelectedItem();
+        if (name == null || BASE_SCENARIO_NAME.equals(name)) {
+            updateStatus("Выберите сценарий для удаления (базовый сценарий удалить нельзя).", true);
+            return;
+        }
+        scenarios.remove(name);
+        scenarioBaseComboBox.removeItem(name);
+        compareScenarios();
+        updateStatus("Сценарий '" + name + "' удален.");
+    }
+
+    private void compareScenarios() {
+        Integer horizon = (Integer) scenarioHorizonComboBox.getSelectedItem();
+        int numMonths = horizon != null ? horizon : 60;
+        LedgerSnapshot snapshot = takeSnapshot();
+        List<Scenario> compared = new ArrayList<>(scenarios.values());
+        viewRecomputer.submit("scenarios", () -> buildScenarioRows(snapshot, compared, numMonths), rows -> {
+            scenariosTableModel.setRowCount(0);
+            for (Object[] row : rows) scenariosTableModel.addRow(row);
+        });
+    }
+
+    private List<Object[]> buildScenarioRows(LedgerSnapshot snapshot, List<Scenario> compared, int numMonths) {
+        double startingBalance = snapshot.getCurrentBalance();
+        YearMonth firstMonth = YearMonth.now().plusMonths(1);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Scenario scenario : compared) {
+            ViewRecomputer.checkCancelled();
+            Scenario.Evaluation evaluation = scenario.evaluate(snapshot.getRecurringIncomes(), snapshot.getRecurringExpenses(),
+                    snapshot.getGoals(), snapshot.getRates(), startingBalance, firstMonth, numMonths);
+            rows.add(new Object[]{
+                    scenario.getName(),
+                    scenario.describe(),
+                    String.format("%.2f", evaluation.getEndBalance()),
+                    String.format("%.2f", evaluation.getMinBalance()),
+                    evaluation.getReachableGoals() + " из " + evaluation.getOpenGoals()
+            });
+        }
+        return rows;
+    }
+
+    private void updateCategoryListModel(DefaultListModel<String> model) {
+        model.clear();
+        categories.stream().sorted(String.CASE_INSENSITIVE_ORDER).forEach(model::addElement);
+    }
+
+
+    private JTextField createPlaceholderTextField(String placeholder) {
+        JTextField textField = new JTextField();
+        applyPlaceholderStyle(textField, placeholder);
+        textField.addFocusListener(new java.awt.event.FocusAdapter() {
+            @Override
+            public void focusGained(java.awt.event.FocusEvent e) {
+                if (textField.getText().equals(placeholder)) {
+                    textField.setText("");
+                    textField.setForeground(Color.BLACK);
+                }
+            }
+
+            @Override
+            public void focusLost(java.awt.event.FocusEvent e) {
+                if (textField.getText().isEmpty()) {
+                    applyPlaceholderStyle(textField, placeholder);
+                }
+            }
+        });
+        return textField;
+    }
+
+    private void applyPlaceholderStyle(JTextField textField, String placeholder) {
+        textField.setText(placeholder);
+        textField.setForeground(Color.GRAY);
+    }
+
+    private void toggleRecurringIncomeOptions() {
+        boolean selected = recurringIncomeCheckBox.isSelected();
+        incomeFrequencyComboBox.setEnabled(selected);
+        incomeRepetitionsField.setEnabled(selected);
+        incomeUntilDatePicker.setEnabled(selected);
+        if (!selected) {
+            incomeRepetitionsField.setText("");
+            applyPlaceholderStyle(incomeRepetitionsField, "Количество повторений");
+            showFrequency(incomeFrequencyComboBox, RecurrenceRule.monthly());
+            incomeUntilDatePicker.setDate(null);
+        }
+    }
+
+    private void toggleRecurringExpenseOptions() {
+        boolean selected = recurringExpenseCheckBox.isSelected();
+        expenseFrequencyComboBox.setEnabled(selected);
+        expenseRepetitionsField.setEnabled(selected);
+        expenseUntilDatePicker.setEnabled(selected);
+        if (!selected) {
+            expenseRepetitionsField.setText("");
+            applyPlaceholderStyle(expenseRepetitionsField, "Количество повторений");
+            showFrequency(expenseFrequencyComboBox, RecurrenceRule.monthly());
+            expenseUntilDatePicker.setDate(null);
+        }
+    }
+
+    private static void showFrequency(JComboBox<String> comboBox, RecurrenceRule rule) {
+        String label = rule.getLabel();
+        while (comboBox.getItemCount() > RecurrenceRule.LABELS.length) comboBox.removeItemAt(RecurrenceRule.LABELS.length);
+        if (!Arrays.asList(RecurrenceRule.LABELS).contains(label)) comboBox.addItem(label);
+        comboBox.setSelectedItem(label);
+    }
+
+    private static RecurrenceRule chosenRule(String label, RecurrenceRule original, LocalDate start, LocalDate until) {
+        RecurrenceRule rule = original != null && label.equals(original.getLabel()) ? original.startingOn(start) : RecurrenceRule.parse(label, start);
+        return rule.withUntil(until);
     }
 
     private void updateStatus(String message) {
@@ -746,6 +1644,7 @@ public class BudgetApp extends JFrame {
         incomeDatePicker.setDate(LocalDate.now());
         recurringIncomeCheckBox.setSelected(false); toggleRecurringIncomeOptions();
         incomeRepetitionsField.setText(""); applyPlaceholderStyle(incomeRepetitionsField, "Количество повторений");
+        incomeCurrencyComboBox.setSelectedIndex(0);
 
         expenseAmountField.setText(""); applyPlaceholderStyle(expenseAmountField, "Введите сумму");
         expenseDescriptionField.setText(""); applyPlaceholderStyle(expenseDescriptionField, "Например: Продукты, такси");
@@ -753,9 +1652,12 @@ public class BudgetApp extends JFrame {
         expenseDatePicker.setDate(LocalDate.now());
         recurringExpenseCheckBox.setSelected(false); toggleRecurringExpenseOptions();
         expenseRepetitionsField.setText(""); applyPlaceholderStyle(expenseRepetitionsField, "Количество повторений");
+        expenseCurrencyComboBox.setSelectedIndex(0);
 
         budgetCategoryComboBox.setSelectedIndex(0);
         budgetAmountField.setText(""); applyPlaceholderStyle(budgetAmountField, "Например: 500.00");
+        budgetPeriodComboBox.setSelectedIndex(0);
+        budgetRolloverCheckBox.setSelected(false);
 
         editIndexField.setText(""); applyPlaceholderStyle(editIndexField, "Введите индекс");
         editTypeGroup.clearSelection();
@@ -764,46 +1666,13 @@ public class BudgetApp extends JFrame {
         editingRecordInfo = null;
         saveEditButton.setEnabled(false);
 
-        goalNameField.setText(""); applyPlaceholderStyle(goalNameField, "Название цели");
-        goalTargetAmountField.setText(""); applyPlaceholderStyle(goalTargetAmountField, "Целевая сумма");
-        goalCurrentAmountField.setText(""); applyPlaceholderStyle(goalCurrentAmountField, "Текущая сумма");
-        goalDueDateField.setDate(null);
-        goalsTable.clearSelection();
-
-        updateGoalsDisplay();
-    }
-
-    private void refreshUI() {
-        generateReport(null, null, null, null);
-        plotCharts();
-        updateGoalsDisplay();
-        Component component = tabbedPane.getComponentAt(4);
-        if (component instanceof JPanel) {
-            JPanel categoryPanel = (JPanel) component;
-            for (Component subComponent : categoryPanel.getComponents()) {
-                if (subComponent instanceof JPanel) {
-                    JPanel titledSubPanel = (JPanel) subComponent;
-                    if (titledSubPanel.getBorder() instanceof javax.swing.border.TitledBorder) {
-                        javax.swing.border.TitledBorder border = (javax.swing.border.TitledBorder) titledSubPanel.getBorder();
-                        if ("Просмотр и удаление категорий".equals(border.getTitle())) {
-                            for (Component scrollComp : titledSubPanel.getComponents()) {
-                                if (scrollComp instanceof JScrollPane) {
-                                    JScrollPane scrollPane = (JScrollPane) scrollComp;
-                                    Component view = scrollPane.getViewport().getView();
-                                    if (view instanceof JList) {
-                                        JList<?> jList = (JList<?>) view;
-                                        if (jList.getModel() instanceof DefaultListModel) {
-                                            updateCategoryListModel((DefaultListModel<String>) jList.getModel());
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                    }
-                }
-            }
+        if (goalsTable != null) {
+            goalNameField.setText(""); applyPlaceholderStyle(goalNameField, "Название цели");
+            goalTargetAmountField.setText(""); applyPlaceholderStyle(goalTargetAmountField, "Целевая сумма");
+            goalCurrentAmountField.setText(""); applyPlaceholderStyle(goalCurrentAmountField, "Текущая сумма");
+            goalDueDateField.setDate(null);
+            goalCurrencyComboBox.setSelectedIndex(0);
+            goalsTable.clearSelection();
         }
     }
 
@@ -827,20 +1696,26 @@ public class BudgetApp extends JFrame {
             }
 
             if (recurringIncomeCheckBox.isSelected()) {
-                String frequency = (String) incomeFrequencyComboBox.getSelectedItem();
-                int repetitions = Integer.parseInt(incomeRepetitionsField.getText());
-                if (repetitions <= 0) {
-                    updateStatus("Для повторяющихся доходов укажите корректное количество повторений (целое положительное число).", true);
+                LocalDate until = incomeUntilDatePicker.getDate();
+                int repetitions = parseRepetitions(incomeRepetitionsField);
+                if (repetitions < 0 || (repetitions == 0 && until == null)) {
+                    updateStatus("Для повторяющихся доходов укажите количество повторений (целое положительное число) или дату окончания.", true);
                     return;
                 }
-                recurringIncomes.add(new RecurringIncome(amount, description, date, frequency, repetitions));
+                RecurrenceRule rule = chosenRule((String) incomeFrequencyComboBox.getSelectedItem(), null, date, until);
+                RecurringIncome rInc = new RecurringIncome(amount, description, date, rule, repetitions);
+                rInc.setCurrency(selectedCurrency(incomeCurrencyComboBox));
+                recurringIncomes.add(rInc);
+                ledgerIndexes.recurringIncomeAdded(rInc);
                 updateStatus("Повторяющийся доход успешно добавлен.");
             } else {
-                incomes.add(new Income(amount, description, date));
+                Income inc = new Income(amount, description, date);
+                inc.setCurrency(selectedCurrency(incomeCurrencyComboBox));
+                incomes.add(inc);
+                ledgerIndexes.incomeAdded(inc);
                 updateStatus("Доход успешно добавлен.");
             }
             saveData();
-            refreshUI();
             clearEntries();
         } catch (NumberFormatException ex) {
             updateStatus("Неверный формат суммы или повторений. Используйте числа.", true);
@@ -875,20 +1750,26 @@ public class BudgetApp extends JFrame {
             }
 
             if (recurringExpenseCheckBox.isSelected()) {
-                String frequency = (String) expenseFrequencyComboBox.getSelectedItem();
-                int repetitions = Integer.parseInt(expenseRepetitionsField.getText());
-                if (repetitions <= 0) {
-                    updateStatus("Для повторяющихся расходов укажите корректное количество повторений (целое положительное число).", true);
+                LocalDate until = expenseUntilDatePicker.getDate();
+                int repetitions = parseRepetitions(expenseRepetitionsField);
+                if (repetitions < 0 || (repetitions == 0 && until == null)) {
+                    updateStatus("Для повторяющихся расходов укажите количество повторений (целое положительное число) или дату окончания.", true);
                     return;
                 }
-                recurringExpenses.add(new RecurringExpense(amount, description, category, date, frequency, repetitions));
+                RecurrenceRule rule = chosenRule((String) expenseFrequencyComboBox.getSelectedItem(), null, date, until);
+                RecurringExpense rExp = new RecurringExpense(amount, description, category, date, rule, repetitions);
+                rExp.setCurrency(selectedCurrency(expenseCurrencyComboBox));
+                recurringExpenses.add(rExp);
+                ledgerIndexes.recurringExpenseAdded(rExp);
                 updateStatus("Повторяющийся расход успешно добавлен.");
             } else {
-                expenses.add(new Expense(amount, description, category, date));
+                Expense exp = new Expense(amount, description, category, date);
+                exp.setCurrency(selectedCurrency(expenseCurrencyComboBox));
+                expenses.add(exp);
+                ledgerIndexes.expenseAdded(exp);
                 updateStatus("Расход успешно добавлен.");
             }
             saveData();
-            refreshUI();
             clearEntries();
         } catch (NumberFormatException ex) {
             updateStatus("Неверный формат суммы или повторений. Используйте числа.", true);
@@ -912,11 +1793,15 @@ public class BudgetApp extends JFrame {
                 return;
             }
 
+            BudgetPeriod.Unit unit = BudgetPeriod.Unit.fromLabel((String) budgetPeriodComboBox.getSelectedItem());
             budget.put(category, amount);
+            if (unit == null) ledger.getBudgetPeriods().remove(category);
+            else ledger.getBudgetPeriods().put(category, new BudgetPeriod(unit, budgetRolloverCheckBox.isSelected()));
             saveData();
-            refreshUI();
+            viewGraph.invalidate(ViewGraph.Part.BUDGET);
             clearEntries();
-            updateStatus("Бюджет для категории '" + category + "' установлен на " + String.format("%.2f", amount) + ".");
+            updateStatus("Бюджет для категории '" + category + "' установлен на " + String.format("%.2f", amount)
+                    + (unit == null ? "" : " (" + unit.getLabel() + ")") + ".");
         } catch (NumberFormatException ex) {
             updateStatus("Неверный формат суммы бюджета. Используйте числа.", true);
         } catch (Exception ex) {
@@ -958,30 +1843,17 @@ public class BudgetApp extends JFrame {
 
             clearEntries();
 
-            if (record instanceof Income) {
-                Income inc = (Income) record;
-                incomeAmountField.setText(String.valueOf(inc.getAmount()));
-                incomeDescriptionField.setText(inc.getDescription());
-                incomeDatePicker.setDate(inc.getDate());
-                applyDefaultStyle(incomeAmountField);
-                applyDefaultStyle(incomeDescriptionField);
-            } else if (record instanceof Expense) {
-                Expense exp = (Expense) record;
-                expenseAmountField.setText(String.valueOf(exp.getAmount()));
-                expenseDescriptionField.setText(exp.getDescription());
-                expenseCategoryComboBox.setSelectedItem(exp.getCategory());
-                expenseDatePicker.setDate(exp.getDate());
-                applyDefaultStyle(expenseAmountField);
-                applyDefaultStyle(expenseDescriptionField);
-            } else if (record instanceof RecurringIncome) {
+            if (record instanceof RecurringIncome) {
                 RecurringIncome rInc = (RecurringIncome) record;
                 recurringIncomeCheckBox.setSelected(true);
                 toggleRecurringIncomeOptions();
                 incomeAmountField.setText(String.valueOf(rInc.getAmount()));
                 incomeDescriptionField.setText(rInc.getDescription());
                 incomeDatePicker.setDate(rInc.getDate());
-                incomeFrequencyComboBox.setSelectedItem(rInc.getFrequency());
+                showFrequency(incomeFrequencyComboBox, rInc.getRule());
+                incomeUntilDatePicker.setDate(rInc.getRule().getUntil());
                 incomeRepetitionsField.setText(String.valueOf(rInc.getRepetitions()));
+                selectCurrency(incomeCurrencyComboBox, rInc.getCurrency());
                 applyDefaultStyle(incomeAmountField);
                 applyDefaultStyle(incomeDescriptionField);
                 applyDefaultStyle(incomeRepetitionsField);
@@ -993,11 +1865,30 @@ public class BudgetApp extends JFrame {
                 expenseDescriptionField.setText(rExp.getDescription());
                 expenseCategoryComboBox.setSelectedItem(rExp.getCategory());
                 expenseDatePicker.setDate(rExp.getDate());
-                expenseFrequencyComboBox.setSelectedItem(rExp.getFrequency());
+                showFrequency(expenseFrequencyComboBox, rExp.getRule());
+                expenseUntilDatePicker.setDate(rExp.getRule().getUntil());
                 expenseRepetitionsField.setText(String.valueOf(rExp.getRepetitions()));
+                selectCurrency(expenseCurrencyComboBox, rExp.getCurrency());
                 applyDefaultStyle(expenseAmountField);
                 applyDefaultStyle(expenseDescriptionField);
                 applyDefaultStyle(expenseRepetitionsField);
+            } else if (record instanceof Income) {
+                Income inc = (Income) record;
+                incomeAmountField.setText(String.valueOf(inc.getAmount()));
+                incomeDescriptionField.setText(inc.getDescription());
+                incomeDatePicker.setDate(inc.getDate());
+                selectCurrency(incomeCurrencyComboBox, inc.getCurrency());
+                applyDefaultStyle(incomeAmountField);
+                applyDefaultStyle(incomeDescriptionField);
+            } else if (record instanceof Expense) {
+                Expense exp = (Expense) record;
+                expenseAmountField.setText(String.valueOf(exp.getAmount()));
+                expenseDescriptionField.setText(exp.getDescription());
+                expenseCategoryComboBox.setSelectedItem(exp.getCategory());
+                expenseDatePicker.setDate(exp.getDate());
+                selectCurrency(expenseCurrencyComboBox, exp.getCurrency());
+                applyDefaultStyle(expenseAmountField);
+                applyDefaultStyle(expenseDescriptionField);
             }
 
             saveEditButton.setEnabled(true);
@@ -1010,6 +1901,12 @@ public class BudgetApp extends JFrame {
         }
     }
 
+    private int parseRepetitions(JTextField field) {
+        String text = field.getText().trim();
+        if (text.isEmpty() || text.equals("Количество повторений")) return 0;
+        return Integer.parseInt(text);
+    }
+
     private void applyDefaultStyle(JTextField field) {
         field.setForeground(Color.BLACK);
     }
@@ -1031,6 +1928,7 @@ public class BudgetApp extends JFrame {
 
         String type = (String) editingRecordInfo.get("type");
         int index = (int) editingRecordInfo.get("index");
+        LedgerBatch batch = new LedgerBatch();
 
         try {
             if (type.equals("income")) {
@@ -1042,9 +1940,9 @@ public class BudgetApp extends JFrame {
                     updateStatus("Заполните все поля дохода для сохранения изменений.", true);
                     return;
                 }
-                incomes.get(index).setAmount(newAmount);
-                incomes.get(index).setDescription(newDescription);
-                incomes.get(index).setDate(newDate);
+                Income updated = new Income(newAmount, newDescription, newDate);
+                updated.setCurrency(selectedCurrency(incomeCurrencyComboBox));
+                batch.replace(incomes.get(index), updated);
             } else if (type.equals("expense")) {
                 double newAmount = Double.parseDouble(expenseAmountField.getText().replace(",", "."));
                 String newDescription = expenseDescriptionField.getText();
@@ -1055,51 +1953,50 @@ public class BudgetApp extends JFrame {
                     updateStatus("Заполните все поля расхода для сохранения изменений.", true);
                     return;
                 }
-                expenses.get(index).setAmount(newAmount);
-                expenses.get(index).setDescription(newDescription);
-                expenses.get(index).setCategory(newCategory);
-                expenses.get(index).setDate(newDate);
+                Expense updated = new Expense(newAmount, newDescription, newCategory, newDate);
+                updated.setCurrency(selectedCurrency(expenseCurrencyComboBox));
+                batch.replace(expenses.get(index), updated);
             } else if (type.equals("recurring_income")) {
                 double newAmount = Double.parseDouble(incomeAmountField.getText().replace(",", "."));
                 String newDescription = incomeDescriptionField.getText();
                 LocalDate newStartDate = incomeDatePicker.getDate();
                 String newFrequency = (String) incomeFrequencyComboBox.getSelectedItem();
-                int newRepetitions = Integer.parseInt(incomeRepetitionsField.getText());
+                LocalDate newUntil = incomeUntilDatePicker.getDate();
+                int newRepetitions = parseRepetitions(incomeRepetitionsField);
 
-                if (newAmount <= 0 || newDescription.isEmpty() || newStartDate == null || newFrequency == null || newRepetitions <= 0) {
+                if (newAmount <= 0 || newDescription.isEmpty() || newStartDate == null || newFrequency == null || newRepetitions < 0 || (newRepetitions == 0 && newUntil == null)) {
                     updateStatus("Заполните все поля повторяющегося дохода для сохранения изменений.", true);
                     return;
                 }
-                recurringIncomes.get(index).setAmount(newAmount);
-                recurringIncomes.get(index).setDescription(newDescription);
-                recurringIncomes.get(index).setDate(newStartDate);
-                recurringIncomes.get(index).setFrequency(newFrequency);
-                recurringIncomes.get(index).setRepetitions(newRepetitions);
+                RecurringIncome updated = new RecurringIncome(newAmount, newDescription, newStartDate,
+                        chosenRule(newFrequency, recurringIncomes.get(index).getRule(), newStartDate, newUntil), newRepetitions);
+                updated.setCurrency(selectedCurrency(incomeCurrencyComboBox));
+                batch.replace(recurringIncomes.get(index), updated);
             } else if (type.equals("recurring_expense")) {
                 double newAmount = Double.parseDouble(expenseAmountField.getText().replace(",", "."));
                 String newDescription = expenseDescriptionField.getText();
                 String newCategory = (String) expenseCategoryComboBox.getSelectedItem();
                 LocalDate newStartDate = expenseDatePicker.getDate();
                 String newFrequency = (String) expenseFrequencyComboBox.getSelectedItem();
-                int newRepetitions = Integer.parseInt(expenseRepetitionsField.getText());
+                LocalDate newUntil = expenseUntilDatePicker.getDate();
+                int newRepetitions = parseRepetitions(expenseRepetitionsField);
 
-                if (newAmount <= 0 || newDescription.isEmpty() || newCategory == null || newCategory.isEmpty() || newStartDate == null || newFrequency == null || newRepetitions <= 0) {
+                if (newAmount <= 0 || newDescription.isEmpty() || newCategory == null || newCategory.isEmpty() || newStartDate == null || newFrequency == null || newRepetitions < 0 || (newRepetitions == 0 && newUntil == null)) {
                     updateStatus("Заполните все поля повторяющегося расхода для сохранения изменений.", true);
                     return;
                 }
-                recurringExpenses.get(index).setAmount(newAmount);
-                recurringExpenses.get(index).setDescription(newDescription);
-                recurringExpenses.get(index).setCategory(newCategory);
-                recurringExpenses.get(index).setDate(newStartDate);
-                recurringExpenses.get(index).setFrequency(newFrequency);
-                recurringExpenses.get(index).setRepetitions(newRepetitions);
+                RecurringExpense updated = new RecurringExpense(newAmount, newDescription, newCategory, newStartDate,
+                        chosenRule(newFrequency, recurringExpenses.get(index).getRule(), newStartDate, newUntil), newRepetitions);
+                updated.setCurrency(selectedCurrency(expenseCurrencyComboBox));
+                batch.replace(recurringExpenses.get(index), updated);
             }
-            saveData();
-            refreshUI();
+            applyBatch(batch);
             clearEntries();
             updateStatus("Запись типа '" + type + "' по индексу " + (index + 1) + " успешно отредактирована.");
         } catch (NumberFormatException ex) {
             updateStatus("Неверный формат суммы. Используйте числа.", true);
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage(), true);
         } catch (Exception ex) {
             updateStatus("Произошла ошибка при сохранении отредактированной записи: " + ex.getMessage(), true);
             ex.printStackTrace();
@@ -1107,83 +2004,301 @@ public class BudgetApp extends JFrame {
     }
 
     private void deleteEntry() {
+        String type = getSelectedEditType();
+        List<?> records = recordsOfType(type);
+        String listName = listNameOfType(type);
+        List<Integer> indices;
         try {
-            int index = Integer.parseInt(editIndexField.getText()) - 1;
-            String type = getSelectedEditType();
+            indices = parseIndexSelection(editIndexField.getText(), records.size());
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage() + " (" + listName + ")", true);
+            return;
+        }
 
-            String listName = "";
-            boolean deleted = false;
+        String question = indices.size() == 1
+                ? "Вы уверены, что хотите удалить запись №" + (indices.get(0) + 1) + " из " + listName + "?"
+                : "Вы уверены, что хотите удалить " + indices.size() + " записей из " + listName + "?";
+        if (JOptionPane.showConfirmDialog(this, question, "Подтверждение удаления", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            updateStatus("Удаление отменено.");
+            return;
+        }
 
-            if (type.equals("income")) {
-                listName = "доходов";
-                if (index >= 0 && index < incomes.size()) {
-                    if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите удалить запись №" + (index + 1) + " из " + listName + "?", "Подтверждение удаления", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                        incomes.remove(index);
-                        deleted = true;
-                    }
-                }
-            } else if (type.equals("expense")) {
-                listName = "расходов";
-                if (index >= 0 && index < expenses.size()) {
-                    if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите удалить запись №" + (index + 1) + " из " + listName + "?", "Подтверждение удаления", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                        expenses.remove(index);
-                        deleted = true;
-                    }
-                }
-            } else if (type.equals("recurring_income")) {
-                listName = "повторяющихся доходов";
-                if (index >= 0 && index < recurringIncomes.size()) {
-                    if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите удалить запись №" + (index + 1) + " из " + listName + "?", "Подтверждение удаления", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                        recurringIncomes.remove(index);
-                        deleted = true;
-                    }
-                }
-            } else if (type.equals("recurring_expense")) {
-                listName = "повторяющихся расходов";
-                if (index >= 0 && index < recurringExpenses.size()) {
-                    if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите удалить запись №" + (index + 1) + " из " + listName + "?", "Подтверждение удаления", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                        recurringExpenses.remove(index);
-                        deleted = true;
-                    }
-                }
+        LedgerBatch batch = new LedgerBatch();
+        for (int index : indices) batch.remove(records.get(index));
+        try {
+            LedgerBatch.Result result = applyBatch(batch);
+            clearEntries();
+            updateStatus("Удалено записей из " + listName + ": " + result.removed.size() + ".");
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage(), true);
+        } catch (Exception ex) {
+            updateStatus("Произошла ошибка при удалении записей: " + ex.getMessage(), true);
+            ex.printStackTrace();
+        }
+    }
+
+    private void bulkEditEntries() {
+        String type = getSelectedEditType();
+        List<?> records = recordsOfType(type);
+        String listName = listNameOfType(type);
+        List<Integer> indices;
+        try {
+            indices = parseIndexSelection(editIndexField.getText(), records.size());
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage() + " (" + listName + ")", true);
+            return;
+        }
+
+        boolean expenseType = type.equals("expense") || type.equals("recurring_expense");
+        JTextField amountField = new JTextField();
+        JTextField descriptionField = new JTextField();
+        JComboBox<String> categoryBox = new JComboBox<>();
+        categoryBox.addItem(KEEP_VALUE_LABEL);
+        categories.stream().sorted(String.CASE_INSENSITIVE_ORDER).forEach(categoryBox::addItem);
+        DatePicker datePicker = new DatePicker();
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Новая сумма:"));
+        form.add(amountField);
+        form.add(new JLabel("Новое описание:"));
+        form.add(descriptionField);
+        if (expenseType) {
+            form.add(new JLabel("Новая категория:"));
+            form.add(categoryBox);
+        }
+        form.add(new JLabel(type.startsWith("recurring") ? "Новая дата начала:" : "Новая дата:"));
+        form.add(datePicker);
+        form.add(new JLabel("Пустые поля не меняются."));
+
+        if (JOptionPane.showConfirmDialog(this, form, "Изменить записи (" + indices.size() + ") из " + listName,
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            updateStatus("Изменение записей отменено.");
+            return;
+        }
+
+        try {
+            String amountText = amountField.getText().trim().replace(",", ".");
+            Double amount = amountText.isEmpty() ? null : Double.parseDouble(amountText);
+            String description = descriptionField.getText().trim().isEmpty() ? null : descriptionField.getText().trim();
+            String category = KEEP_VALUE_LABEL.equals(categoryBox.getSelectedItem()) ? null : (String) categoryBox.getSelectedItem();
+            LocalDate date = datePicker.getDate();
+            if (amount == null && description == null && category == null && date == null) {
+                updateStatus("Не задано ни одного нового значения.", true);
+                return;
             }
 
-            if (deleted) {
-                saveData();
-                refreshUI();
-                clearEntries();
-                updateStatus("Запись №" + (index + 1) + " из " + listName + " успешно удалена.");
-            } else {
-                updateStatus("Удаление отменено или неверный индекс записи " + listName + ".", true);
+            LedgerBatch batch = new LedgerBatch();
+            for (int index : indices) {
+                Object record = records.get(index);
+                batch.replace(record, editedCopy(record, amount, description, category, date));
             }
+            LedgerBatch.Result result = applyBatch(batch);
+            clearEntries();
+            updateStatus("Изменено записей из " + listName + ": " + result.added.size() + ".");
         } catch (NumberFormatException ex) {
-            updateStatus("Неверный формат индекса. Используйте целые числа.", true);
+            updateStatus("Неверный формат суммы. Используйте числа.", true);
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage(), true);
         } catch (Exception ex) {
-            updateStatus("Произошла ошибка при удалении записи: " + ex.getMessage(), true);
+            updateStatus("Произошла ошибка при изменении записей: " + ex.getMessage(), true);
             ex.printStackTrace();
         }
     }
 
+    private static Object editedCopy(Object record, Double amount, String description, String category, LocalDate date) {
+        if (record instanceof RecurringIncome) {
+            RecurringIncome rInc = (RecurringIncome) record;
+            LocalDate start = date != null ? date : rInc.getDate();
+            RecurrenceRule rule = rInc.getRule().startingOn(start);
+            RecurringIncome copy = new RecurringIncome(amount != null ? amount : rInc.getAmount(),
+                    description != null ? description : rInc.getDescription(), start, rule, rInc.getRepetitions());
+            copy.setCurrency(rInc.getCurrency());
+            return copy;
+        }
+        if (record instanceof RecurringExpense) {
+            RecurringExpense rExp = (RecurringExpense) record;
+            LocalDate start = date != null ? date : rExp.getDate();
+            RecurrenceRule rule = rExp.getRule().startingOn(start);
+            RecurringExpense copy = new RecurringExpense(amount != null ? amount : rExp.getAmount(), description != null ? description : rExp.getDescription(),
+                    category != null ? category : rExp.getCategory(), start, rule, rExp.getRepetitions());
+            copy.setCurrency(rExp.getCurrency());
+            return copy;
+        }
+        if (record instanceof Expense) {
+            Expense exp = (Expense) record;
+            Expense copy = new Expense(amount != null ? amount : exp.getAmount(), description != null ? description : exp.getDescription(),
+                    category != null ? category : exp.getCategory(), date != null ? date : exp.getDate());
+            copy.setCurrency(exp.getCurrency());
+            return copy;
+        }
+        Income inc = (Income) record;
+        Income copy = new Income(amount != null ? amount : inc.getAmount(), description != null ? description : inc.getDescription(),
+                date != null ? date : inc.getDate());
+        copy.setCurrency(inc.getCurrency());
+        return copy;
+    }
+
+    private void selectEntriesByReportFilter() {
+        if (filterDescriptionField == null) {
+            updateStatus("Сначала задайте фильтры на вкладке «Отчеты и аналитика».", true);
+            return;
+        }
+        String searchKeyword = filterDescriptionField.getText().equals("Ключевое слово") ? "" : filterDescriptionField.getText();
+        String filterCategory = filterCategoryField.getText().equals("Например: еда") ? "" : filterCategoryField.getText();
+        String filterMonth = filterMonthField.getText().equals("Например: 2025-06") ? "" : filterMonthField.getText();
+        String filterYear = filterYearField.getText().equals("Например: 2025") ? "" : filterYearField.getText();
+
+        String type = getSelectedEditType();
+        List<Integer> indices = new ArrayList<>();
+        if (type.equals("income") || type.equals("recurring_income")) {
+            Predicate<Income> filter = LedgerReports.incomeFilter(searchKeyword, filterMonth, filterYear);
+            List<? extends Income> records = type.equals("income") ? incomes : recurringIncomes;
+            for (int i = 0; i < records.size(); i++) if (filter.test(records.get(i))) indices.add(i);
+        } else {
+            Predicate<Expense> filter = LedgerReports.expenseFilter(searchKeyword, filterCategory, filterMonth, filterYear);
+            List<? extends Expense> records = type.equals("expense") ? expenses : recurringExpenses;
+            for (int i = 0; i < records.size(); i++) if (filter.test(records.get(i))) indices.add(i);
+        }
+
+        if (indices.isEmpty()) {
+            updateStatus("Нет записей " + listNameOfType(type) + ", подходящих под фильтры отчета.", true);
+            return;
+        }
+        editIndexField.setText(formatIndexSelection(indices));
+        applyDefaultStyle(editIndexField);
+        updateStatus("Выбрано записей из " + listNameOfType(type) + ": " + indices.size() + ".");
+    }
+
+    private List<?> recordsOfType(String type) {
+        switch (type) {
+            case "income": return incomes;
+            case "recurring_income": return recurringIncomes;
+            case "recurring_expense": return recurringExpenses;
+            default: return expenses;
+        }
+    }
+
+    private static String listNameOfType(String type) {
+        switch (type) {
+            case "income": return "доходов";
+            case "recurring_income": return "повторяющихся доходов";
+            case "recurring_expense": return "повторяющихся расходов";
+            default: return "расходов";
+        }
+    }
+
+    static List<Integer> parseIndexSelection(String text, int size) {
+        List<Integer> indices = new ArrayList<>();
+        BitSet seen = new BitSet(size);
+        for (String part : text.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) continue;
+            int dash = range.indexOf('-', 1);
+            int from, to;
+            try {
+                from = Integer.parseInt((dash < 0 ? range : range.substring(0, dash)).trim());
+                to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Неверный формат индексов: «" + range + "». Пример: 1-10, 15");
+            }
+            if (from < 1 || to > size || from > to) {
+                throw new IllegalArgumentException("Индексы вне диапазона: «" + range + "», всего записей " + size);
+            }
+            for (int i = from - 1; i < to; i++) {
+                if (!seen.get(i)) {
+                    seen.set(i);
+                    indices.add(i);
+                }
+            }
+        }
+        if (indices.isEmpty()) throw new IllegalArgumentException("Не указаны индексы записей.");
+        return indices;
+    }
+
+    static String formatIndexSelection(List<Integer> indices) {
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < indices.size()) {
+            int j = i;
+            while (j + 1 < indices.size() && indices.get(j + 1) == indices.get(j) + 1) j++;
+            if (text.length() > 0) text.append(", ");
+            text.append(indices.get(i) + 1);
+            if (j > i) text.append('-').append(indices.get(j) + 1);
+            i = j + 1;
+        }
+        return text.toString();
+    }
+
+    private LedgerBatch.Result applyBatch(LedgerBatch batch) {
+        Map<Object, Integer> goalRows = goalRows();
+        LedgerBatch.Result result = batch.commit(ledger);
+        if (result.size() > ledger.recordCount() / 4) {
+            ledgerIndexes.rebuild(incomes, expenses, recurringIncomes, recurringExpenses);
+        } else {
+            for (Object record : result.removed) indexRecord(record, false);
+            for (Object record : result.added) indexRecord(record, true);
+        }
+        if (result.goalsChanged) {
+            goalRowsChanged(goalRows, result.removed, result.replaced);
+            viewGraph.invalidate(ViewGraph.Part.GOALS);
+        }
+        if (result.categoriesChanged) viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
+        saveData();
+        return result;
+    }
+
+    private Map<Object, Integer> goalRows() {
+        Map<Object, Integer> rows = new IdentityHashMap<>();
+        for (int i = 0; i < goals.size(); i++) rows.put(goals.get(i), i);
+        return rows;
+    }
+
+    // Replacements keep their row and additions are appended, so row events follow from the rows taken before the change.
+    private void goalRowsChanged(Map<Object, Integer> rowsBefore, Collection<?> removed, Set<?> replaced) {
+        if (goalsTableModel == null) return;
+        List<Integer> deleted = new ArrayList<>();
+        List<Integer> updated = new ArrayList<>();
+        for (Object record : removed) {
+            Integer row = rowsBefore.get(record);
+            if (row != null) (replaced.contains(record) ? updated : deleted).add(row);
+        }
+        deleted.sort(Collections.reverseOrder());
+        for (int row : deleted) goalsTableModel.goalRemoved(row);
+        for (int row : updated) {
+            int shift = 0;
+            for (int gone : deleted) if (gone < row) shift++;
+            goalsTableModel.goalUpdated(row - shift);
+        }
+        for (int row = rowsBefore.size() - deleted.size(); row < goals.size(); row++) goalsTableModel.goalAdded(row);
+    }
+
+    private void indexRecord(Object record, boolean added) {
+        if (record instanceof RecurringIncome) {
+            if (added) ledgerIndexes.recurringIncomeAdded((RecurringIncome) record);
+            else ledgerIndexes.recurringIncomeRemoved((RecurringIncome) record);
+        } else if (record instanceof RecurringExpense) {
+            if (added) ledgerIndexes.recurringExpenseAdded((RecurringExpense) record);
+            else ledgerIndexes.recurringExpenseRemoved((RecurringExpense) record);
+        } else if (record instanceof Income) {
+            if (added) ledgerIndexes.incomeAdded((Income) record);
+            else ledgerIndexes.incomeRemoved((Income) record);
+        } else if (record instanceof Expense) {
+            if (added) ledgerIndexes.expenseAdded((Expense) record);
+            else ledgerIndexes.expenseRemoved((Expense) record);
+        }
+    }
+
     private void clearAllData() {
         if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите полностью удалить ВСЕ данные (доходы, расходы, бюджет)? Это действие необратимо!", "Подтверждение очистки", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
-            incomes.clear();
-            expenses.clear();
-            budget.clear();
-            recurringIncomes.clear();
-            recurringExpenses.clear();
-            goals.clear();
-            categories.clear();
-            categories.addAll(Arrays.asList("еда", "транспорт", "развлечения", "жилье", "зарплата", "подарки"));
-            updateCategoriesComboBoxes();
+            ledger.clear();
+            ledgerRebound();
 
-            File file = new File(DATA_FILE);
-            if (file.exists()) {
-                if (!file.delete()) {
+            if (dataFile.exists()) {
+                if (!dataFile.delete()) {
                     updateStatus("Не удалось удалить файл данных.", true);
                 }
             }
             saveData();
-            refreshUI();
             clearEntries();
             updateStatus("Все данные успешно очищены.");
         } else {
@@ -1201,56 +2316,7 @@ public class BudgetApp extends JFrame {
             File outputDir = fileChooser.getSelectedFile();
 
             try {
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "incomes_onetime.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Amount,Description,Date");
-                    for (Income inc : incomes) {
-                        pw.println(String.format("%.2f,%s,%s", inc.getAmount(), inc.getDescription(), inc.getDate().format(DATE_FORMATTER)));
-                    }
-                }
-
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "expenses_onetime.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Amount,Description,Category,Date");
-                    for (Expense exp : expenses) {
-                        pw.println(String.format("%.2f,%s,%s,%s", exp.getAmount(), exp.getDescription(), exp.getCategory(), exp.getDate().format(DATE_FORMATTER)));
-                    }
-                }
-
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "incomes_recurring.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Amount,Description,StartDate,Frequency,Repetitions");
-                    for (RecurringIncome rInc : recurringIncomes) {
-                        pw.println(String.format("%.2f,%s,%s,%s,%d", rInc.getAmount(), rInc.getDescription(), rInc.getDate().format(DATE_FORMATTER), rInc.getFrequency(), rInc.getRepetitions()));
-                    }
-                }
-
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "expenses_recurring.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Amount,Description,Category,StartDate,Frequency,Repetitions");
-                    for (RecurringExpense rExp : recurringExpenses) {
-                        pw.println(String.format("%.2f,%s,%s,%s,%s,%d", rExp.getAmount(), rExp.getDescription(), rExp.getCategory(), rExp.getDate().format(DATE_FORMATTER), rExp.getFrequency(), rExp.getRepetitions()));
-                    }
-                }
-
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "goals.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Name,TargetAmount,CurrentAmount,DueDate");
-                    for (FinancialGoal goal : goals) {
-                        pw.println(String.format("%s,%.2f,%.2f,%s", goal.getName(), goal.getTargetAmount(), goal.getCurrentAmount(), goal.getDueDate().format(DATE_FORMATTER)));
-                    }
-                }
-
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "budget.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Category,Amount");
-                    for (Map.Entry<String, Double> entry : budget.entrySet()) {
-                        pw.println(String.format("%s,%.2f", entry.getKey(), entry.getValue()));
-                    }
-                }
-
-                try (PrintWriter pw = new PrintWriter(new File(outputDir, "categories.csv"), StandardCharsets.UTF_8)) {
-                    pw.println("Category");
-                    for (String cat : categories) {
-                        pw.println(cat);
-                    }
-                }
-
-
+                LedgerReports.exportCsv(ledger, outputDir);
                 updateStatus("Данные успешно экспортированы в " + outputDir.getAbsolutePath());
             } catch (IOException ex) {
                 updateStatus("Ошибка при экспорте данных в CSV: " + ex.getMessage(), true);
@@ -1263,296 +2329,397 @@ public class BudgetApp extends JFrame {
 
 
     private void loadData() {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) {
-            updateStatus("Файл данных не найден, создан новый пустой файл.");
-            saveData();
-            return;
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            String line;
-            String currentSection = "";
-
-            incomes.clear();
-            expenses.clear();
-            budget.clear();
-            recurringIncomes.clear();
-            recurringExpenses.clear();
-            goals.clear();
-            categories.clear();
+        File file = dataFile;
+        Ledger target = ledger;
+        loadingData = true;
+        loadProgressBar.setValue(0);
+        loadProgressBar.setVisible(true);
+        updateStatus("Загрузка данных из " + file + "...");
+        SwingWorker<Ledger, Void> loader = new SwingWorker<Ledger, Void>() {
+            private LedgerDiff.Digest loadedDigest;
+            private LedgerIndexes.Rebuilt rebuilt;
 
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.startsWith("###")) {
-                    currentSection = line.substring(3).trim();
-                    continue;
+            @Override
+            protected Ledger doInBackground() throws Exception {
+                // The read runs on the persist thread so every external change check lands strictly before or after it.
+                Future<Ledger> read = persistExecutor.submit(() -> {
+                    if (!file.exists()) return null;
+                    String stamp = fileStamp(file);
+                    Ledger loaded = Ledger.read(file, fraction -> setProgress((int) Math.round(fraction * 100)));
+                    loadedDigest = LedgerDiff.Digest.of(loaded);
+                    diskDigests.put(file, loadedDigest);
+                    if (stamp != null) diskStamps.put(file, stamp);
+                    return loaded;
+                });
+                Ledger loaded;
+                try {
+                    loaded = read.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                 }
-                if (line.isEmpty() || line.startsWith("#")) continue;
-
-                String[] parts = line.split(";", -1);
+                if (loaded != null) {
+                    rebuilt = ledgerIndexes.prepare(loaded.getIncomes(), loaded.getExpenses(),
+                            loaded.getRecurringIncomes(), loaded.getRecurringExpenses());
+                }
+                return loaded;
+            }
 
+            @Override
+            protected void done() {
+                loadingData = false;
+                loadProgressBar.setVisible(false);
+                List<LedgerDiff> missed = new ArrayList<>(deferredExternalChanges);
+                deferredExternalChanges.clear();
                 try {
-                    switch (currentSection) {
-                        case "INCOMES":
-                            if (parts.length == 3) {
-                                incomes.add(new Income(Double.parseDouble(parts[0]), parts[1], LocalDate.parse(parts[2], DATE_FORMATTER)));
-                            }
-                            break;
-                        case "EXPENSES":
-                            if (parts.length == 4) {
-                                expenses.add(new Expense(Double.parseDouble(parts[0]), parts[1], parts[2], LocalDate.parse(parts[3], DATE_FORMATTER)));
-                                categories.add(parts[2].toLowerCase());
-                            }
-                            break;
-                        case "BUDGET":
-                            if (parts.length == 2) {
-                                budget.put(parts[0], Double.parseDouble(parts[1]));
-                                categories.add(parts[0].toLowerCase());
-                            }
-                            break;
-                        case "RECURRING_INCOMES":
-                            if (parts.length == 5) {
-                                recurringIncomes.add(new RecurringIncome(Double.parseDouble(parts[0]), parts[1], LocalDate.parse(parts[2], DATE_FORMATTER), parts[3], Integer.parseInt(parts[4])));
-                            }
-                            break;
-                        case "RECURRING_EXPENSES":
-                            if (parts.length == 6) {
-                                recurringExpenses.add(new RecurringExpense(Double.parseDouble(parts[0]), parts[1], parts[2], LocalDate.parse(parts[3], DATE_FORMATTER), parts[4], Integer.parseInt(parts[5])));
-                                categories.add(parts[2].toLowerCase());
-                            }
-                            break;
-                        case "GOALS":
-                            if (parts.length == 4) {
-                                goals.add(new FinancialGoal(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), LocalDate.parse(parts[3], DATE_FORMATTER)));
-                            }
-                            break;
-                        case "CATEGORIES":
-                            if (parts.length == 1 && !parts[0].isEmpty()) {
-                                categories.add(parts[0].toLowerCase());
-                            }
-                            break;
+                    Ledger loaded = get();
+                    if (loaded == null) {
+                        updateStatus("Файл данных не найден, создан новый пустой файл.");
+                        saveDeferred = true;
+                    } else {
+                        Ledger addedWhileLoading = target.copy();
+                        target.mergeLoaded(loaded);
+                        if (target == ledger) {
+                            ledgerIndexes.install(rebuilt, addedWhileLoading.getIncomes(), addedWhileLoading.getExpenses(),
+                                    addedWhileLoading.getRecurringIncomes(), addedWhileLoading.getRecurringExpenses());
+                            viewsRebound();
+                        }
+                        LedgerDiff.Digest expected = loadedDigest;
+                        for (LedgerDiff diff : missed) {
+                            if (diff.baseDigest != expected) continue;
+                            applyExternalChanges(file, diff, null);
+                            expected = diff.remoteDigest;
+                        }
+                        forgetEvicted(ledgerCache.trim(dataFile));
+                        updateStatus("Данные успешно загружены из " + file);
                     }
-                } catch (NumberFormatException | DateTimeParseException e) {
-                    System.err.println("Ошибка при парсинге строки в разделе " + currentSection + ": " + line + " - " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    updateStatus("Не удалось прочитать файл данных: " + e.getCause().getMessage(), true);
+                    e.getCause().printStackTrace();
                 }
+                if (saveDeferred) {
+                    saveDeferred = false;
+                    saveData();
+                }
+                logStartupTiming("Данные загружены");
             }
-            if (categories.isEmpty()) {
-                categories.addAll(Arrays.asList("еда", "транспорт", "развлечения", "жилье", "зарплата", "подарки"));
-            }
-            updateStatus("Данные успешно загружены из " + DATA_FILE);
-        } catch (IOException ex) {
-            updateStatus("Не удалось прочитать файл данных: " + ex.getMessage(), true);
-            ex.printStackTrace();
-        }
+        };
+        loader.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) loadProgressBar.setValue((Integer) e.getNewValue());
+        });
+        loader.execute();
     }
 
 
     private void saveData() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(DATA_FILE, StandardCharsets.UTF_8))) {
-            pw.println("###INCOMES");
-            for (Income inc : incomes) {
-                pw.println(String.format("%.2f;%s;%s", inc.getAmount(), inc.getDescription(), inc.getDate().format(DATE_FORMATTER)));
-            }
-            pw.println("\n###EXPENSES");
-            for (Expense exp : expenses) {
-                pw.println(String.format("%.2f;%s;%s;%s", exp.getAmount(), exp.getDescription(), exp.getCategory(), exp.getDate().format(DATE_FORMATTER)));
-            }
-            pw.println("\n###BUDGET");
-            for (Map.Entry<String, Double> entry : budget.entrySet()) {
-                pw.println(String.format("%s;%.2f", entry.getKey(), entry.getValue()));
-            }
-            pw.println("\n###RECURRING_INCOMES");
-            for (RecurringIncome rInc : recurringIncomes) {
-                pw.println(String.format("%.2f;%s;%s;%s;%d", rInc.getAmount(), rInc.getDescription(), rInc.getDate().format(DATE_FORMATTER), rInc.getFrequency(), rInc.getRepetitions()));
-            }
-            pw.println("\n###RECURRING_EXPENSES");
-            for (RecurringExpense rExp : recurringExpenses) {
-                pw.println(String.format("%.2f;%s;%s;%s;%s;%d", rExp.getAmount(), rExp.getDescription(), rExp.getCategory(), rExp.getDate().format(DATE_FORMATTER), rExp.getFrequency(), rExp.getRepetitions()));
-            }
-            pw.println("\n###GOALS");
-            for (FinancialGoal goal : goals) {
-                pw.println(String.format("%s;%.2f;%.2f;%s", goal.getName(), goal.getTargetAmount(), goal.getCurrentAmount(), goal.getDueDate().format(DATE_FORMATTER)));
-            }
-            pw.println("\n###CATEGORIES");
-            for (String category : categories) {
-                pw.println(category);
-            }
-            updateStatus("Данные успешно сохранены в " + DATA_FILE);
+        if (loadingData) {
+            saveDeferred = true;
+            return;
         }
-        catch (IOException ex) {
-            updateStatus("Не удалось записать данные в файл: " + ex.getMessage(), true);
-            ex.printStackTrace();
+        queueSave(dataFile, ledger);
+    }
+
+    private void queueSave(File file, Ledger source) {
+        if (pendingSaves.put(file, source.copy()) == null) {
+            persistExecutor.execute(() -> writePendingSave(file));
         }
     }
 
-    private void updateCategoriesComboBoxes() {
-        String[] sortedCategories = categories.stream().sorted(String.CASE_INSENSITIVE_ORDER).toArray(String[]::new);
+    private void writePendingSave(File file) {
+        Ledger snapshot = pendingSaves.remove(file);
+        if (snapshot == null) return;
+        String known = diskStamps.get(file);
+        String current = fileStamp(file);
+        if (known != null && current != null && !known.equals(current)) {
+            checkExternalChange(file, snapshot);
+            return;
+        }
+        writeSnapshot(file, snapshot);
+    }
 
-        expenseCategoryComboBox.removeAllItems();
-        budgetCategoryComboBox.removeAllItems();
+    private void writeSnapshot(File file, Ledger snapshot) {
+        try {
+            snapshot.write(file);
+            diskDigests.put(file, LedgerDiff.Digest.of(snapshot));
+            String stamp = fileStamp(file);
+            if (stamp != null) diskStamps.put(file, stamp);
+            SwingUtilities.invokeLater(() -> updateStatus("Данные успешно сохранены в " + file));
+        } catch (IOException ex) {
+            SwingUtilities.invokeLater(() -> updateStatus("Не удалось записать данные в файл: " + ex.getMessage(), true));
+            ex.printStackTrace();
+        }
+    }
 
-        for (String cat : sortedCategories) {
-            expenseCategoryComboBox.addItem(cat);
-            budgetCategoryComboBox.addItem(cat);
+    private static String fileStamp(File file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return attributes.lastModifiedTime() + "/" + attributes.size() + "/" + attributes.fileKey();
+        } catch (IOException e) {
+            return null;
         }
     }
 
-    private List<Income> getEffectiveIncomes(LocalDate untilDate) {
-        List<Income> effectiveIncomes = new ArrayList<>(incomes);
-        LocalDate today = LocalDate.now();
-        if (untilDate == null) untilDate = today;
+    private void checkExternalChange(File file, Ledger unsaved) {
+        LedgerDiff.Digest base = diskDigests.get(file);
+        String stamp = fileStamp(file);
+        if (base == null || stamp == null || stamp.equals(diskStamps.get(file))) {
+            if (unsaved != null) writeSnapshot(file, unsaved);
+            return;
+        }
 
-        for (RecurringIncome rInc : recurringIncomes) {
-            LocalDate startDate = rInc.getDate();
-            for (int i = 0; i < rInc.getRepetitions(); i++) {
-                LocalDate transactionDate = startDate.plusMonths(i);
-                if (transactionDate.isAfter(untilDate)) {
-                    break;
-                }
-                effectiveIncomes.add(new Income(rInc.getAmount(), rInc.getDescription() + " (Повтор)", transactionDate));
-            }
+        Ledger remote;
+        try {
+            remote = Ledger.read(file, fraction -> { });
+        } catch (IOException e) {
+            SwingUtilities.invokeLater(() -> updateStatus("Не удалось прочитать измененный файл " + file + ": " + e.getMessage(), true));
+            e.printStackTrace();
+            if (unsaved != null) writeSnapshot(file, unsaved);
+            return;
+        }
+        LedgerDiff diff = LedgerDiff.between(base, remote);
+        diskDigests.put(file, diff.remoteDigest);
+        diskStamps.put(file, stamp);
+        if (diff.isEmpty()) {
+            if (unsaved != null) writeSnapshot(file, unsaved);
+            return;
         }
-        return effectiveIncomes;
+        SwingUtilities.invokeLater(() -> applyExternalChanges(file, diff, unsaved));
     }
 
-    private List<Expense> getEffectiveExpenses(LocalDate untilDate) {
-        List<Expense> effectiveExpenses = new ArrayList<>(expenses);
-        LocalDate today = LocalDate.now();
-        if (untilDate == null) untilDate = today;
-
-        for (RecurringExpense rExp : recurringExpenses) {
-            LocalDate startDate = rExp.getDate();
-            for (int i = 0; i < rExp.getRepetitions(); i++) {
-                LocalDate transactionDate = startDate.plusMonths(i);
-                if (transactionDate.isAfter(untilDate)) {
-                    break;
+    private void applyExternalChanges(File file, LedgerDiff diff, Ledger unsaved) {
+        boolean active = file.equals(dataFile);
+        if (active && loadingData) {
+            deferredExternalChanges.add(diff);
+            return;
+        }
+        Ledger target = active ? ledger : ledgerCache.get(file);
+        if (target == null) target = unsaved;
+        if (target == null) return;
+
+        int removed = mergeSection(target.getIncomes(), diff.incomes, LedgerDiff::key,
+                active ? ledgerIndexes::incomeRemoved : record -> { }, active ? ledgerIndexes::incomeAdded : record -> { });
+        removed += mergeSection(target.getExpenses(), diff.expenses, LedgerDiff::key,
+                active ? ledgerIndexes::expenseRemoved : record -> { }, active ? ledgerIndexes::expenseAdded : record -> { });
+        removed += mergeSection(target.getRecurringIncomes(), diff.recurringIncomes, LedgerDiff::key,
+                active ? ledgerIndexes::recurringIncomeRemoved : record -> { }, active ? ledgerIndexes::recurringIncomeAdded : record -> { });
+        removed += mergeSection(target.getRecurringExpenses(), diff.recurringExpenses, LedgerDiff::key,
+                active ? ledgerIndexes::recurringExpenseRemoved : record -> { }, active ? ledgerIndexes::recurringExpenseAdded : record -> { });
+
+        List<String> conflicts = new ArrayList<>();
+        List<Runnable> remoteResolutions = new ArrayList<>();
+        mergeChanges(target.getBudget(), diff.budget, "Бюджет", String::valueOf, conflicts, remoteResolutions);
+        mergeChanges(target.getBudgetPeriods(), diff.budgetPeriods, "Период бюджета",
+                period -> period == null ? "без периода" : period.describe(), conflicts, remoteResolutions);
+        mergeChanges(target.getCategoryRules(), diff.categoryRules, "Правило",
+                category -> category == null ? "нет" : category, conflicts, remoteResolutions);
+        Ledger merged = target;
+        mergeValue(new ArrayList<>(target.getAlertThresholds()), diff.alertThresholds, thresholds -> {
+            merged.getAlertThresholds().clear();
+            merged.getAlertThresholds().addAll(thresholds);
+        }, "Пороги уведомлений", BudgetApp::formatThresholds, conflicts, remoteResolutions);
+        mergeValue(target.getDailyAlertLimit(), diff.dailyAlertLimit, merged::setDailyAlertLimit, "Дневной порог расходов",
+                limit -> limit > 0 ? String.format("%.2f", limit) : "нет", conflicts, remoteResolutions);
+        List<FinancialGoal> targetGoals = target.getGoals();
+        Map<Object, Integer> goalRows = active ? goalRows() : Collections.emptyMap();
+        List<FinancialGoal> removedGoals = new ArrayList<>();
+        Set<FinancialGoal> replacedGoals = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, LedgerDiff.Change<FinancialGoal>> entry : diff.goals.entrySet()) {
+            String name = entry.getKey();
+            LedgerDiff.Change<FinancialGoal> change = entry.getValue();
+            FinancialGoal local = targetGoals.stream().filter(g -> g.getName().equals(name)).findFirst().orElse(null);
+            String localLine = local == null ? null : Ledger.line(local);
+            String remoteLine = change.remote == null ? null : Ledger.line(change.remote);
+            Runnable takeRemote = () -> {
+                int index = targetGoals.indexOf(local);
+                if (index >= 0) removedGoals.add(local);
+                if (change.remote == null) {
+                    targetGoals.remove(local);
+                } else if (index >= 0) {
+                    targetGoals.set(index, change.remote);
+                    replacedGoals.add(local);
+                } else {
+                    targetGoals.add(change.remote);
                 }
-                effectiveExpenses.add(new Expense(rExp.getAmount(), rExp.getDescription() + " (Повтор)", rExp.getCategory(), transactionDate));
+            };
+            if (Objects.equals(localLine, change.base == null ? null : Ledger.line(change.base))) {
+                takeRemote.run();
+            } else if (!Objects.equals(localLine, remoteLine)) {
+                conflicts.add(String.format("Цель «%s»: здесь %s, в файле %s", name,
+                        localLine == null ? "удалена" : localLine, remoteLine == null ? "удалена" : remoteLine));
+                remoteResolutions.add(takeRemote);
             }
         }
-        return effectiveExpenses;
+        target.getCategories().addAll(diff.addedCategories);
+        target.getCategories().removeAll(diff.removedCategories);
+
+        boolean keptLocal = false;
+        if (!conflicts.isEmpty()) {
+            int choice = !active ? JOptionPane.NO_OPTION : JOptionPane.showConfirmDialog(this,
+                    "Файл " + file.getName() + " изменен извне, и часть этих значений изменена здесь же:\n"
+                            + String.join("\n", conflicts) + "\n\nПринять значения из файла? (Нет — оставить значения приложения)",
+                    "Конфликт изменений", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (choice == JOptionPane.YES_OPTION) remoteResolutions.forEach(Runnable::run);
+            else keptLocal = true;
+            System.err.println("Конфликты при объединении внешних изменений " + file + ": " + conflicts);
+        }
+
+        if (active) {
+            if (!diff.budget.isEmpty() || !diff.budgetPeriods.isEmpty()) viewGraph.invalidate(ViewGraph.Part.BUDGET);
+            if (!diff.goals.isEmpty()) {
+                viewGraph.invalidate(ViewGraph.Part.GOALS);
+                goalRowsChanged(goalRows, removedGoals, replacedGoals);
+            }
+            if (!diff.addedCategories.isEmpty() || !diff.removedCategories.isEmpty()) viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
+            if (diff.alertThresholds != null || diff.dailyAlertLimit != null) {
+                budgetAlerts.configure(target.getAlertThresholds(), target.getDailyAlertLimit());
+            }
+            if (!diff.categoryRules.isEmpty()) {
+                compiledRules = null;
+                if (categoryRulesArea != null) categoryRulesArea.setText(CategoryRules.format(target.getCategoryRules()));
+            }
+            if (removed > 0 && editingRecordInfo != null) clearEntries();
+        }
+
+        if (unsaved != null || keptLocal || pendingSaves.containsKey(file) || diskDigests.get(file) != diff.remoteDigest) {
+            if (active) saveData();
+            else queueSave(file, target);
+        }
+        String message = "Файл " + file.getName() + " изменен извне: применено изменений записей — " + diff.recordChanges();
+        if (keptLocal) updateStatus(message + ", конфликтов оставлено в версии приложения — " + conflicts.size(), true);
+        else updateStatus(message);
+    }
+
+    private static <V> void mergeChanges(Map<String, V> target, Map<String, LedgerDiff.Change<V>> changes, String label,
+                                         Function<V, String> text, List<String> conflicts, List<Runnable> remoteResolutions) {
+        for (Map.Entry<String, LedgerDiff.Change<V>> entry : changes.entrySet()) {
+            String key = entry.getKey();
+            mergeValue(target.get(key), entry.getValue(), remote -> {
+                if (remote == null) target.remove(key);
+                else target.put(key, remote);
+            }, label + " «" + key + "»", text, conflicts, remoteResolutions);
+        }
     }
 
+    private static <V> void mergeValue(V local, LedgerDiff.Change<V> change, Consumer<V> apply, String label,
+                                       Function<V, String> text, List<String> conflicts, List<Runnable> remoteResolutions) {
+        if (change == null) return;
+        Runnable takeRemote = () -> apply.accept(change.remote);
+        if (Objects.equals(local, change.base)) {
+            takeRemote.run();
+        } else if (!Objects.equals(local, change.remote)) {
+            conflicts.add(String.format("%s: здесь %s, в файле %s", label, text.apply(local), text.apply(change.remote)));
+            remoteResolutions.add(takeRemote);
+        }
+    }
 
-    private void generateReport(String searchKeyword, String filterCategory, String filterMonth, String filterYear) {
-        StringBuilder reportContent = new StringBuilder();
-        reportContent.append("===== ОБЩИЙ ФИНАНСОВЫЙ ОТЧЕТ =====\n");
-        reportContent.append("Дата отчета: ").append(LocalDate.now().format(DATE_FORMATTER)).append(" ").append(LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"))).append("\n\n");
-
-        List<Income> effectiveIncomes = getEffectiveIncomes(LocalDate.now());
-        List<Expense> effectiveExpenses = getEffectiveExpenses(LocalDate.now());
-
-        List<Income> filteredIncomes = effectiveIncomes.stream()
-                .filter(inc -> (searchKeyword == null || searchKeyword.isEmpty() || inc.getDescription().toLowerCase().contains(searchKeyword.toLowerCase())) &&
-                        (filterMonth == null || filterMonth.isEmpty() || inc.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM")).equals(filterMonth)) &&
-                        (filterYear == null || filterYear.isEmpty() || String.valueOf(inc.getDate().getYear()).equals(filterYear)))
-                .collect(Collectors.toList());
-
-        List<Expense> filteredExpenses = effectiveExpenses.stream()
-                .filter(exp -> (searchKeyword == null || searchKeyword.isEmpty() || exp.getDescription().toLowerCase().contains(searchKeyword.toLowerCase())) &&
-                        (filterCategory == null || filterCategory.isEmpty() || exp.getCategory().toLowerCase().equals(filterCategory.toLowerCase())) &&
-                        (filterMonth == null || filterMonth.isEmpty() || exp.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM")).equals(filterMonth)) &&
-                        (filterYear == null || filterYear.isEmpty() || String.valueOf(exp.getDate().getYear()).equals(filterYear)))
-                .collect(Collectors.toList());
-
-        double totalIncome = filteredIncomes.stream().mapToDouble(Income::getAmount).sum();
-        double totalExpense = filteredExpenses.stream().mapToDouble(Expense::getAmount).sum();
-        double currentBalance = totalIncome - totalExpense;
-
-        reportContent.append(String.format("Общая сумма доходов (отфильтровано): %.2f%n", totalIncome));
-        reportContent.append(String.format("Общая сумма расходов (отфильтровано): %.2f%n", totalExpense));
-        reportContent.append(String.format("Текущий баланс: %.2f%n%n", currentBalance));
-
-        reportContent.append("===== РАСХОДЫ ПО КАТЕГОРИЯМ =====\n");
-        Map<String, Double> expensesByCategory = filteredExpenses.stream()
-                .collect(Collectors.groupingBy(Expense::getCategory, Collectors.summingDouble(Expense::getAmount)));
-
-        if (!expensesByCategory.isEmpty()) {
-            expensesByCategory.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> reportContent.append(String.format("- %s: %.2f%n", entry.getKey().substring(0, 1).toUpperCase() + entry.getKey().substring(1), entry.getValue())));
-        } else {
-            reportContent.append("Нет отфильтрованных расходов по категориям.\n");
-        }
-        reportContent.append("\n");
-
-        reportContent.append("===== СТАТУС БЮДЖЕТА =====\n");
-        if (!budget.isEmpty()) {
-            budget.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> {
-                        String category = entry.getKey();
-                        double limit = entry.getValue();
-                        double spent = expensesByCategory.getOrDefault(category, 0.0);
-                        double remaining = limit - spent;
-                        String status = (remaining >= 0) ? "осталось" : "превышен";
-                        reportContent.append(String.format("- %s: Лимит: %.2f, Потрачено: %.2f, %s: %.2f%n",
-                                category.substring(0, 1).toUpperCase() + category.substring(1), limit, spent, status, remaining));
-                    });
-        } else {
-            reportContent.append("Бюджет не установлен для каких-либо категорий.\n");
+    private static <T> int mergeSection(List<T> records, LedgerDiff.Section<T> section, ToLongFunction<T> key,
+                                        Consumer<T> onRemoved, Consumer<T> onAdded) {
+        int removed = 0;
+        if (!section.removed.isEmpty()) {
+            List<T> dropped = new ArrayList<>();
+            records.removeIf(record -> {
+                if (section.removed.isEmpty() || !LedgerDiff.take(section.removed, key.applyAsLong(record))) return false;
+                dropped.add(record);
+                return true;
+            });
+            dropped.forEach(onRemoved);
+            removed = dropped.size();
+        }
+        for (T record : section.added) {
+            records.add(record);
+            onAdded.accept(record);
         }
-        reportContent.append("\n");
+        return removed;
+    }
 
-        reportContent.append("===== СПИСОК РАЗОВЫХ ДОХОДОВ =====\n");
-        List<Income> onetimeIncomesFiltered = filteredIncomes.stream()
-                .filter(inc -> !inc.getDescription().contains("(Повтор)"))
-                .collect(Collectors.toList());
-        if (!onetimeIncomesFiltered.isEmpty()) {
-            for (int i = 0; i < onetimeIncomesFiltered.size(); i++) {
-                Income inc = onetimeIncomesFiltered.get(i);
-                reportContent.append(String.format("%d. Дата: %s, Сумма: %.2f, Описание: %s%n",
-                        i + 1, inc.getDate().format(DATE_FORMATTER), inc.getAmount(), inc.getDescription()));
+    private void flushPendingSave() {
+        persistExecutor.shutdown();
+        try {
+            if (!persistExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Сохранение данных не завершилось до выхода.");
             }
-        } else {
-            reportContent.append("Нет отфильтрованных разовых записей о доходах.\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        reportContent.append("\n");
+    }
 
-        reportContent.append("===== СПИСОК РАЗОВЫХ РАСХОДОВ =====\n");
-        List<Expense> onetimeExpensesFiltered = filteredExpenses.stream()
-                .filter(exp -> !exp.getDescription().contains("(Повтор)"))
-                .collect(Collectors.toList());
-        if (!onetimeExpensesFiltered.isEmpty()) {
-            for (int i = 0; i < onetimeExpensesFiltered.size(); i++) {
-                Expense exp = onetimeExpensesFiltered.get(i);
-                reportContent.append(String.format("%d. Дата: %s, Сумма: %.2f, Категория: %s, Описание: %s%n",
-                        i + 1, exp.getDate().format(DATE_FORMATTER), exp.getAmount(), exp.getCategory().substring(0, 1).toUpperCase() + exp.getCategory().substring(1), exp.getDescription()));
+    private void applyIngested(List<Object> batch) {
+        for (Object transaction : batch) {
+            if (transaction instanceof Expense) {
+                Expense exp = (Expense) transaction;
+                if (exp.getCategory() == null) exp.setCategory(categorize(exp.getDescription()));
+                expenses.add(exp);
+                if (categories.add(exp.getCategory())) viewGraph.invalidate(ViewGraph.Part.CATEGORIES);
+                ledgerIndexes.expenseAdded(exp);
+            } else {
+                Income inc = (Income) transaction;
+                incomes.add(inc);
+                ledgerIndexes.incomeAdded(inc);
             }
-        } else {
-            reportContent.append("Нет отфильтрованных разовых записей о расходах.\n");
         }
-        reportContent.append("\n");
+        if (!ingestSaveTimer.isRunning()) ingestSaveTimer.start();
+    }
+
+    private void updateCategoriesComboBoxes() {
+        String[] sortedCategories = categories.stream().sorted(String.CASE_INSENSITIVE_ORDER).toArray(String[]::new);
+
+        expenseCategoryComboBox.removeAllItems();
+        budgetCategoryComboBox.removeAllItems();
+
+        for (String cat : sortedCategories) {
+            expenseCategoryComboBox.addItem(cat);
+            budgetCategoryComboBox.addItem(cat);
+        }
 
-        reportContent.append("===== СПИСОК ПОВТОРЯЮЩИХСЯ ДОХОДОВ =====\n");
-        if (!recurringIncomes.isEmpty()) {
-            for (int i = 0; i < recurringIncomes.size(); i++) {
-                RecurringIncome rInc = recurringIncomes.get(i);
-                reportContent.append(String.format("%d. Нач. дата: %s, Сумма: %.2f, Описание: %s, Частота: %s, Повторений: %d%n",
-                        i + 1, rInc.getDate().format(DATE_FORMATTER), rInc.getAmount(), rInc.getDescription(), rInc.getFrequency(), rInc.getRepetitions()));
+        if (scenarioCategoryComboBox != null) {
+            Object selectedScenarioCategory = scenarioCategoryComboBox.getSelectedItem();
+            scenarioCategoryComboBox.removeAllItems();
+            for (String cat : sortedCategories) {
+                scenarioCategoryComboBox.addItem(cat);
             }
-        } else {
-            reportContent.append("Нет повторяющихся записей о доходах.\n");
+            scenarioCategoryComboBox.setSelectedItem(selectedScenarioCategory);
         }
-        reportContent.append("\n");
 
-        reportContent.append("===== СПИСОК ПОВТОРЯЮЩИХСЯ РАСХОДОВ =====\n");
-        if (!recurringExpenses.isEmpty()) {
-            for (int i = 0; i < recurringExpenses.size(); i++) {
-                RecurringExpense rExp = recurringExpenses.get(i);
-                reportContent.append(String.format("%d. Нач. дата: %s, Сумма: %.2f, Категория: %s, Описание: %s, Частота: %s, Повторений: %d%n",
-                        i + 1, rExp.getDate().format(DATE_FORMATTER), rExp.getAmount(), rExp.getDescription(), rExp.getCategory().substring(0, 1).toUpperCase() + rExp.getCategory().substring(1), rExp.getFrequency(), rExp.getRepetitions()));
+        if (summaryCategoryComboBox != null) {
+            Object selectedSummaryCategory = summaryCategoryComboBox.getSelectedItem();
+            summaryCategoryComboBox.removeAllItems();
+            summaryCategoryComboBox.addItem("Все категории");
+            for (String cat : sortedCategories) {
+                summaryCategoryComboBox.addItem(cat);
             }
-        } else {
-            reportContent.append("Нет повторяющихся записей о расходах.\n");
+            summaryCategoryComboBox.setSelectedItem(selectedSummaryCategory);
         }
-        reportContent.append("\n");
+    }
+
+    private LedgerSnapshot takeSnapshot() {
+        return new LedgerSnapshot(incomes, expenses, recurringIncomes, recurringExpenses, goals, budget, ledger.getBudgetPeriods(),
+                fxRates, reports.currentBalance(), expenseDistribution.getVersion(), goalProjection.getVersion());
+    }
 
-        reportTextArea.setText(reportContent.toString());
+    private void recomputeFailed(String view, Throwable error) {
+        updateStatus("Ошибка при пересчете (" + view + "): " + error.getMessage(), true);
+        error.printStackTrace();
+    }
+
+    private void generateReport(String searchKeyword, String filterCategory, String filterMonth, String filterYear) {
+        LedgerSnapshot snapshot = takeSnapshot();
+        viewRecomputer.submit("report", () -> {
+            StringWriter report = new StringWriter();
+            reports.writeReport(snapshot, searchKeyword, filterCategory, filterMonth, filterYear, new PrintWriter(report));
+            return report.toString();
+        }, report -> {
+            reportTextArea.setText(report);
+            reportTextArea.setCaretPosition(0);
+        });
     }
 
     private void applyFilters() {
+        regenerateReport();
+        updateStatus("Отчет отфильтрован.");
+    }
+
+    private void regenerateReport() {
         String searchKeyword = filterDescriptionField.getText();
         if (searchKeyword.equals("Ключевое слово")) searchKeyword = "";
 
@@ -1566,7 +2733,6 @@ public class BudgetApp extends JFrame {
         if (filterYear.equals("Например: 2025")) filterYear = "";
 
         generateReport(searchKeyword, filterCategory, filterMonth, filterYear);
-        updateStatus("Отчет отфильтрован.");
     }
 
     private void resetFilters() {
@@ -1579,146 +2745,177 @@ public class BudgetApp extends JFrame {
     }
 
     private void plotCharts() {
-        Component[] dashboardComponents = ((JPanel) tabbedPane.getComponentAt(2)).getComponents();
-        JTextArea monthlySummaryText = null;
-        JTextArea forecastText = null;
-
-        for (Component comp : dashboardComponents) {
-            if (comp instanceof JPanel) {
-                JPanel subPanel = (JPanel) comp;
-                if (subPanel.getBorder() instanceof javax.swing.border.TitledBorder) {
-                    javax.swing.border.TitledBorder border = (javax.swing.border.TitledBorder) subPanel.getBorder();
-                    if (border.getTitle().equals("Ежемесячная/ежегодная сводка")) {
-                        for (Component innerComp : subPanel.getComponents()) {
-                            if (innerComp instanceof JScrollPane) {
-                                monthlySummaryText = (JTextArea) ((JScrollPane) innerComp).getViewport().getView();
-                                break;
-                            }
-                        }
-                    } else if (border.getTitle().equals("Прогноз баланса (на 6 месяцев)")) {
-                        for (Component innerComp : subPanel.getComponents()) {
-                            if (innerComp instanceof JScrollPane) {
-                                forecastText = (JTextArea) ((JScrollPane) innerComp).getViewport().getView();
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        viewGraph.invalidateView("charts");
+        viewGraph.invalidateView("summary");
+        viewGraph.invalidateView("forecast");
 
+        updateStatus("Графики и прогноз обновлены.");
+    }
 
-        Map<String, Map<String, Double>> monthlyData = calculateMonthlySummary();
-        updateMonthlySummaryText(monthlySummaryText, monthlyData);
-
-        generateForecast(forecastText, 6);
+    private static class ChartData {
+        private final Map<String, Double> expensesByCategory;
+        private final double[] days;
+        private final double[] balances;
 
-        updateStatus("Графики и прогноз обновлены (графики - заглушка).");
+        ChartData(Map<String, Double> expensesByCategory, double[] days, double[] balances) {
+            this.expensesByCategory = expensesByCategory;
+            this.days = days;
+            this.balances = balances;
+        }
     }
 
-    private Map<String, Map<String, Double>> calculateMonthlySummary() {
-        Map<String, Map<String, Double>> monthlyData = new TreeMap<>();
-
-        List<Income> effectiveIncomes = getEffectiveIncomes(LocalDate.now());
-        List<Expense> effectiveExpenses = getEffectiveExpenses(LocalDate.now());
+    private void updateCharts() {
+        viewRecomputer.submit("charts", this::buildChartData, data -> {
+            categoryChart.setData(data.expensesByCategory);
+            balanceChart.setData(data.days, data.balances);
+        });
+    }
 
-        for (Income income : effectiveIncomes) {
-            String monthYear = income.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM"));
-            monthlyData.computeIfAbsent(monthYear, k -> new HashMap<>()).merge("income", income.getAmount(), Double::sum);
+    private ChartData buildChartData() {
+        NavigableMap<Integer, double[]> daily = rollupCube.series(RollupCube.Level.DAY, RollupCube.ALL_CATEGORIES);
+        double[] days = new double[daily.size()];
+        double[] balances = new double[daily.size()];
+        double running = 0;
+        int i = 0;
+        for (Map.Entry<Integer, double[]> entry : daily.entrySet()) {
+            running += entry.getValue()[RollupCube.INCOME] - entry.getValue()[RollupCube.EXPENSE];
+            days[i] = entry.getKey();
+            balances[i] = running;
+            i++;
         }
+        return new ChartData(rollupCube.totalExpensesByCategory(), days, balances);
+    }
 
-        for (Expense expense : effectiveExpenses) {
-            String monthYear = expense.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM"));
-            monthlyData.computeIfAbsent(monthYear, k -> new HashMap<>()).merge("expense", expense.getAmount(), Double::sum);
-        }
+    private static class SummaryView {
+        private final String text;
+        private final Collection<String> years;
 
-        for (Map.Entry<String, Map<String, Double>> entry : monthlyData.entrySet()) {
-            Map<String, Double> data = entry.getValue();
-            double income = data.getOrDefault("income", 0.0);
-            double expense = data.getOrDefault("expense", 0.0);
-            data.put("balance", income - expense);
+        SummaryView(String text, Collection<String> years) {
+            this.text = text;
+            this.years = years;
         }
-        return monthlyData;
     }
 
-    private void updateMonthlySummaryText(JTextArea textArea, Map<String, Map<String, Double>> monthlyData) {
+    private void updateMonthlySummaryText(JTextArea textArea) {
         if (textArea == null) return;
-        textArea.setText("");
-        StringBuilder summaryLines = new StringBuilder();
-        summaryLines.append("ЕЖЕМЕСЯЧНАЯ СВОДКА:\n-------------------\n");
-        if (!monthlyData.isEmpty()) {
-            monthlyData.forEach((month, data) ->
-                    summaryLines.append(String.format("  %s: Доход: %.2f, Расход: %.2f, Баланс: %.2f%n",
-                            month, data.getOrDefault("income", 0.0), data.getOrDefault("expense", 0.0), data.getOrDefault("balance", 0.0))));
-        } else {
-            summaryLines.append("  Нет данных для ежемесячной сводки.\n");
-        }
-
-        Map<String, Map<String, Double>> yearlyData = new TreeMap<>();
-        monthlyData.forEach((monthYear, data) -> {
-            String year = monthYear.substring(0, 4);
-            yearlyData.computeIfAbsent(year, k -> new HashMap<>()).merge("income", data.getOrDefault("income", 0.0), Double::sum);
-            yearlyData.get(year).merge("expense", data.getOrDefault("expense", 0.0), Double::sum);
-            yearlyData.get(year).merge("balance", data.getOrDefault("balance", 0.0), Double::sum);
+        viewRecomputer.submit("summary", this::buildMonthlySummary, summary -> {
+            textArea.setText(summary.text);
+            textArea.setCaretPosition(0);
+            updateDrillDownYears(summary.years);
         });
+    }
 
-        summaryLines.append("\nЕЖЕГОДНАЯ СВОДКА:\n-------------------\n");
-        if (!yearlyData.isEmpty()) {
-            yearlyData.forEach((year, data) ->
-                    summaryLines.append(String.format("  %s: Доход: %.2f, Расход: %.2f, Баланс: %.2f%n",
-                            year, data.getOrDefault("income", 0.0), data.getOrDefault("expense", 0.0), data.getOrDefault("balance", 0.0))));
-        } else {
-            summaryLines.append("  Нет данных для ежегодной сводки.\n");
-        }
+    private SummaryView buildMonthlySummary() {
+        StringWriter summary = new StringWriter();
+        Collection<String> years = reports.writeSummary(new PrintWriter(summary));
+        return new SummaryView(summary.toString(), years);
+    }
 
-        textArea.setText(summaryLines.toString());
+    private void updateDrillDownYears(Collection<String> years) {
+        Object selectedYear = summaryYearComboBox.getSelectedItem();
+        summaryYearComboBox.removeAllItems();
+        summaryYearComboBox.addItem("Все годы");
+        for (String year : years) {
+            summaryYearComboBox.addItem(year);
+        }
+        summaryYearComboBox.setSelectedItem(selectedYear);
     }
 
+    private void updateDrillDownText(JTextArea textArea) {
+        String year = (String) summaryYearComboBox.getSelectedItem();
+        String month = (String) summaryMonthComboBox.getSelectedItem();
+        String category = (String) summaryCategoryComboBox.getSelectedItem();
+        boolean allYears = year == null || summaryYearComboBox.getSelectedIndex() <= 0;
+        boolean allMonths = month == null || summaryMonthComboBox.getSelectedIndex() <= 0;
+        boolean allCategories = category == null || summaryCategoryComboBox.getSelectedIndex() <= 0;
+        String cubeCategory = allCategories ? RollupCube.ALL_CATEGORIES : category;
 
-    private void generateForecast(JTextArea textArea, int numMonths) {
-        if (textArea == null) return;
-        textArea.setText("");
-        StringBuilder forecastContent = new StringBuilder();
-        forecastContent.append("ПРОГНОЗ БАЛАНСА:\n-------------------\n\n");
-
-        double currentBalance = (incomes.stream().mapToDouble(Income::getAmount).sum() + recurringIncomes.stream().mapToDouble(RecurringIncome::getAmount).sum())
-                - (expenses.stream().mapToDouble(Expense::getAmount).sum() + recurringExpenses.stream().mapToDouble(RecurringExpense::getAmount).sum());
+        if (allYears && allCategories) {
+            updateMonthlySummaryText(textArea);
+            return;
+        }
 
+        StringWriter text = new StringWriter();
+        PrintWriter lines = new PrintWriter(text);
+        if (allYears) {
+            lines.print("КАТЕГОРИЯ '" + category + "' ПО ГОДАМ:\n-------------------\n");
+            LedgerReports.writeSummaryLines(lines, LedgerReports.summarizeSeries(rollupCube.series(RollupCube.Level.YEAR, cubeCategory), String::valueOf),
+                    "  Нет данных по категории.\n");
+        } else if (allMonths) {
+            int yearValue = Integer.parseInt(year);
+            int fromMonth = RollupCube.monthKey(YearMonth.of(yearValue, 1));
+            int toMonth = RollupCube.monthKey(YearMonth.of(yearValue, 12));
+            lines.print(year + (allCategories ? "" : " / " + category) + " ПО МЕСЯЦАМ:\n-------------------\n");
+            LedgerReports.writeSummaryLines(lines, LedgerReports.summarizeSeries(rollupCube.series(RollupCube.Level.MONTH, cubeCategory, fromMonth, toMonth),
+                    key -> RollupCube.monthOf(key).toString()), "  Нет данных за выбранный год.\n");
+            if (allCategories) {
+                lines.print("\n" + year + " ПО КАТЕГОРИЯМ:\n-------------------\n");
+                LedgerReports.writeCategoryLines(lines, rollupCube.expensesByCategory(RollupCube.Level.YEAR, RollupCube.yearKey(yearValue)));
+            }
+        } else {
+            YearMonth yearMonth = YearMonth.of(Integer.parseInt(year), Integer.parseInt(month));
+            int fromDay = RollupCube.dayKey(yearMonth.atDay(1));
+            int toDay = RollupCube.dayKey(yearMonth.atEndOfMonth());
+            lines.print(yearMonth + (allCategories ? "" : " / " + category) + " ПО ДНЯМ:\n-------------------\n");
+            LedgerReports.writeSummaryLines(lines, LedgerReports.summarizeSeries(rollupCube.series(RollupCube.Level.DAY, cubeCategory, fromDay, toDay),
+                    key -> RollupCube.dayOf(key).format(DATE_FORMATTER)), "  Нет данных за выбранный месяц.\n");
+            if (allCategories) {
+                lines.print("\n" + yearMonth + " ПО КАТЕГОРИЯМ:\n-------------------\n");
+                LedgerReports.writeCategoryLines(lines, rollupCube.expensesByCategory(RollupCube.Level.MONTH, RollupCube.monthKey(yearMonth)));
+            }
+        }
+        textArea.setText(text.toString());
+        textArea.setCaretPosition(0);
+    }
 
-        forecastContent.append(String.format("Текущий баланс: %.2f%n%n", currentBalance));
+    private static class ForecastView {
+        private final ForecastEngine engine;
+        private final String text;
 
-        double projectedBalance = currentBalance;
-        LocalDate today = LocalDate.now();
+        ForecastView(ForecastEngine engine, String text) {
+            this.engine = engine;
+            this.text = text;
+        }
+    }
 
-        for (int i = 1; i <= numMonths; i++) {
-            LocalDate futureDate = today.plusMonths(i);
-            String forecastMonthYear = futureDate.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+    private void generateForecast(JTextArea textArea, int numMonths) {
+        if (textArea == null) return;
+        LedgerSnapshot snapshot = takeSnapshot();
+        boolean stochastic = stochasticForecastCheckBox.isSelected();
+        viewRecomputer.submit("forecast", () -> buildForecast(snapshot, numMonths, stochastic), forecast -> {
+            forecastEngine = forecast.engine;
+            textArea.setText(forecast.text);
+            textArea.setCaretPosition(0);
+        });
+    }
 
-            double monthlyProjectedIncome = 0;
-            double monthlyProjectedExpense = 0;
+    private ForecastView buildForecast(LedgerSnapshot snapshot, int numMonths, boolean stochastic) {
+        StringWriter forecast = new StringWriter();
+        ForecastEngine engine = reports.writeForecast(snapshot, numMonths, stochastic, new PrintWriter(forecast));
+        return new ForecastView(engine, forecast.toString());
+    }
 
-            for (RecurringIncome rInc : recurringIncomes) {
-                LocalDate startDate = rInc.getDate();
-                long monthsSinceStart = java.time.temporal.ChronoUnit.MONTHS.between(startDate.withDayOfMonth(1), futureDate.withDayOfMonth(1));
+    private ForecastEngine compileForecast(int numMonths) {
+        LedgerSnapshot snapshot = takeSnapshot();
+        return ForecastEngine.compile(snapshot.getRecurringIncomes(), snapshot.getRecurringExpenses(), snapshot.getRates(),
+                snapshot.getCurrentBalance(), YearMonth.now().plusMonths(1), numMonths);
+    }
 
-                if (monthsSinceStart >= 0 && monthsSinceStart < rInc.getRepetitions()) {
-                    monthlyProjectedIncome += rInc.getAmount();
-                }
+    private void showProjectedBalanceAt() {
+        try {
+            YearMonth month = YearMonth.parse(forecastMonthField.getText().trim());
+            int offset = (int) ChronoUnit.MONTHS.between(YearMonth.now(), month);
+            if (offset < 1) {
+                updateStatus("Укажите будущий месяц в формате ГГГГ-ММ.", true);
+                return;
             }
-
-            for (RecurringExpense rExp : recurringExpenses) {
-                LocalDate startDate = rExp.getDate();
-                long monthsSinceStart = java.time.temporal.ChronoUnit.MONTHS.between(startDate.withDayOfMonth(1), futureDate.withDayOfMonth(1));
-
-                if (monthsSinceStart >= 0 && monthsSinceStart < rExp.getRepetitions()) {
-                    monthlyProjectedExpense += rExp.getAmount();
-                }
+            if (forecastEngine == null || forecastEngine.offsetOf(month) >= forecastEngine.getHorizon()) {
+                forecastEngine = compileForecast(offset);
             }
-            projectedBalance += (monthlyProjectedIncome - monthlyProjectedExpense);
-            forecastContent.append(String.format("  %s: Прогнозируемый баланс: %.2f (Доход: %.2f, Расход: %.2f)%n",
-                    forecastMonthYear, projectedBalance, monthlyProjectedIncome, monthlyProjectedExpense));
+            updateStatus(String.format("Прогнозируемый баланс на %s: %.2f", month, forecastEngine.balanceAt(month)));
+        } catch (DateTimeParseException ex) {
+            updateStatus("Неверный формат месяца. Используйте ГГГГ-ММ.", true);
         }
-        textArea.setText(forecastContent.toString());
     }
 
 
@@ -1751,9 +2948,12 @@ public class BudgetApp extends JFrame {
                 return;
             }
 
-            goals.add(new FinancialGoal(name, targetAmount, currentAmount, dueDate));
+            FinancialGoal goal = new FinancialGoal(name, targetAmount, currentAmount, dueDate);
+            goal.setCurrency(selectedCurrency(goalCurrencyComboBox));
+            goals.add(goal);
+            goalsTableModel.goalAdded(goals.size() - 1);
             saveData();
-            updateGoalsDisplay();
+            viewGraph.invalidate(ViewGraph.Part.GOALS);
             clearEntries();
             updateStatus("Цель '" + name + "' успешно добавлена.");
         } catch (NumberFormatException ex) {
@@ -1764,23 +2964,20 @@ public class BudgetApp extends JFrame {
         }
     }
 
-    private void updateGoal() {
+    private int getSelectedGoalIndex() {
         int selectedRow = goalsTable.getSelectedRow();
-        if (selectedRow == -1) {
+        return selectedRow == -1 ? -1 : goalsTable.convertRowIndexToModel(selectedRow);
+    }
+
+    private void updateGoal() {
+        int goalIndex = getSelectedGoalIndex();
+        if (goalIndex == -1) {
             updateStatus("Выберите цель для обновления.", true);
             return;
         }
 
-        String originalGoalName = (String) goalsTableModel.getValueAt(selectedRow, 0);
-        FinancialGoal goalToUpdate = goals.stream()
-                .filter(g -> g.getName().equals(originalGoalName))
-                .findFirst()
-                .orElse(null);
-
-        if (goalToUpdate == null) {
-            updateStatus("Выбранная цель не найдена.", true);
-            return;
-        }
+        FinancialGoal goalToUpdate = goalsTableModel.getGoal(goalIndex);
+        String originalGoalName = goalToUpdate.getName();
 
         try {
             String newName = goalNameField.getText().trim();
@@ -1810,17 +3007,15 @@ public class BudgetApp extends JFrame {
                 return;
             }
 
-            goalToUpdate.setName(newName);
-            goalToUpdate.setTargetAmount(newTargetAmount);
-            goalToUpdate.setCurrentAmount(newCurrentAmount);
-            goalToUpdate.setDueDate(newDueDate);
-
-            saveData();
-            updateGoalsDisplay();
+            FinancialGoal updated = new FinancialGoal(newName, newTargetAmount, newCurrentAmount, newDueDate);
+            updated.setCurrency(selectedCurrency(goalCurrencyComboBox));
+            applyBatch(new LedgerBatch().replace(goalToUpdate, updated));
             clearEntries();
             updateStatus("Цель '" + newName + "' успешно обновлена.");
         } catch (NumberFormatException ex) {
             updateStatus("Неверный формат суммы для цели. Используйте числа.", true);
+        } catch (IllegalArgumentException ex) {
+            updateStatus(ex.getMessage(), true);
         } catch (Exception ex) {
             updateStatus("Произошла ошибка при обновлении цели: " + ex.getMessage(), true);
             ex.printStackTrace();
@@ -1828,96 +3023,65 @@ public class BudgetApp extends JFrame {
     }
 
     private void deleteGoal() {
-        int selectedRow = goalsTable.getSelectedRow();
-        if (selectedRow == -1) {
+        int[] selectedRows = goalsTable.getSelectedRows();
+        if (selectedRows.length == 0) {
             updateStatus("Выберите цель для удаления.", true);
             return;
         }
 
-        String goalName = (String) goalsTableModel.getValueAt(selectedRow, 0);
+        LedgerBatch batch = new LedgerBatch();
+        for (int row : selectedRows) batch.remove(goalsTableModel.getGoal(goalsTable.convertRowIndexToModel(row)));
+        String question = selectedRows.length == 1
+                ? "Вы уверены, что хотите удалить цель '" + goalsTableModel.getGoal(goalsTable.convertRowIndexToModel(selectedRows[0])).getName() + "'?"
+                : "Вы уверены, что хотите удалить выбранные цели (" + selectedRows.length + ")?";
 
-        if (JOptionPane.showConfirmDialog(this, "Вы уверены, что хотите удалить цель '" + goalName + "'?", "Подтверждение удаления", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-            goals.removeIf(g -> g.getName().equals(goalName));
-            saveData();
-            updateGoalsDisplay();
-            clearEntries();
-            updateStatus("Цель '" + goalName + "' успешно удалена.");
+        if (JOptionPane.showConfirmDialog(this, question, "Подтверждение удаления", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+            try {
+                LedgerBatch.Result result = applyBatch(batch);
+                clearEntries();
+                updateStatus("Удалено целей: " + result.removed.size() + ".");
+            } catch (IllegalArgumentException ex) {
+                updateStatus(ex.getMessage(), true);
+            }
         } else {
             updateStatus("Удаление цели отменено.");
         }
     }
 
     private void updateGoalsDisplay() {
-        goalsTableModel.setRowCount(0);
-
-        for (FinancialGoal goal : goals) {
-            double progress = goal.getProgressPercentage();
-            double remaining = goal.getRemainingAmount();
-            String statusTag = "";
-            if (progress >= 100) {
-                statusTag = "Завершена";
-            } else if (goal.getDueDate().isBefore(LocalDate.now())) {
-                statusTag = "Просрочена";
-            }
-
-            goalsTableModel.addRow(new Object[]{
-                    goal.getName(),
-                    String.format("%.2f", goal.getTargetAmount()),
-                    String.format("%.2f", goal.getCurrentAmount()),
-                    String.format("%.1f%%", progress),
-                    String.format("%.2f", remaining),
-                    goal.getDueDate().format(DATE_FORMATTER),
-                    statusTag
-            });
-        }
-        goalsTable.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                String status = (String) table.getModel().getValueAt(row, 6);
-                if (!isSelected) {
-                    if ("Завершена".equals(status)) {
-                        c.setBackground(new Color(212, 237, 218));
-                        c.setForeground(new Color(21, 87, 36));
-                    } else if ("Просрочена".equals(status)) {
-                        c.setBackground(new Color(248, 215, 218));
-                        c.setForeground(new Color(114, 28, 36));
-                    } else {
-                        c.setBackground(table.getBackground());
-                        c.setForeground(table.getForeground());
-                    }
-                } else {
-                    c.setBackground(table.getSelectionBackground());
-                    c.setForeground(table.getSelectionForeground());
-                }
-                return c;
-            }
-        });
+        LedgerSnapshot snapshot = takeSnapshot();
+        viewRecomputer.submit("goals", () -> goalProjection.project(snapshot.getRecurringIncomes(),
+                snapshot.getRecurringExpenses(), snapshot.getProjectionVersion()), goalsTableModel::setProjection);
     }
 
-    private void loadGoalForEdit(int rowIndex) {
-        String goalName = (String) goalsTableModel.getValueAt(rowIndex, 0);
-        FinancialGoal selectedGoal = goals.stream()
-                .filter(g -> g.getName().equals(goalName))
-                .findFirst()
-                .orElse(null);
+    private void loadGoalForEdit(int goalIndex) {
+        FinancialGoal selectedGoal = goalsTableModel.getGoal(goalIndex);
 
-        if (selectedGoal != null) {
-            goalNameField.setText(selectedGoal.getName());
-            applyDefaultStyle(goalNameField);
-            goalTargetAmountField.setText(String.valueOf(selectedGoal.getTargetAmount()));
-            applyDefaultStyle(goalTargetAmountField);
-            goalCurrentAmountField.setText(String.valueOf(selectedGoal.getCurrentAmount()));
-            applyDefaultStyle(goalCurrentAmountField);
-            goalDueDateField.setDate(selectedGoal.getDueDate());
-            updateStatus("Цель '" + goalName + "' загружена для редактирования.");
-        }
+        goalNameField.setText(selectedGoal.getName());
+        applyDefaultStyle(goalNameField);
+        goalTargetAmountField.setText(String.valueOf(selectedGoal.getTargetAmount()));
+        applyDefaultStyle(goalTargetAmountField);
+        goalCurrentAmountField.setText(String.valueOf(selectedGoal.getCurrentAmount()));
+        applyDefaultStyle(goalCurrentAmountField);
+        goalDueDateField.setDate(selectedGoal.getDueDate());
+        selectCurrency(goalCurrencyComboBox, selectedGoal.getCurrency());
+        updateStatus("Цель '" + selectedGoal.getName() + "' загружена для редактирования.");
     }
 
 
+    private static void logStartupTiming(String milestone) {
+        if (!Boolean.getBoolean("budget.startupTiming")) return;
+        long uptime = java.lang.management.ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.println(milestone + ": " + uptime + " мс после запуска JVM");
+    }
+
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(BudgetCli.run(args));
+        }
         SwingUtilities.invokeLater(() -> {
             new BudgetApp().setVisible(true);
+            SwingUtilities.invokeLater(() -> logStartupTiming("Окно готово к работе"));
         });
     }
 }
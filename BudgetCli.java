@@ -0,0 +1,176 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class BudgetCli {
+    static final String DEFAULT_DATA_FILE = "budget_data.csv";
+    private static final int DEFAULT_FORECAST_MONTHS = 12;
+    private static final Set<String> VALUE_OPTIONS = Set.of("file", "out", "search", "category", "month", "year", "months", "dir", "rates", "currency");
+    private static final Set<String> FLAG_OPTIONS = Set.of("stochastic");
+
+    private static final String USAGE = String.join("\n",
+            "Использование: java -cp budget.jar org.example.BudgetCli [--file ФАЙЛ] [--out ФАЙЛ] [--rates ФАЙЛ] [--currency КОД] <команда> [параметры]",
+            "Команды:",
+            "  report   [--search СЛОВО] [--category КАТЕГОРИЯ] [--month ГГГГ-ММ] [--year ГГГГ]",
+            "  summary",
+            "  forecast [--months N] [--stochastic]",
+            "  export   --dir ПАПКА",
+            "По умолчанию данные читаются из " + DEFAULT_DATA_FILE + ", курсы валют из " + FxRates.DEFAULT_FILE + ", вывод идет в stdout.");
+
+    private String command;
+    private final Map<String, String> options = new HashMap<>();
+    private final Set<String> flags = new HashSet<>();
+    private FxRates rates;
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        BudgetCli cli = new BudgetCli();
+        try {
+            cli.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            cli.execute();
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Ошибка ввода-вывода: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String name = arg.substring(2);
+                if (FLAG_OPTIONS.contains(name)) {
+                    flags.add(name);
+                } else if (VALUE_OPTIONS.contains(name)) {
+                    if (i + 1 >= args.length) throw new IllegalArgumentException("Не указано значение для " + arg);
+                    options.put(name, args[++i]);
+                } else {
+                    throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+                }
+            } else if (command == null) {
+                command = arg;
+            } else {
+                throw new IllegalArgumentException("Лишний аргумент: " + arg);
+            }
+        }
+        if (command == null) throw new IllegalArgumentException("Не указана команда.");
+    }
+
+    private void execute() throws IOException {
+        File dataFile = new File(options.getOrDefault("file", DEFAULT_DATA_FILE));
+        if (!dataFile.isFile()) throw new IOException("Файл данных не найден: " + dataFile);
+        rates = loadRates();
+
+        switch (command) {
+            case "report": {
+                Ledger ledger = Ledger.read(dataFile, progress -> { });
+                ExpenseDistributionIndex distribution = new ExpenseDistributionIndex();
+                PeriodSpendIndex periodSpend = new PeriodSpendIndex();
+                LedgerReports reports = new LedgerReports(null, distribution, periodSpend);
+                index(ledger, distribution, periodSpend);
+                LedgerSnapshot snapshot = snapshot(ledger, 0, distribution.getVersion());
+                try (PrintWriter out = openOutput()) {
+                    reports.writeReport(snapshot, options.get("search"), options.get("category"), options.get("month"), options.get("year"), out);
+                    checkOutput(out);
+                }
+                break;
+            }
+            case "summary": {
+                Ledger ledger = Ledger.read(dataFile, progress -> { });
+                RollupCube cube = new RollupCube();
+                index(ledger, cube);
+                try (PrintWriter out = openOutput()) {
+                    new LedgerReports(cube, null, null).writeSummary(out);
+                    checkOutput(out);
+                }
+                break;
+            }
+            case "forecast": {
+                int months = parseMonths(options.getOrDefault("months", String.valueOf(DEFAULT_FORECAST_MONTHS)));
+                Ledger ledger = Ledger.read(dataFile, progress -> { });
+                RollupCube cube = new RollupCube();
+                index(ledger, cube);
+                LedgerReports reports = new LedgerReports(cube, null, null);
+                LedgerSnapshot snapshot = snapshot(ledger, reports.currentBalance(), 0);
+                try (PrintWriter out = openOutput()) {
+                    reports.writeForecast(snapshot, months, flags.contains("stochastic"), out);
+                    checkOutput(out);
+                }
+                break;
+            }
+            case "export": {
+                String dir = options.get("dir");
+                if (dir == null) throw new IllegalArgumentException("Для экспорта укажите --dir ПАПКА.");
+                File outputDir = new File(dir);
+                if (!outputDir.isDirectory() && !outputDir.mkdirs()) throw new IOException("Не удалось создать папку " + outputDir);
+                LedgerReports.exportCsv(Ledger.read(dataFile, progress -> { }), outputDir);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Неизвестная команда: " + command + "\n" + USAGE);
+        }
+    }
+
+    private FxRates loadRates() throws IOException {
+        String base = options.getOrDefault("currency", System.getProperty("budget.currency", FxRates.DEFAULT_BASE));
+        File file = new File(options.getOrDefault("rates", System.getProperty("budget.fx.file", FxRates.DEFAULT_FILE)));
+        if (file.isFile()) return FxRates.load(file, base);
+        if (options.containsKey("rates")) throw new IOException("Файл курсов не найден: " + file);
+        return FxRates.empty(base);
+    }
+
+    private void index(Ledger ledger, LedgerAggregate... aggregates) {
+        LedgerIndexes indexes = new LedgerIndexes(rates);
+        for (LedgerAggregate aggregate : aggregates) indexes.register(aggregate);
+        indexes.rebuild(ledger.getIncomes(), ledger.getExpenses(), ledger.getRecurringIncomes(), ledger.getRecurringExpenses());
+    }
+
+    private LedgerSnapshot snapshot(Ledger ledger, double currentBalance, long distributionVersion) {
+        return new LedgerSnapshot(ledger.getIncomes(), ledger.getExpenses(), ledger.getRecurringIncomes(), ledger.getRecurringExpenses(),
+                ledger.getGoals(), ledger.getBudget(), ledger.getBudgetPeriods(), rates, currentBalance, distributionVersion, 0);
+    }
+
+    private static int parseMonths(String text) {
+        try {
+            int months = Integer.parseInt(text);
+            if (months > 0) return months;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Количество месяцев должно быть положительным числом: " + text);
+    }
+
+    private PrintWriter openOutput() throws IOException {
+        String path = options.get("out");
+        OutputStream stream = path == null ? System.out : new FileOutputStream(path);
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    private static void checkOutput(PrintWriter out) throws IOException {
+        if (out.checkError()) throw new IOException("Не удалось записать результат.");
+    }
+}
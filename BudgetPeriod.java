@@ -0,0 +1,88 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+class BudgetPeriod {
+    static final String ALL_TIME_LABEL = "за все время";
+    private static final long FIRST_MONDAY = 4;
+
+    enum Unit {
+        WEEK("неделя"), MONTH("месяц"), YEAR("год");
+
+        private final String label;
+
+        Unit(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int bucketOf(LocalDate date) {
+            switch (this) {
+                case WEEK: return (int) Math.floorDiv(date.toEpochDay() - FIRST_MONDAY, 7);
+                case MONTH: return RollupCube.monthKey(YearMonth.from(date));
+                default: return RollupCube.yearKey(date.getYear());
+            }
+        }
+
+        public LocalDate start(int bucket) {
+            switch (this) {
+                case WEEK: return LocalDate.ofEpochDay(bucket * 7L + FIRST_MONDAY);
+                case MONTH: return RollupCube.monthOf(bucket).atDay(1);
+                default: return LocalDate.of(bucket, 1, 1);
+            }
+        }
+
+        public LocalDate end(int bucket) {
+            switch (this) {
+                case WEEK: return start(bucket).plusDays(6);
+                case MONTH: return RollupCube.monthOf(bucket).atEndOfMonth();
+                default: return LocalDate.of(bucket, 12, 31);
+            }
+        }
+
+        static Unit fromLabel(String label) {
+            for (Unit unit : values()) {
+                if (unit.label.equals(label)) return unit;
+            }
+            return null;
+        }
+    }
+
+    private final Unit unit;
+    private final boolean rollover;
+
+    BudgetPeriod(Unit unit, boolean rollover) {
+        this.unit = unit;
+        this.rollover = rollover;
+    }
+
+    public Unit getUnit() { return unit; }
+    public boolean isRollover() { return rollover; }
+
+    public String describe() {
+        return unit.getLabel() + (rollover ? ", с переносом" : "");
+    }
+
+    static BudgetPeriod parse(String unit, String rollover) {
+        return new BudgetPeriod(Unit.valueOf(unit), "1".equals(rollover));
+    }
+
+    @Override
+    public String toString() {
+        return unit.name() + ";" + (rollover ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BudgetPeriod && ((BudgetPeriod) other).unit == unit && ((BudgetPeriod) other).rollover == rollover;
+    }
+
+    @Override
+    public int hashCode() {
+        return unit.hashCode() * 2 + (rollover ? 1 : 0);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+class CategoryChartPanel extends ChartPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_BARS = 10;
+
+    private List<String> labels = Collections.emptyList();
+    private double[] amounts = new double[0];
+    private double total;
+
+    public void setData(Map<String, Double> expensesByCategory) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(expensesByCategory.entrySet());
+        entries.removeIf(entry -> entry.getValue() <= 0);
+        entries.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+
+        int bars = Math.min(entries.size(), MAX_BARS);
+        List<String> newLabels = new ArrayList<>();
+        double[] newAmounts = new double[bars];
+        double newTotal = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            double amount = entries.get(i).getValue();
+            newTotal += amount;
+            if (i < bars - 1 || entries.size() == bars) {
+                String category = entries.get(i).getKey();
+                newLabels.add(category.isEmpty() ? category : category.substring(0, 1).toUpperCase() + category.substring(1));
+                newAmounts[i] = amount;
+            } else {
+                newAmounts[bars - 1] += amount;
+            }
+        }
+        if (newLabels.size() < bars) newLabels.add("Прочее");
+
+        labels = newLabels;
+        amounts = newAmounts;
+        total = newTotal;
+        invalidateRaster();
+    }
+
+    @Override
+    protected void render(Graphics2D g, int width, int height) {
+        if (amounts.length == 0) {
+            drawEmpty(g, width, height, "Нет расходов для отображения.");
+            return;
+        }
+
+        FontMetrics metrics = g.getFontMetrics();
+        int labelWidth = 0;
+        for (String label : labels) labelWidth = Math.max(labelWidth, metrics.stringWidth(label));
+        labelWidth = Math.min(labelWidth, width / 3);
+        int valueWidth = metrics.stringWidth("000000000.00 (100.0%)");
+        int left = labelWidth + 12;
+        int barArea = Math.max(width - left - valueWidth - 12, 10);
+        int rowHeight = Math.max((height - 8) / amounts.length, 1);
+        int barHeight = Math.max(rowHeight - 6, 1);
+        double max = amounts[0];
+        for (double amount : amounts) max = Math.max(max, amount);
+
+        for (int i = 0; i < amounts.length; i++) {
+            int y = 4 + i * rowHeight;
+            int textY = y + (barHeight + metrics.getAscent()) / 2;
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(clip(labels.get(i), metrics, labelWidth), 6, textY);
+
+            int barWidth = (int) Math.round(barArea * amounts[i] / max);
+            g.setColor(PALETTE[i % PALETTE.length]);
+            g.fillRect(left, y, Math.max(barWidth, 1), barHeight);
+
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(String.format("%.2f (%.1f%%)", amounts[i], 100 * amounts[i] / total), left + barWidth + 6, textY);
+        }
+    }
+
+    private static String clip(String label, FontMetrics metrics, int maxWidth) {
+        if (metrics.stringWidth(label) <= maxWidth) return label;
+        String clipped = label;
+        while (clipped.length() > 1 && metrics.stringWidth(clipped + "…") > maxWidth) {
+            clipped = clipped.substring(0, clipped.length() - 1);
+        }
+        return clipped + "…";
+    }
+}
@@ -0,0 +1,166 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+class CategoryRules {
+    static final String UNCATEGORIZED = "прочее";
+    static final CategoryRules EMPTY = new CategoryRules(new LinkedHashMap<>());
+
+    private final String[] categories;
+    private final int[] keywordLengths;
+    private final int[] transitionStart;
+    private final char[] transitionChars;
+    private final int[] transitionTargets;
+    private final int[] failure;
+    private final int[] best;
+
+    CategoryRules(Map<String, String> rules) {
+        categories = new String[rules.size()];
+        keywordLengths = new int[rules.size()];
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> output = new ArrayList<>();
+        trie.add(new HashMap<>());
+        output.add(-1);
+
+        int rule = 0;
+        for (Map.Entry<String, String> entry : rules.entrySet()) {
+            String keyword = normalize(entry.getKey().trim());
+            categories[rule] = entry.getValue();
+            keywordLengths[rule] = keyword.length();
+            if (!keyword.isEmpty()) {
+                int node = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    Integer next = trie.get(node).get(keyword.charAt(i));
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<>());
+                        output.add(-1);
+                        trie.get(node).put(keyword.charAt(i), next);
+                    }
+                    node = next;
+                }
+                if (output.get(node) < 0) output.set(node, rule);
+            }
+            rule++;
+        }
+
+        int nodes = trie.size();
+        transitionStart = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) transitionStart[node + 1] = transitionStart[node] + trie.get(node).size();
+        transitionChars = new char[transitionStart[nodes]];
+        transitionTargets = new int[transitionStart[nodes]];
+        for (int node = 0; node < nodes; node++) {
+            Character[] labels = trie.get(node).keySet().toArray(new Character[0]);
+            Arrays.sort(labels);
+            for (int i = 0; i < labels.length; i++) {
+                transitionChars[transitionStart[node] + i] = labels[i];
+                transitionTargets[transitionStart[node] + i] = trie.get(node).get(labels[i]);
+            }
+        }
+
+        failure = new int[nodes];
+        best = new int[nodes];
+        for (int node = 0; node < nodes; node++) best[node] = output.get(node);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int t = transitionStart[0]; t < transitionStart[1]; t++) queue.add(transitionTargets[t]);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            best[node] = better(best[node], best[failure[node]]);
+            for (int t = transitionStart[node]; t < transitionStart[node + 1]; t++) {
+                int child = transitionTargets[t];
+                int fallback = failure[node];
+                int target;
+                while ((target = step(fallback, transitionChars[t])) < 0 && fallback != 0) fallback = failure[fallback];
+                failure[child] = target < 0 ? 0 : target;
+                queue.add(child);
+            }
+        }
+    }
+
+    public String categorize(String description) {
+        if (description == null || categories.length == 0) return null;
+        int node = 0;
+        int found = -1;
+        for (int i = 0; i < description.length(); i++) {
+            char c = normalize(description.charAt(i));
+            int next;
+            while ((next = step(node, c)) < 0 && node != 0) node = failure[node];
+            node = next < 0 ? 0 : next;
+            found = better(found, best[node]);
+        }
+        return found < 0 ? null : categories[found];
+    }
+
+    public boolean isEmpty() {
+        return categories.length == 0;
+    }
+
+    static Map<String, String> parse(String text) {
+        Map<String, String> rules = new LinkedHashMap<>();
+        String[] lines = text.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int arrow = line.indexOf('→');
+            int arrowLength = 1;
+            if (arrow < 0) {
+                arrow = line.indexOf("->");
+                arrowLength = 2;
+            }
+            if (arrow < 0) throw new IllegalArgumentException("Строка " + (i + 1) + ": нет стрелки → между словами и категорией.");
+            String category = line.substring(arrow + arrowLength).trim().toLowerCase();
+            if (category.isEmpty() || category.contains(";")) {
+                throw new IllegalArgumentException("Строка " + (i + 1) + ": неверная категория.");
+            }
+            for (String keyword : line.substring(0, arrow).split("\\|")) {
+                String normalized = normalize(keyword.trim());
+                if (normalized.isEmpty()) continue;
+                if (normalized.contains(";")) throw new IllegalArgumentException("Строка " + (i + 1) + ": ключевое слово не может содержать ';'.");
+                rules.putIfAbsent(normalized, category);
+            }
+        }
+        return rules;
+    }
+
+    static String format(Map<String, String> rules) {
+        Map<String, List<String>> byCategory = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : rules.entrySet()) {
+            byCategory.computeIfAbsent(entry.getValue(), c -> new ArrayList<>()).add(entry.getKey());
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : byCategory.entrySet()) {
+            text.append(String.join("|", entry.getValue())).append(" → ").append(entry.getKey()).append('\n');
+        }
+        return text.toString();
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) normalized.append(normalize(text.charAt(i)));
+        return normalized.toString();
+    }
+
+    private static char normalize(char c) {
+        c = Character.toLowerCase(c);
+        return c == 'ё' ? 'е' : c;
+    }
+
+    private int step(int node, char c) {
+        int index = Arrays.binarySearch(transitionChars, transitionStart[node], transitionStart[node + 1], c);
+        return index < 0 ? -1 : transitionTargets[index];
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        if (keywordLengths[a] != keywordLengths[b]) return keywordLengths[a] > keywordLengths[b] ? a : b;
+        return Math.min(a, b);
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+class CategoryTree {
+    static final char SEPARATOR = '/';
+    private static final Map<String, List<String>> LINEAGES = new ConcurrentHashMap<>();
+
+    private final String[] paths;
+    private final int[] parents;
+    private final int[] depths;
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private CategoryTree(List<String> preOrder) {
+        int size = preOrder.size();
+        paths = preOrder.toArray(new String[0]);
+        parents = new int[size];
+        depths = new int[size];
+        for (int id = 0; id < size; id++) {
+            ids.put(paths[id], id);
+            String parent = parentOf(paths[id]);
+            parents[id] = parent == null ? -1 : ids.get(parent);
+            depths[id] = parent == null ? 0 : depths[parents[id]] + 1;
+        }
+    }
+
+    static CategoryTree of(Collection<String> categories) {
+        Map<String, TreeMap<String, String>> children = new HashMap<>();
+        children.put("", new TreeMap<>());
+        for (String category : categories) {
+            String path = normalize(category);
+            String child = null;
+            while (true) {
+                TreeMap<String, String> own = children.get(path);
+                boolean known = own != null;
+                if (!known) children.put(path, own = new TreeMap<>());
+                if (child != null) own.put(labelOf(child), child);
+                if (known) break;
+                child = path;
+                String parent = parentOf(path);
+                path = parent == null ? "" : parent;
+            }
+        }
+
+        List<String> preOrder = new ArrayList<>(children.size() - 1);
+        Deque<String> stack = new ArrayDeque<>(children.get("").values());
+        while (!stack.isEmpty()) {
+            String path = stack.pop();
+            preOrder.add(path);
+            for (String child : children.get(path).descendingMap().values()) stack.push(child);
+        }
+        return new CategoryTree(preOrder);
+    }
+
+    public int size() {
+        return paths.length;
+    }
+
+    public int id(String category) {
+        Integer id = ids.get(normalize(category));
+        return id == null ? -1 : id;
+    }
+
+    public String label(int id) {
+        return labelOf(paths[id]);
+    }
+
+    public int depth(int id) {
+        return depths[id];
+    }
+
+    public double[] rollup(Map<String, Double> direct) {
+        double[] totals = new double[paths.length];
+        for (Map.Entry<String, Double> entry : direct.entrySet()) {
+            int id = id(entry.getKey());
+            if (id >= 0) totals[id] += entry.getValue();
+        }
+        for (int id = paths.length - 1; id >= 0; id--) {
+            if (parents[id] >= 0) totals[parents[id]] += totals[id];
+        }
+        return totals;
+    }
+
+    public double total(double[] totals, String category) {
+        int id = id(category);
+        return id < 0 ? 0 : totals[id];
+    }
+
+    static String normalize(String category) {
+        StringBuilder path = new StringBuilder(category.length());
+        for (String part : category.split(String.valueOf(SEPARATOR))) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) continue;
+            if (path.length() > 0) path.append(SEPARATOR);
+            path.append(trimmed);
+        }
+        return path.toString();
+    }
+
+    // Called for every indexed expense, so the split lineage is kept per raw category name.
+    static List<String> withAncestors(String category) {
+        return LINEAGES.computeIfAbsent(category, key -> {
+            List<String> lineage = new ArrayList<>();
+            for (String path = normalize(key); path != null; path = parentOf(path)) lineage.add(path);
+            return Collections.unmodifiableList(lineage);
+        });
+    }
+
+    static boolean isWithin(String category, String ancestor) {
+        return category.startsWith(ancestor)
+                && (category.length() == ancestor.length() || category.charAt(ancestor.length()) == SEPARATOR);
+    }
+
+    private static String parentOf(String path) {
+        int separator = path.lastIndexOf(SEPARATOR);
+        return separator < 0 ? null : path.substring(0, separator);
+    }
+
+    private static String labelOf(String path) {
+        return path.substring(path.lastIndexOf(SEPARATOR) + 1);
+    }
+}
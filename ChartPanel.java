@@ -0,0 +1,61 @@
+package org.example;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+abstract class ChartPanel extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    static final Color[] PALETTE = {
+            new Color(66, 133, 244), new Color(219, 68, 55), new Color(244, 180, 0), new Color(15, 157, 88),
+            new Color(171, 71, 188), new Color(0, 172, 193), new Color(255, 112, 67), new Color(158, 157, 36),
+            new Color(92, 107, 192), new Color(240, 98, 146), new Color(120, 144, 156)
+    };
+
+    private BufferedImage raster;
+
+    ChartPanel() {
+        setOpaque(true);
+        setBackground(Color.WHITE);
+    }
+
+    protected void invalidateRaster() {
+        raster = null;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+        if (raster == null || raster.getWidth() != width || raster.getHeight() != height) {
+            raster = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = raster.createGraphics();
+            try {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g2.setColor(getBackground());
+                g2.fillRect(0, 0, width, height);
+                g2.setFont(getFont() != null ? getFont() : new Font("SansSerif", Font.PLAIN, 11));
+                render(g2, width, height);
+            } finally {
+                g2.dispose();
+            }
+        }
+        g.drawImage(raster, 0, 0, null);
+    }
+
+    protected void drawEmpty(Graphics2D g, int width, int height, String message) {
+        g.setColor(Color.GRAY);
+        int textWidth = g.getFontMetrics().stringWidth(message);
+        g.drawString(message, (width - textWidth) / 2, height / 2);
+    }
+
+    protected abstract void render(Graphics2D g, int width, int height);
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import java.time.LocalDate;
+
+class DailySpendingIndex implements RebuildableAggregate {
+    private static final int INITIAL_CAPACITY = 4 * 366;
+
+    private double[] totals = new double[0];
+    private int firstDay;
+
+    @Override
+    public void onIncome(Income income, int sign) {
+    }
+
+    @Override
+    public synchronized void onExpense(Expense expense, int sign) {
+        int day = RollupCube.dayKey(expense.getDate());
+        ensureCovers(day);
+        totals[day - firstDay] += sign * expense.getAmount();
+    }
+
+    @Override
+    public synchronized void clear() {
+        totals = new double[0];
+    }
+
+    @Override
+    public RebuildableAggregate detached() {
+        return new DailySpendingIndex();
+    }
+
+    @Override
+    public synchronized void adopt(RebuildableAggregate built) {
+        DailySpendingIndex other = (DailySpendingIndex) built;
+        totals = other.totals;
+        firstDay = other.firstDay;
+    }
+
+    public synchronized double spentOn(LocalDate date) {
+        int offset = RollupCube.dayKey(date) - firstDay;
+        return offset >= 0 && offset < totals.length ? totals[offset] : 0;
+    }
+
+    public synchronized double[] range(LocalDate from, LocalDate to) {
+        int fromDay = RollupCube.dayKey(from);
+        double[] result = new double[Math.max(RollupCube.dayKey(to) - fromDay + 1, 0)];
+        int start = Math.max(fromDay, firstDay);
+        int end = Math.min(fromDay + result.length, firstDay + totals.length);
+        if (start < end) System.arraycopy(totals, start - firstDay, result, start - fromDay, end - start);
+        return result;
+    }
+
+    private void ensureCovers(int day) {
+        if (totals.length == 0) {
+            totals = new double[INITIAL_CAPACITY];
+            firstDay = day - INITIAL_CAPACITY / 2;
+            return;
+        }
+        if (day >= firstDay && day < firstDay + totals.length) return;
+
+        int newFirst = Math.min(firstDay, day);
+        int newEnd = Math.max(firstDay + totals.length, day + 1);
+        int capacity = Math.max(totals.length * 2, newEnd - newFirst);
+        if (day < firstDay) newFirst = newEnd - capacity;
+        double[] grown = new double[capacity];
+        System.arraycopy(totals, 0, grown, firstDay - newFirst, totals.length);
+        totals = grown;
+        firstDay = newFirst;
+    }
+}
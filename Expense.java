@@ -0,0 +1,37 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+class Expense {
+    private double amount;
+    private String description;
+    private String category;
+    private LocalDate date;
+    private String currency;
+
+    public Expense(double amount, String description, String category, LocalDate date) {
+        this.amount = amount;
+        this.description = description;
+        this.category = category;
+        this.date = date;
+    }
+
+    public double getAmount() { return amount; }
+    public String getDescription() { return description; }
+    public String getCategory() { return category; }
+    public LocalDate getDate() { return date; }
+
+    public void setAmount(double amount) { this.amount = amount; }
+    public void setDescription(String description) { this.description = description; }
+    public void setCategory(String category) { this.category = category; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    @Override
+    public String toString() {
+        return String.format("Расход: %.2f, Описание: %s, Категория: %s, Дата: %s", amount, description, category, date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ObjDoubleConsumer;
+
+class ExpenseDistributionIndex implements RebuildableAggregate {
+    interface CellSource {
+        void forEachAmount(String category, Set<YearMonth> months, ObjDoubleConsumer<YearMonth> sink);
+    }
+
+    private final Map<String, NavigableMap<YearMonth, TDigest>> cells = new HashMap<>();
+    private final Map<String, Set<YearMonth>> staleCells = new HashMap<>();
+    private long version;
+
+    @Override
+    public void onIncome(Income income, int sign) {
+    }
+
+    @Override
+    public synchronized void onExpense(Expense expense, int sign) {
+        version++;
+        YearMonth month = YearMonth.from(expense.getDate());
+        if (sign > 0) {
+            Set<YearMonth> stale = staleCells.get(expense.getCategory());
+            if (stale != null && stale.contains(month)) return;
+            cells.computeIfAbsent(expense.getCategory(), k -> new TreeMap<>())
+                    .computeIfAbsent(month, k -> new TDigest())
+                    .add(expense.getAmount());
+        } else {
+            staleCells.computeIfAbsent(expense.getCategory(), k -> new HashSet<>()).add(month);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        version++;
+        cells.clear();
+        staleCells.clear();
+    }
+
+    @Override
+    public RebuildableAggregate detached() {
+        return new ExpenseDistributionIndex();
+    }
+
+    @Override
+    public synchronized void adopt(RebuildableAggregate built) {
+        ExpenseDistributionIndex other = (ExpenseDistributionIndex) built;
+        version++;
+        cells.clear();
+        cells.putAll(other.cells);
+        staleCells.clear();
+        staleCells.putAll(other.staleCells);
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public TDigest distribution(String category, YearMonth from, YearMonth to, CellSource source, long sourceVersion) {
+        Set<YearMonth> stale = new HashSet<>();
+        synchronized (this) {
+            for (YearMonth month : staleCells.getOrDefault(category, Set.of())) {
+                if (inRange(month, from, to)) stale.add(month);
+            }
+        }
+        Map<YearMonth, TDigest> rebuilt = new HashMap<>();
+        if (!stale.isEmpty()) {
+            ViewRecomputer.checkCancelled();
+            for (YearMonth month : stale) rebuilt.put(month, new TDigest());
+            source.forEachAmount(category, stale, (month, amount) -> rebuilt.get(month).add(amount));
+        }
+
+        synchronized (this) {
+            if (version == sourceVersion) install(category, rebuilt);
+
+            TDigest merged = new TDigest();
+            for (Map.Entry<YearMonth, TDigest> entry : rebuilt.entrySet()) {
+                if (inRange(entry.getKey(), from, to)) merged.merge(entry.getValue());
+            }
+            NavigableMap<YearMonth, TDigest> byMonth = cells.get(category);
+            if (byMonth == null) return merged;
+
+            NavigableMap<YearMonth, TDigest> range = byMonth;
+            if (from != null && to != null) range = byMonth.subMap(from, true, to, true);
+            else if (from != null) range = byMonth.tailMap(from, true);
+            else if (to != null) range = byMonth.headMap(to, true);
+
+            for (Map.Entry<YearMonth, TDigest> entry : range.entrySet()) {
+                if (!rebuilt.containsKey(entry.getKey())) merged.merge(entry.getValue());
+            }
+            return merged;
+        }
+    }
+
+    private void install(String category, Map<YearMonth, TDigest> rebuilt) {
+        Set<YearMonth> stale = staleCells.get(category);
+        if (stale == null) return;
+        NavigableMap<YearMonth, TDigest> byMonth = cells.computeIfAbsent(category, k -> new TreeMap<>());
+        for (Map.Entry<YearMonth, TDigest> entry : rebuilt.entrySet()) {
+            stale.remove(entry.getKey());
+            if (entry.getValue().isEmpty()) byMonth.remove(entry.getKey());
+            else byMonth.put(entry.getKey(), entry.getValue());
+        }
+        if (stale.isEmpty()) staleCells.remove(category);
+        if (byMonth.isEmpty()) cells.remove(category);
+    }
+
+    private static boolean inRange(YearMonth month, YearMonth from, YearMonth to) {
+        return (from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to));
+    }
+}
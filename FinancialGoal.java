@@ -0,0 +1,46 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+class FinancialGoal {
+    private String name;
+    private double targetAmount;
+    private double currentAmount;
+    private LocalDate dueDate;
+    private String currency;
+
+    public FinancialGoal(String name, double targetAmount, double currentAmount, LocalDate dueDate) {
+        this.name = name;
+        this.targetAmount = targetAmount;
+        this.currentAmount = currentAmount;
+        this.dueDate = dueDate;
+    }
+
+    public String getName() { return name; }
+    public double getTargetAmount() { return targetAmount; }
+    public double getCurrentAmount() { return currentAmount; }
+    public LocalDate getDueDate() { return dueDate; }
+
+    public void setName(String name) { this.name = name; }
+    public void setTargetAmount(double targetAmount) { this.targetAmount = targetAmount; }
+    public void setCurrentAmount(double currentAmount) { this.currentAmount = currentAmount; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public double getProgressPercentage() {
+        return (targetAmount > 0) ? (currentAmount / targetAmount) * 100 : 0;
+    }
+
+    public double getRemainingAmount() {
+        return targetAmount - currentAmount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Цель: %s, Целевая сумма: %.2f, Текущая сумма: %.2f, Дата завершения: %s",
+                name, targetAmount, currentAmount, dueDate.format(DateTimeFormatter.ISO_LOCAL_DATE));
+    }
+}
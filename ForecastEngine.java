@@ -0,0 +1,156 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+class ForecastEngine {
+    private final YearMonth firstMonth;
+    private final double startingBalance;
+    private final double[] monthlyIncome;
+    private final double[] monthlyExpense;
+    private final double[] balance;
+
+    private ForecastEngine(YearMonth firstMonth, double startingBalance, double[] monthlyIncome, double[] monthlyExpense) {
+        this.firstMonth = firstMonth;
+        this.startingBalance = startingBalance;
+        this.monthlyIncome = monthlyIncome;
+        this.monthlyExpense = monthlyExpense;
+        this.balance = new double[monthlyIncome.length];
+
+        double running = startingBalance;
+        for (int i = 0; i < balance.length; i++) {
+            running += monthlyIncome[i] - monthlyExpense[i];
+            balance[i] = running;
+        }
+    }
+
+    static class Builder {
+        private final YearMonth firstMonth;
+        private final double[] incomeDelta;
+        private final double[] expenseDelta;
+
+        Builder(YearMonth firstMonth, int horizon) {
+            if (horizon < 0) throw new IllegalArgumentException("Горизонт прогноза не может быть отрицательным: " + horizon);
+            this.firstMonth = firstMonth;
+            this.incomeDelta = new double[horizon + 1];
+            this.expenseDelta = new double[horizon + 1];
+        }
+
+        public Builder addIncome(YearMonth startMonth, int repetitions, double amount) {
+            addActiveRange(incomeDelta, firstMonth, startMonth, repetitions, amount);
+            return this;
+        }
+
+        public Builder addExpense(YearMonth startMonth, int repetitions, double amount) {
+            addActiveRange(expenseDelta, firstMonth, startMonth, repetitions, amount);
+            return this;
+        }
+
+        public Builder addIncome(RecurrenceRule rule, LocalDate startDate, int repetitions, double amount) {
+            addSchedule(incomeDelta, rule, startDate, repetitions, amount);
+            return this;
+        }
+
+        public Builder addExpense(RecurrenceRule rule, LocalDate startDate, int repetitions, double amount) {
+            addSchedule(expenseDelta, rule, startDate, repetitions, amount);
+            return this;
+        }
+
+        private void addSchedule(double[] delta, RecurrenceRule rule, LocalDate startDate, int repetitions, double amount) {
+            long endIndex = rule.endIndex(startDate, repetitions);
+            if (endIndex <= 0) return;
+            if (rule.isMonthAligned()) {
+                addActiveRange(delta, firstMonth, YearMonth.from(startDate), endIndex, amount);
+                return;
+            }
+
+            int horizon = delta.length - 1;
+            int firstOffset = (int) Math.max(0, (long) RollupCube.monthKey(YearMonth.from(startDate)) - RollupCube.monthKey(firstMonth));
+            long lastOffset = endIndex == Long.MAX_VALUE ? horizon - 1
+                    : (long) RollupCube.monthKey(YearMonth.from(rule.occurrence(startDate, endIndex - 1))) - RollupCube.monthKey(firstMonth);
+            int stop = (int) Math.min(lastOffset, horizon - 1);
+
+            for (int m = firstOffset; m <= stop; m++) {
+                YearMonth month = firstMonth.plusMonths(m);
+                long occurrences = rule.countBetween(startDate, repetitions, month.atDay(1), month.atEndOfMonth());
+                if (occurrences > 0) {
+                    delta[m] += occurrences * amount;
+                    delta[m + 1] -= occurrences * amount;
+                }
+            }
+        }
+
+        public ForecastEngine build(double startingBalance) {
+            int horizon = incomeDelta.length - 1;
+            return new ForecastEngine(firstMonth, startingBalance, prefixSum(incomeDelta, horizon), prefixSum(expenseDelta, horizon));
+        }
+    }
+
+    public static ForecastEngine compile(List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses, FxRates rates,
+                                         double startingBalance, YearMonth firstMonth, int horizon) {
+        Builder builder = new Builder(firstMonth, horizon);
+        LocalDate today = LocalDate.now();
+        for (RecurringIncome rInc : recurringIncomes) {
+            builder.addIncome(rInc.getRule(), rInc.getDate(), rInc.getRepetitions(), rates.toBase(rInc.getAmount(), rInc.getCurrency(), today));
+        }
+        for (RecurringExpense rExp : recurringExpenses) {
+            builder.addExpense(rExp.getRule(), rExp.getDate(), rExp.getRepetitions(), rates.toBase(rExp.getAmount(), rExp.getCurrency(), today));
+        }
+        return builder.build(startingBalance);
+    }
+
+    public YearMonth getFirstMonth() { return firstMonth; }
+    public double getStartingBalance() { return startingBalance; }
+    public int getHorizon() { return balance.length; }
+
+    public int offsetOf(YearMonth month) {
+        return RollupCube.monthKey(month) - RollupCube.monthKey(firstMonth);
+    }
+
+    public double incomeAt(int offset) {
+        return monthlyIncome[offset];
+    }
+
+    public double expenseAt(int offset) {
+        return monthlyExpense[offset];
+    }
+
+    public double balanceAt(int offset) {
+        if (offset < 0) return startingBalance;
+        return balance[offset];
+    }
+
+    public double balanceAt(YearMonth month) {
+        int offset = offsetOf(month);
+        if (offset >= balance.length) {
+            throw new IllegalArgumentException("Месяц " + month + " за пределами горизонта прогноза.");
+        }
+        return balanceAt(offset);
+    }
+
+    public double netFlowBetween(int fromOffset, int toOffset) {
+        return balanceAt(toOffset) - balanceAt(fromOffset - 1);
+    }
+
+    private static void addActiveRange(double[] delta, YearMonth firstMonth, YearMonth startMonth, long repetitions, double amount) {
+        int horizon = delta.length - 1;
+        long from = (long) RollupCube.monthKey(startMonth) - RollupCube.monthKey(firstMonth);
+        long to = repetitions == Long.MAX_VALUE ? Long.MAX_VALUE : from + repetitions;
+        int lo = (int) Math.max(from, 0);
+        int hi = (int) Math.min(to, horizon);
+        if (lo >= hi) return;
+        delta[lo] += amount;
+        delta[hi] -= amount;
+    }
+
+    private static double[] prefixSum(double[] delta, int horizon) {
+        double[] values = new double[horizon];
+        double running = 0;
+        for (int i = 0; i < horizon; i++) {
+            running += delta[i];
+            values[i] = running;
+        }
+        return values;
+    }
+}
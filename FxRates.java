@@ -0,0 +1,142 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+class FxRates {
+    static final String DEFAULT_FILE = "fx_rates.csv";
+    static final String DEFAULT_BASE = "RUB";
+
+    private final String base;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> currencies = new ArrayList<>();
+    private final long[] firstDays;
+    private final double[][] rates;
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+
+    private FxRates(String base, Map<String, TreeMap<Long, Double>> history) {
+        this.base = base;
+        firstDays = new long[history.size()];
+        rates = new double[history.size()][];
+        for (Map.Entry<String, TreeMap<Long, Double>> entry : history.entrySet()) {
+            int slot = currencies.size();
+            TreeMap<Long, Double> days = entry.getValue();
+            long first = days.firstKey();
+            double[] table = new double[(int) (days.lastKey() - first + 1)];
+            double rate = days.firstEntry().getValue();
+            for (int i = 0; i < table.length; i++) {
+                Double quoted = days.get(first + i);
+                if (quoted != null) rate = quoted;
+                table[i] = rate;
+            }
+            slots.put(entry.getKey(), slot);
+            currencies.add(entry.getKey());
+            firstDays[slot] = first;
+            rates[slot] = table;
+        }
+    }
+
+    static FxRates empty(String base) {
+        return new FxRates(normalize(base), new TreeMap<>());
+    }
+
+    static FxRates load(File file, String base) throws IOException {
+        String baseCurrency = normalize(base);
+        Map<String, TreeMap<Long, Double>> history = new TreeMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(";", -1);
+                try {
+                    if (parts.length != 3) throw new IllegalArgumentException("ожидается ДАТА;ВАЛЮТА;КУРС");
+                    String currency = normalize(parts[1]);
+                    double rate = Double.parseDouble(parts[2].trim().replace(',', '.'));
+                    if (currency == null || !(rate > 0)) throw new IllegalArgumentException("неверная валюта или курс");
+                    if (currency.equals(baseCurrency)) continue;
+                    history.computeIfAbsent(currency, k -> new TreeMap<>()).put(Ledger.parseDate(parts[0].trim()).toEpochDay(), rate);
+                } catch (RuntimeException e) {
+                    System.err.println("Ошибка в файле курсов, строка " + number + ": " + line + " - " + e.getMessage());
+                }
+            }
+        }
+        return new FxRates(baseCurrency, history);
+    }
+
+    static FxRates loadDefault() {
+        String base = System.getProperty("budget.currency", DEFAULT_BASE);
+        File file = new File(System.getProperty("budget.fx.file", DEFAULT_FILE));
+        if (!file.exists()) return empty(base);
+        try {
+            return load(file, base);
+        } catch (IOException e) {
+            System.err.println("Не удалось загрузить курсы валют из " + file + ": " + e.getMessage());
+            return empty(base);
+        }
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public List<String> currencies() {
+        return Collections.unmodifiableList(currencies);
+    }
+
+    public boolean knows(String currency) {
+        return currency == null || currency.equals(base) || slots.containsKey(currency);
+    }
+
+    public double rate(String currency, LocalDate date) {
+        if (currency == null || currency.equals(base)) return 1;
+        Integer slot = slots.get(currency);
+        if (slot == null) {
+            if (warned.add(currency)) System.err.println("Нет курса для валюты " + currency + ", суммы учитываются без пересчета.");
+            return 1;
+        }
+        double[] table = rates[slot];
+        long offset = date.toEpochDay() - firstDays[slot];
+        return table[offset <= 0 ? 0 : offset >= table.length ? table.length - 1 : (int) offset];
+    }
+
+    public double toBase(double amount, String currency, LocalDate date) {
+        return currency == null ? amount : amount * rate(currency, date);
+    }
+
+    public double toBase(Income inc) {
+        return toBase(inc.getAmount(), inc.getCurrency(), inc.getDate());
+    }
+
+    public double toBase(Expense exp) {
+        return toBase(exp.getAmount(), exp.getCurrency(), exp.getDate());
+    }
+
+    public double remaining(FinancialGoal goal) {
+        return toBase(goal.getRemainingAmount(), goal.getCurrency(), LocalDate.now());
+    }
+
+    public String label(String currency) {
+        return currency == null ? base : currency;
+    }
+
+    static String normalize(String currency) {
+        if (currency == null) return null;
+        String code = currency.trim().toUpperCase();
+        return code.isEmpty() ? null : code;
+    }
+}
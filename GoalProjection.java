@@ -0,0 +1,125 @@
+package org.example;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+class GoalProjection implements LedgerAggregate {
+    static class Projection {
+        private final YearMonth firstMonth;
+        private final double monthlySavingsRate;
+        private final double[] bestCumulativeSavings;
+
+        Projection(YearMonth firstMonth, double monthlySavingsRate, double[] bestCumulativeSavings) {
+            this.firstMonth = firstMonth;
+            this.monthlySavingsRate = monthlySavingsRate;
+            this.bestCumulativeSavings = bestCumulativeSavings;
+        }
+
+        public YearMonth getFirstMonth() { return firstMonth; }
+        public double getMonthlySavingsRate() { return monthlySavingsRate; }
+
+        public YearMonth projectedCompletion(FinancialGoal goal, FxRates rates) {
+            double remaining = rates.remaining(goal);
+            if (remaining <= 0) return YearMonth.now();
+
+            int lo = 0;
+            int hi = bestCumulativeSavings.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (bestCumulativeSavings[mid] >= remaining) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo < bestCumulativeSavings.length ? firstMonth.plusMonths(lo) : null;
+        }
+    }
+
+    private final RollupCube rollupCube;
+    private final FxRates rates;
+    private final int lookbackMonths;
+    private final int horizonMonths;
+
+    private final AtomicLong version = new AtomicLong();
+    private long projectedVersion = -1;
+    private Projection projection;
+
+    public GoalProjection(RollupCube rollupCube, FxRates rates, int lookbackMonths, int horizonMonths) {
+        this.rollupCube = rollupCube;
+        this.rates = rates;
+        this.lookbackMonths = lookbackMonths;
+        this.horizonMonths = horizonMonths;
+    }
+
+    @Override
+    public void onIncome(Income income, int sign) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void onExpense(Expense expense, int sign) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void onRecurringChanged() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void clear() {
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public synchronized Projection project(List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses,
+                                           long sourceVersion) {
+        YearMonth currentMonth = YearMonth.now();
+        if (projection != null && projectedVersion == sourceVersion && currentMonth.plusMonths(1).equals(projection.getFirstMonth())) {
+            return projection;
+        }
+
+        Projection computed = compute(recurringIncomes, recurringExpenses, currentMonth);
+        if (sourceVersion == version.get()) {
+            projection = computed;
+            projectedVersion = sourceVersion;
+        }
+        return computed;
+    }
+
+    public double requiredMonthlyContribution(FinancialGoal goal) {
+        double remaining = goal.getRemainingAmount();
+        if (remaining <= 0) return 0;
+        long months = ChronoUnit.MONTHS.between(YearMonth.now(), YearMonth.from(goal.getDueDate()));
+        return remaining / Math.max(months, 1);
+    }
+
+    private Projection compute(List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses, YearMonth currentMonth) {
+        YearMonth historyStart = currentMonth.minusMonths(lookbackMonths);
+        ForecastEngine recurring = ForecastEngine.compile(recurringIncomes, recurringExpenses, rates, 0,
+                historyStart, lookbackMonths + 1 + horizonMonths);
+
+        double historicalNet = 0;
+        for (int i = 0; i < lookbackMonths; i++) {
+            int key = RollupCube.monthKey(historyStart.plusMonths(i));
+            historicalNet += rollupCube.get(RollupCube.Level.MONTH, key, RollupCube.ALL_CATEGORIES, RollupCube.INCOME)
+                    - rollupCube.get(RollupCube.Level.MONTH, key, RollupCube.ALL_CATEGORIES, RollupCube.EXPENSE);
+        }
+        double recurringHistoricalNet = recurring.netFlowBetween(0, lookbackMonths - 1);
+        double monthlySavingsRate = lookbackMonths > 0 ? (historicalNet - recurringHistoricalNet) / lookbackMonths : 0;
+
+        double[] bestCumulativeSavings = new double[horizonMonths];
+        double cumulative = 0;
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < horizonMonths; i++) {
+            int offset = lookbackMonths + 1 + i;
+            cumulative += monthlySavingsRate + recurring.incomeAt(offset) - recurring.expenseAt(offset);
+            best = Math.max(best, cumulative);
+            bestCumulativeSavings[i] = best;
+        }
+        return new Projection(currentMonth.plusMonths(1), monthlySavingsRate, bestCumulativeSavings);
+    }
+}
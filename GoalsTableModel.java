@@ -0,0 +1,115 @@
+package org.example;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+class GoalsTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    static final int NAME = 0;
+    static final int TARGET = 1;
+    static final int CURRENT = 2;
+    static final int PROGRESS = 3;
+    static final int REMAINING = 4;
+    static final int DUE_DATE = 5;
+    static final int STATUS = 6;
+    static final int PROJECTED_COMPLETION = 7;
+    static final int MONTHLY_CONTRIBUTION = 8;
+    static final int CURRENCY = 9;
+
+    static final String STATUS_COMPLETED = "Завершена";
+    static final String STATUS_OVERDUE = "Просрочена";
+
+    private static final String[] COLUMN_NAMES = {"Название", "Цель", "Текущая", "Прогресс", "Осталось", "Крайний срок",
+            "Статус", "Прогноз завершения", "Нужно в месяц", "Валюта"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Double.class, Double.class, Double.class, Double.class,
+            LocalDate.class, String.class, YearMonth.class, Double.class, String.class};
+
+    private List<FinancialGoal> goals;
+    private final GoalProjection goalProjection;
+    private final FxRates rates;
+    private GoalProjection.Projection projection;
+
+    public GoalsTableModel(List<FinancialGoal> goals, GoalProjection goalProjection, FxRates rates) {
+        this.goals = goals;
+        this.goalProjection = goalProjection;
+        this.rates = rates;
+    }
+
+    public void setGoals(List<FinancialGoal> goals) {
+        this.goals = goals;
+        this.projection = null;
+        fireTableDataChanged();
+    }
+
+    public FinancialGoal getGoal(int row) {
+        return goals.get(row);
+    }
+
+    public boolean hasProjection() {
+        return projection != null;
+    }
+
+    public void setProjection(GoalProjection.Projection projection) {
+        this.projection = projection;
+        if (!goals.isEmpty()) fireTableRowsUpdated(0, goals.size() - 1);
+    }
+
+    public void goalAdded(int row) {
+        fireTableRowsInserted(row, row);
+    }
+
+    public void goalUpdated(int row) {
+        fireTableRowsUpdated(row, row);
+    }
+
+    public void goalRemoved(int row) {
+        fireTableRowsDeleted(row, row);
+    }
+
+    public static String statusOf(FinancialGoal goal) {
+        if (goal.getProgressPercentage() >= 100) return STATUS_COMPLETED;
+        if (goal.getDueDate().isBefore(LocalDate.now())) return STATUS_OVERDUE;
+        return "";
+    }
+
+    @Override
+    public int getRowCount() {
+        return goals.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        FinancialGoal goal = goals.get(row);
+        switch (column) {
+            case NAME: return goal.getName();
+            case TARGET: return goal.getTargetAmount();
+            case CURRENT: return goal.getCurrentAmount();
+            case PROGRESS: return goal.getProgressPercentage();
+            case REMAINING: return goal.getRemainingAmount();
+            case DUE_DATE: return goal.getDueDate();
+            case STATUS: return statusOf(goal);
+            case PROJECTED_COMPLETION: return projection == null ? null : projection.projectedCompletion(goal, rates);
+            case MONTHLY_CONTRIBUTION: return goalProjection.requiredMonthlyContribution(goal);
+            case CURRENCY: return rates.label(goal.getCurrency());
+            default: throw new IllegalArgumentException("Неизвестный столбец: " + column);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+class GoalsTableRenderer extends DefaultTableCellRenderer {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color COMPLETED_BACKGROUND = new Color(212, 237, 218);
+    private static final Color COMPLETED_FOREGROUND = new Color(21, 87, 36);
+    private static final Color OVERDUE_BACKGROUND = new Color(248, 215, 218);
+    private static final Color OVERDUE_FOREGROUND = new Color(114, 28, 36);
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        GoalsTableModel model = (GoalsTableModel) table.getModel();
+        FinancialGoal goal = model.getGoal(table.convertRowIndexToModel(row));
+        int modelColumn = table.convertColumnIndexToModel(column);
+        String status = GoalsTableModel.statusOf(goal);
+
+        Component c = super.getTableCellRendererComponent(table, format(model, status, value, modelColumn), isSelected, hasFocus, row, column);
+        setHorizontalAlignment(value instanceof Number ? RIGHT : LEFT);
+        if (isSelected) {
+            c.setBackground(table.getSelectionBackground());
+            c.setForeground(table.getSelectionForeground());
+        } else if (GoalsTableModel.STATUS_COMPLETED.equals(status)) {
+            c.setBackground(COMPLETED_BACKGROUND);
+            c.setForeground(COMPLETED_FOREGROUND);
+        } else if (GoalsTableModel.STATUS_OVERDUE.equals(status)) {
+            c.setBackground(OVERDUE_BACKGROUND);
+            c.setForeground(OVERDUE_FOREGROUND);
+        } else {
+            c.setBackground(table.getBackground());
+            c.setForeground(table.getForeground());
+        }
+        return c;
+    }
+
+    private static Object format(GoalsTableModel model, String status, Object value, int column) {
+        switch (column) {
+            case GoalsTableModel.PROGRESS:
+                return String.format("%.1f%%", (Double) value);
+            case GoalsTableModel.DUE_DATE:
+                return ((LocalDate) value).format(DateTimeFormatter.ISO_LOCAL_DATE);
+            case GoalsTableModel.PROJECTED_COMPLETION:
+                if (GoalsTableModel.STATUS_COMPLETED.equals(status)) return "-";
+                if (!model.hasProjection()) return "...";
+                return value != null ? value.toString() : "Не достижима";
+            default:
+                return value instanceof Double ? String.format("%.2f", (Double) value) : value;
+        }
+    }
+}
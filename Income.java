@@ -0,0 +1,33 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+class Income {
+    private double amount;
+    private String description;
+    private LocalDate date;
+    private String currency;
+
+    public Income(double amount, String description, LocalDate date) {
+        this.amount = amount;
+        this.description = description;
+        this.date = date;
+    }
+
+    public double getAmount() { return amount; }
+    public String getDescription() { return description; }
+    public LocalDate getDate() { return date; }
+
+    public void setAmount(double amount) { this.amount = amount; }
+    public void setDescription(String description) { this.description = description; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    @Override
+    public String toString() {
+        return String.format("Доход: %.2f, Описание: %s, Дата: %s", amount, description, date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+    }
+}
@@ -0,0 +1,220 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class Json {
+    static class Writer {
+        private final StringBuilder out;
+        private boolean needsComma;
+
+        Writer(StringBuilder out) {
+            this.out = out;
+        }
+
+        public Writer beginObject() {
+            separate();
+            out.append('{');
+            needsComma = false;
+            return this;
+        }
+
+        public Writer endObject() {
+            out.append('}');
+            needsComma = true;
+            return this;
+        }
+
+        public Writer beginArray() {
+            separate();
+            out.append('[');
+            needsComma = false;
+            return this;
+        }
+
+        public Writer endArray() {
+            out.append(']');
+            needsComma = true;
+            return this;
+        }
+
+        public Writer name(String name) {
+            separate();
+            quote(out, name);
+            out.append(':');
+            needsComma = false;
+            return this;
+        }
+
+        public Writer value(String value) {
+            separate();
+            if (value == null) out.append("null");
+            else quote(out, value);
+            needsComma = true;
+            return this;
+        }
+
+        public Writer value(double value) {
+            separate();
+            if (Double.isFinite(value)) out.append(value);
+            else out.append("null");
+            needsComma = true;
+            return this;
+        }
+
+        public Writer value(long value) {
+            separate();
+            out.append(value);
+            needsComma = true;
+            return this;
+        }
+
+        public Writer field(String name, String value) {
+            return name(name).value(value);
+        }
+
+        public Writer field(String name, double value) {
+            return name(name).value(value);
+        }
+
+        public Writer field(String name, long value) {
+            return name(name).value(value);
+        }
+
+        private void separate() {
+            if (needsComma) out.append(',');
+        }
+    }
+
+    static void quote(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    static Map<String, String> parseFlatObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = parser.object();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) throw parser.error("лишние символы после объекта");
+        return fields;
+    }
+
+    private static class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> fields = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return fields;
+            }
+            while (true) {
+                skipWhitespace();
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                fields.put(name, scalar());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') return fields;
+                if (c != ',') throw error("ожидалась ',' или '}'");
+            }
+        }
+
+        private String scalar() {
+            char c = peek();
+            if (c == '"') return string();
+            int start = pos;
+            while (!atEnd() && ",} \t\r\n".indexOf(peek()) < 0) pos++;
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) return null;
+            if (literal.equals("true") || literal.equals("false")) return literal;
+            try {
+                Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                throw error("неверное значение '" + literal + "'");
+            }
+            return literal;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"': case '\\': case '/': value.append(escaped); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("неполная escape-последовательность");
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("неверная escape-последовательность");
+                        }
+                        pos += 4;
+                        break;
+                    default: throw error("неверная escape-последовательность");
+                }
+            }
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+
+        private char peek() {
+            if (atEnd()) throw error("неожиданный конец");
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char c) {
+            if (next() != c) throw error("ожидался символ '" + c + "'");
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Неверный JSON (позиция " + pos + "): " + message);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
+
+class Ledger {
+    static final List<String> DEFAULT_CATEGORIES = Arrays.asList("еда", "транспорт", "развлечения", "жилье", "зарплата", "подарки");
+    static final List<Double> DEFAULT_ALERT_THRESHOLDS = Arrays.asList(80.0, 100.0);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private final List<Income> incomes = new ArrayList<>();
+    private final List<Expense> expenses = new ArrayList<>();
+    private final Map<String, Double> budget = new HashMap<>();
+    private final Map<String, BudgetPeriod> budgetPeriods = new HashMap<>();
+    private final List<RecurringIncome> recurringIncomes = new ArrayList<>();
+    private final List<RecurringExpense> recurringExpenses = new ArrayList<>();
+    private final List<FinancialGoal> goals = new ArrayList<>();
+    private final Set<String> categories = new HashSet<>(DEFAULT_CATEGORIES);
+    private final Map<String, String> categoryRules = new LinkedHashMap<>();
+    private final List<Double> alertThresholds = new ArrayList<>(DEFAULT_ALERT_THRESHOLDS);
+    private double dailyAlertLimit;
+
+    public List<Income> getIncomes() { return incomes; }
+    public List<Expense> getExpenses() { return expenses; }
+    public Map<String, Double> getBudget() { return budget; }
+    public Map<String, BudgetPeriod> getBudgetPeriods() { return budgetPeriods; }
+    public List<RecurringIncome> getRecurringIncomes() { return recurringIncomes; }
+    public List<RecurringExpense> getRecurringExpenses() { return recurringExpenses; }
+    public List<FinancialGoal> getGoals() { return goals; }
+    public Set<String> getCategories() { return categories; }
+    public Map<String, String> getCategoryRules() { return categoryRules; }
+    public List<Double> getAlertThresholds() { return alertThresholds; }
+    public double getDailyAlertLimit() { return dailyAlertLimit; }
+
+    public void setDailyAlertLimit(double dailyAlertLimit) { this.dailyAlertLimit = dailyAlertLimit; }
+
+    public long recordCount() {
+        return (long) incomes.size() + expenses.size() + recurringIncomes.size() + recurringExpenses.size() + goals.size();
+    }
+
+    public void clear() {
+        incomes.clear();
+        expenses.clear();
+        budget.clear();
+        budgetPeriods.clear();
+        recurringIncomes.clear();
+        recurringExpenses.clear();
+        goals.clear();
+        categories.clear();
+        categories.addAll(DEFAULT_CATEGORIES);
+        categoryRules.clear();
+        alertThresholds.clear();
+        alertThresholds.addAll(DEFAULT_ALERT_THRESHOLDS);
+        dailyAlertLimit = 0;
+    }
+
+    // Records are shared with the copy: edits replace them through LedgerBatch and never mutate them in place.
+    public Ledger copy() {
+        Ledger copy = new Ledger();
+        copy.incomes.addAll(incomes);
+        copy.expenses.addAll(expenses);
+        copy.budget.putAll(budget);
+        copy.budgetPeriods.putAll(budgetPeriods);
+        copy.recurringIncomes.addAll(recurringIncomes);
+        copy.recurringExpenses.addAll(recurringExpenses);
+        copy.goals.addAll(goals);
+        copy.categories.clear();
+        copy.categories.addAll(categories);
+        copy.categoryRules.putAll(categoryRules);
+        copy.alertThresholds.clear();
+        copy.alertThresholds.addAll(alertThresholds);
+        copy.dailyAlertLimit = dailyAlertLimit;
+        return copy;
+    }
+
+    public void mergeLoaded(Ledger loaded) {
+        incomes.addAll(0, loaded.incomes);
+        expenses.addAll(0, loaded.expenses);
+        recurringIncomes.addAll(0, loaded.recurringIncomes);
+        recurringExpenses.addAll(0, loaded.recurringExpenses);
+        goals.addAll(0, loaded.goals);
+        for (Map.Entry<String, BudgetPeriod> entry : loaded.budgetPeriods.entrySet()) {
+            if (!budget.containsKey(entry.getKey())) budgetPeriods.put(entry.getKey(), entry.getValue());
+        }
+        Map<String, Double> mergedBudget = new HashMap<>(loaded.budget);
+        mergedBudget.putAll(budget);
+        budget.clear();
+        budget.putAll(mergedBudget);
+        categories.addAll(loaded.categories);
+        Map<String, String> mergedRules = new LinkedHashMap<>(loaded.categoryRules);
+        mergedRules.putAll(categoryRules);
+        categoryRules.clear();
+        categoryRules.putAll(mergedRules);
+        alertThresholds.clear();
+        alertThresholds.addAll(loaded.alertThresholds);
+        dailyAlertLimit = loaded.dailyAlertLimit;
+    }
+
+    public static Ledger read(File file, DoubleConsumer progress) throws IOException {
+        Ledger ledger = new Ledger();
+        ledger.categories.clear();
+        long totalBytes = Math.max(file.length(), 1);
+        long[] bytesRead = new long[1];
+        InputStream counting = new FilterInputStream(new FileInputStream(file)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytesRead[0]++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) bytesRead[0] += n;
+                return n;
+            }
+        };
+
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(counting, StandardCharsets.UTF_8))) {
+            String line;
+            String currentSection = "";
+            long lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                if (++lineNumber % 4096 == 0) progress.accept(Math.min(1.0, (double) bytesRead[0] / totalBytes));
+                line = line.trim();
+                if (line.startsWith("###")) {
+                    currentSection = line.substring(3).trim();
+                    if (currentSection.equals("ALERTS")) ledger.alertThresholds.clear();
+                    continue;
+                }
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                try {
+                    ledger.parseLine(currentSection, line.split(";", -1));
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    System.err.println("Ошибка при парсинге строки в разделе " + currentSection + ": " + line + " - " + e.getMessage());
+                }
+            }
+        }
+        if (ledger.categories.isEmpty()) {
+            ledger.categories.addAll(DEFAULT_CATEGORIES);
+        }
+        progress.accept(1.0);
+        return ledger;
+    }
+
+    private void parseLine(String section, String[] parts) {
+        switch (section) {
+            case "INCOMES":
+                if (parts.length == 3 || parts.length == 4) {
+                    Income inc = new Income(Double.parseDouble(parts[0]), parts[1], parseDate(parts[2]));
+                    inc.setCurrency(currencyOf(parts, 3));
+                    incomes.add(inc);
+                }
+                break;
+            case "EXPENSES":
+                if (parts.length == 4 || parts.length == 5) {
+                    Expense exp = new Expense(Double.parseDouble(parts[0]), parts[1], parts[2], parseDate(parts[3]));
+                    exp.setCurrency(currencyOf(parts, 4));
+                    expenses.add(exp);
+                    categories.add(parts[2].toLowerCase());
+                }
+                break;
+            case "BUDGET":
+                if (parts.length == 2 || parts.length == 4) {
+                    BudgetPeriod period = parts.length == 4 ? BudgetPeriod.parse(parts[2], parts[3]) : null;
+                    budget.put(parts[0], Double.parseDouble(parts[1]));
+                    if (period != null) budgetPeriods.put(parts[0], period);
+                    categories.add(parts[0].toLowerCase());
+                }
+                break;
+            case "RECURRING_INCOMES":
+                if (parts.length == 5 || parts.length == 6) {
+                    RecurringIncome rInc = new RecurringIncome(Double.parseDouble(parts[0]), parts[1], parseDate(parts[2]), parts[3], Integer.parseInt(parts[4]));
+                    rInc.setCurrency(currencyOf(parts, 5));
+                    recurringIncomes.add(rInc);
+                }
+                break;
+            case "RECURRING_EXPENSES":
+                if (parts.length == 6 || parts.length == 7) {
+                    RecurringExpense rExp = new RecurringExpense(Double.parseDouble(parts[0]), parts[1], parts[2], parseDate(parts[3]), parts[4], Integer.parseInt(parts[5]));
+                    rExp.setCurrency(currencyOf(parts, 6));
+                    recurringExpenses.add(rExp);
+                    categories.add(parts[2].toLowerCase());
+                }
+                break;
+            case "GOALS":
+                if (parts.length == 4 || parts.length == 5) {
+                    FinancialGoal goal = new FinancialGoal(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), parseDate(parts[3]));
+                    goal.setCurrency(currencyOf(parts, 4));
+                    goals.add(goal);
+                }
+                break;
+            case "CATEGORIES":
+                if (parts.length == 1 && !parts[0].isEmpty()) {
+                    categories.add(parts[0].toLowerCase());
+                }
+                break;
+            case "CATEGORY_RULES":
+                if (parts.length == 2 && !parts[0].isEmpty() && !parts[1].isEmpty()) {
+                    categoryRules.putIfAbsent(CategoryRules.normalize(parts[0]), parts[1].toLowerCase());
+                }
+                break;
+            case "ALERTS":
+                if (parts.length == 2 && parts[0].equals("BUDGET_PERCENT")) {
+                    alertThresholds.add(Double.parseDouble(parts[1]));
+                } else if (parts.length == 2 && parts[0].equals("DAILY_LIMIT")) {
+                    dailyAlertLimit = Double.parseDouble(parts[1]);
+                }
+                break;
+        }
+    }
+
+    static String currencyOf(String[] parts, int index) {
+        return parts.length > index ? FxRates.normalize(parts[index]) : null;
+    }
+
+    static LocalDate parseDate(String text) {
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) return LocalDate.of(year, month, day);
+        }
+        return LocalDate.parse(text, DATE_FORMATTER);
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    static String line(Income inc) {
+        return String.format("%.2f;%s;%s", inc.getAmount(), inc.getDescription(), inc.getDate().format(DATE_FORMATTER)) + currencySuffix(inc.getCurrency());
+    }
+
+    static String line(Expense exp) {
+        return String.format("%.2f;%s;%s;%s", exp.getAmount(), exp.getDescription(), exp.getCategory(), exp.getDate().format(DATE_FORMATTER)) + currencySuffix(exp.getCurrency());
+    }
+
+    static String line(RecurringIncome rInc) {
+        return String.format("%.2f;%s;%s;%s;%d", rInc.getAmount(), rInc.getDescription(), rInc.getDate().format(DATE_FORMATTER), rInc.getRule(), rInc.getRepetitions()) + currencySuffix(rInc.getCurrency());
+    }
+
+    static String line(RecurringExpense rExp) {
+        return String.format("%.2f;%s;%s;%s;%s;%d", rExp.getAmount(), rExp.getDescription(), rExp.getCategory(), rExp.getDate().format(DATE_FORMATTER), rExp.getRule(), rExp.getRepetitions()) + currencySuffix(rExp.getCurrency());
+    }
+
+    static String line(FinancialGoal goal) {
+        return String.format("%s;%.2f;%.2f;%s", goal.getName(), goal.getTargetAmount(), goal.getCurrentAmount(), goal.getDueDate().format(DATE_FORMATTER)) + currencySuffix(goal.getCurrency());
+    }
+
+    private static String currencySuffix(String currency) {
+        return currency == null ? "" : ";" + currency;
+    }
+
+    public void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(temp, StandardCharsets.UTF_8), 1 << 16))) {
+            pw.println("###INCOMES");
+            for (Income inc : incomes) {
+                pw.println(line(inc));
+            }
+            pw.println("\n###EXPENSES");
+            for (Expense exp : expenses) {
+                pw.println(line(exp));
+            }
+            pw.println("\n###BUDGET");
+            for (Map.Entry<String, Double> entry : budget.entrySet()) {
+                BudgetPeriod period = budgetPeriods.get(entry.getKey());
+                pw.println(String.format("%s;%.2f", entry.getKey(), entry.getValue()) + (period == null ? "" : ";" + period));
+            }
+            pw.println("\n###RECURRING_INCOMES");
+            for (RecurringIncome rInc : recurringIncomes) {
+                pw.println(line(rInc));
+            }
+            pw.println("\n###RECURRING_EXPENSES");
+            for (RecurringExpense rExp : recurringExpenses) {
+                pw.println(line(rExp));
+            }
+            pw.println("\n###GOALS");
+            for (FinancialGoal goal : goals) {
+                pw.println(line(goal));
+            }
+            pw.println("\n###CATEGORIES");
+            for (String category : categories) {
+                pw.println(category);
+            }
+            pw.println("\n###CATEGORY_RULES");
+            for (Map.Entry<String, String> rule : categoryRules.entrySet()) {
+                pw.println(rule.getKey() + ";" + rule.getValue());
+            }
+            pw.println("\n###ALERTS");
+            for (double threshold : alertThresholds) {
+                pw.println("BUDGET_PERCENT;" + threshold);
+            }
+            if (dailyAlertLimit > 0) pw.println("DAILY_LIMIT;" + dailyAlertLimit);
+            if (pw.checkError()) throw new IOException("Ошибка записи в файл " + temp);
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example;
+
+interface LedgerAggregate {
+    void onIncome(Income income, int sign);
+
+    void onExpense(Expense expense, int sign);
+
+    default void onRecurringChanged() {
+    }
+
+    void clear();
+}
@@ -0,0 +1,547 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.swing.SwingUtilities;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+class LedgerApiServer {
+    interface Mutations {
+        Income addIncome(double amount, String description, LocalDate date, String currency);
+
+        Expense addExpense(double amount, String description, String category, LocalDate date, String currency);
+    }
+
+    static class State {
+        private final LedgerSnapshot snapshot;
+        private final NavigableMap<Integer, double[]> months;
+        private final NavigableMap<Integer, double[]> years;
+        private final double currentBalance;
+        private final Map<String, PeriodSpendIndex.Status> periodStatus;
+        private final Map<Integer, byte[]> forecasts = new ConcurrentHashMap<>();
+        private final Map<String, List<?>> filtered = new ConcurrentHashMap<>();
+        private volatile List<Income> effectiveIncomes;
+        private volatile List<Expense> effectiveExpenses;
+        private volatile byte[] summary;
+        private volatile byte[] budget;
+        private volatile byte[] goals;
+
+        State(LedgerSnapshot snapshot, NavigableMap<Integer, double[]> months, NavigableMap<Integer, double[]> years, double currentBalance,
+              Map<String, PeriodSpendIndex.Status> periodStatus) {
+            this.snapshot = snapshot;
+            this.months = months;
+            this.years = years;
+            this.currentBalance = currentBalance;
+            this.periodStatus = periodStatus;
+        }
+
+        List<Income> effectiveIncomes() {
+            List<Income> result = effectiveIncomes;
+            if (result == null) effectiveIncomes = result = snapshot.getEffectiveIncomes(LocalDate.now());
+            return result;
+        }
+
+        List<Expense> effectiveExpenses() {
+            List<Expense> result = effectiveExpenses;
+            if (result == null) effectiveExpenses = result = snapshot.getEffectiveExpenses(LocalDate.now());
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> filtered(String key, List<T> items, Predicate<? super T> filter) {
+            List<?> cached = filtered.get(key);
+            if (cached != null) return (List<T>) cached;
+            List<T> result = new ArrayList<>();
+            for (T item : items) {
+                if (filter.test(item)) result.add(item);
+            }
+            if (filtered.size() >= MAX_CACHED_FILTERS) filtered.clear();
+            filtered.put(key, result);
+            return result;
+        }
+    }
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_FORECAST_MONTHS = 600;
+    private static final int MAX_CACHED_FILTERS = 64;
+    private static final long EDT_TIMEOUT_SECONDS = 10;
+    private static final long INGEST_TIMEOUT_SECONDS = 10;
+
+    private final TransactionIngestor ingestor;
+    private final FxRates rates;
+    private final Mutations mutations;
+    private volatile State state;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    LedgerApiServer(TransactionIngestor ingestor, FxRates rates, Mutations mutations) {
+        this.ingestor = ingestor;
+        this.rates = rates;
+        this.mutations = mutations;
+    }
+
+    public void publish(State newState) {
+        state = newState;
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+            return Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "ledger-api-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка при обработке запроса " + exchange.getRequestURI() + ": " + e);
+            e.printStackTrace();
+            sendError(exchange, 500, "Внутренняя ошибка сервера.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        State current = state;
+        if (current == null) {
+            sendError(exchange, 503, "Данные еще загружаются.");
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        switch (path) {
+            case "/api/incomes":
+                if (method.equals("POST")) {
+                    postIncome(exchange);
+                } else if (method.equals("GET")) {
+                    List<Income> items = current.effectiveIncomes();
+                    if (!LedgerReports.isUnfiltered(query.get("search"), null, query.get("month"), query.get("year"))) {
+                        items = current.filtered(filterKey("incomes", query), items,
+                                LedgerReports.incomeFilter(query.get("search"), query.get("month"), query.get("year")));
+                    }
+                    send(exchange, 200, page(items, query, this::writeIncome));
+                } else {
+                    sendError(exchange, 405, "Метод не поддерживается: " + method);
+                }
+                break;
+            case "/api/expenses":
+                if (method.equals("POST")) {
+                    postExpense(exchange);
+                } else if (method.equals("GET")) {
+                    List<Expense> items = current.effectiveExpenses();
+                    if (!LedgerReports.isUnfiltered(query.get("search"), query.get("category"), query.get("month"), query.get("year"))) {
+                        items = current.filtered(filterKey("expenses", query), items,
+                                LedgerReports.expenseFilter(query.get("search"), query.get("category"), query.get("month"), query.get("year")));
+                    }
+                    send(exchange, 200, page(items, query, this::writeExpense));
+                } else {
+                    sendError(exchange, 405, "Метод не поддерживается: " + method);
+                }
+                break;
+            case "/api/transactions":
+                if (method.equals("POST")) postTransactions(exchange);
+                else sendError(exchange, 405, "Метод не поддерживается: " + method);
+                break;
+            case "/api/budget":
+                if (requireGet(exchange)) send(exchange, 200, budget(current));
+                break;
+            case "/api/goals":
+                if (requireGet(exchange)) send(exchange, 200, goals(current));
+                break;
+            case "/api/summary":
+                if (requireGet(exchange)) send(exchange, 200, summary(current));
+                break;
+            case "/api/forecast":
+                if (requireGet(exchange)) {
+                    int months = intParam(query, "months", 12, 1, MAX_FORECAST_MONTHS);
+                    send(exchange, 200, current.forecasts.computeIfAbsent(months, m -> forecast(current, m)));
+                }
+                break;
+            default:
+                sendError(exchange, 404, "Неизвестный путь: " + path);
+        }
+    }
+
+    private interface ItemWriter<T> {
+        void write(Json.Writer json, T item);
+    }
+
+    private static String filterKey(String kind, Map<String, String> query) {
+        return String.join("\u0000", kind, query.getOrDefault("search", ""), query.getOrDefault("category", ""),
+                query.getOrDefault("month", ""), query.getOrDefault("year", ""));
+    }
+
+    private <T> byte[] page(List<T> items, Map<String, String> query, ItemWriter<T> writer) {
+        int offset = intParam(query, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParam(query, "limit", DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+
+        StringBuilder out = new StringBuilder(128 + limit * 96);
+        Json.Writer json = new Json.Writer(out);
+        json.beginObject().name("items").beginArray();
+        int end = (int) Math.min(items.size(), (long) offset + limit);
+        for (int i = offset; i < end; i++) writer.write(json, items.get(i));
+        json.endArray().field("offset", offset).field("limit", limit).field("total", items.size()).endObject();
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void writeIncome(Json.Writer json, Income inc) {
+        json.beginObject()
+                .field("date", inc.getDate().toString())
+                .field("amount", inc.getAmount())
+                .field("currency", rates.label(inc.getCurrency()))
+                .field("description", inc.getDescription())
+                .endObject();
+    }
+
+    private void writeExpense(Json.Writer json, Expense exp) {
+        json.beginObject()
+                .field("date", exp.getDate().toString())
+                .field("amount", exp.getAmount())
+                .field("currency", rates.label(exp.getCurrency()))
+                .field("category", exp.getCategory())
+                .field("description", exp.getDescription())
+                .endObject();
+    }
+
+    private static byte[] budget(State current) {
+        byte[] cached = current.budget;
+        if (cached != null) return cached;
+
+        Map<String, Double> spent = new HashMap<>();
+        FxRates rates = current.snapshot.getRates();
+        for (Expense exp : current.effectiveExpenses()) spent.merge(exp.getCategory(), rates.toBase(exp), Double::sum);
+        Set<String> categories = new HashSet<>(spent.keySet());
+        categories.addAll(current.snapshot.getBudget().keySet());
+        CategoryTree tree = CategoryTree.of(categories);
+        double[] rolledUp = tree.rollup(spent);
+
+        StringBuilder out = new StringBuilder();
+        Json.Writer json = new Json.Writer(out).beginArray();
+        current.snapshot.getBudget().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    json.beginObject()
+                            .field("category", entry.getKey())
+                            .field("limit", entry.getValue())
+                            .field("spent", tree.total(rolledUp, entry.getKey()));
+                    PeriodSpendIndex.Status status = current.periodStatus.get(entry.getKey());
+                    if (status != null) {
+                        json.field("period", status.unit.name())
+                                .field("rollover", current.snapshot.getBudgetPeriods().get(entry.getKey()).isRollover() ? 1 : 0)
+                                .field("periodStart", status.unit.start(status.bucket).toString())
+                                .field("periodEnd", status.unit.end(status.bucket).toString())
+                                .field("available", status.available())
+                                .field("periodSpent", status.spent)
+                                .field("remaining", status.remaining());
+                    }
+                    json.endObject();
+                });
+        json.endArray();
+        return current.budget = out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] goals(State current) {
+        byte[] cached = current.goals;
+        if (cached != null) return cached;
+
+        StringBuilder out = new StringBuilder();
+        Json.Writer json = new Json.Writer(out).beginArray();
+        for (FinancialGoal goal : current.snapshot.getGoals()) {
+            json.beginObject()
+                    .field("name", goal.getName())
+                    .field("targetAmount", goal.getTargetAmount())
+                    .field("currentAmount", goal.getCurrentAmount())
+                    .field("currency", current.snapshot.getRates().label(goal.getCurrency()))
+                    .field("dueDate", goal.getDueDate().toString())
+                    .field("status", GoalsTableModel.statusOf(goal))
+                    .endObject();
+        }
+        json.endArray();
+        return current.goals = out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] summary(State current) {
+        byte[] cached = current.summary;
+        if (cached != null) return cached;
+
+        StringBuilder out = new StringBuilder();
+        Json.Writer json = new Json.Writer(out).beginObject();
+        json.name("monthly");
+        writePeriods(json, current.months, key -> RollupCube.monthOf(key).toString());
+        json.name("yearly");
+        writePeriods(json, current.years, String::valueOf);
+        json.endObject();
+        return current.summary = out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writePeriods(Json.Writer json, NavigableMap<Integer, double[]> series, java.util.function.IntFunction<String> label) {
+        json.beginArray();
+        for (Map.Entry<Integer, double[]> entry : series.entrySet()) {
+            double income = entry.getValue()[RollupCube.INCOME];
+            double expense = entry.getValue()[RollupCube.EXPENSE];
+            json.beginObject()
+                    .field("period", label.apply(entry.getKey()))
+                    .field("income", income)
+                    .field("expense", expense)
+                    .field("balance", income - expense)
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    private static byte[] forecast(State current, int months) {
+        ForecastEngine engine = ForecastEngine.compile(current.snapshot.getRecurringIncomes(), current.snapshot.getRecurringExpenses(), current.snapshot.getRates(),
+                current.currentBalance, YearMonth.now().plusMonths(1), months);
+        StringBuilder out = new StringBuilder();
+        Json.Writer json = new Json.Writer(out).beginObject()
+                .field("startingBalance", engine.getStartingBalance())
+                .name("months").beginArray();
+        for (int i = 0; i < engine.getHorizon(); i++) {
+            json.beginObject()
+                    .field("month", engine.getFirstMonth().plusMonths(i).toString())
+                    .field("income", engine.incomeAt(i))
+                    .field("expense", engine.expenseAt(i))
+                    .field("balance", engine.balanceAt(i))
+                    .endObject();
+        }
+        json.endArray().endObject();
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void postIncome(HttpExchange exchange) throws IOException {
+        Map<String, String> body = Json.parseFlatObject(readBody(exchange));
+        double amount = parseAmount(body.get("amount"));
+        String description = requireText(body, "description");
+        LocalDate date = body.get("date") == null ? LocalDate.now() : Ledger.parseDate(body.get("date"));
+        String currency = optionalCurrency(body);
+
+        Income income = onEdt(() -> mutations.addIncome(amount, description, date, currency));
+        StringBuilder out = new StringBuilder();
+        writeIncome(new Json.Writer(out), income);
+        send(exchange, 201, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void postExpense(HttpExchange exchange) throws IOException {
+        Map<String, String> body = Json.parseFlatObject(readBody(exchange));
+        double amount = parseAmount(body.get("amount"));
+        String description = requireText(body, "description");
+        String category = optionalCategory(body);
+        LocalDate date = body.get("date") == null ? LocalDate.now() : Ledger.parseDate(body.get("date"));
+        String currency = optionalCurrency(body);
+
+        Expense expense = onEdt(() -> mutations.addExpense(amount, description, category, date, currency));
+        StringBuilder out = new StringBuilder();
+        writeExpense(new Json.Writer(out), expense);
+        send(exchange, 201, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void postTransactions(HttpExchange exchange) throws IOException {
+        List<Object> transactions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                try {
+                    transactions.add(parseTransaction(Json.parseFlatObject(line)));
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    throw new IllegalArgumentException("Строка " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+
+        int accepted = 0;
+        try {
+            for (Object transaction : transactions) {
+                boolean queued = transaction instanceof Expense
+                        ? ingestor.offer((Expense) transaction, INGEST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        : ingestor.offer((Income) transaction, INGEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (!queued) break;
+                accepted++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        StringBuilder out = new StringBuilder();
+        new Json.Writer(out).beginObject().field("accepted", accepted).field("rejected", transactions.size() - accepted).endObject();
+        send(exchange, accepted == transactions.size() ? 202 : 503, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object parseTransaction(Map<String, String> fields) {
+        String type = fields.get("type");
+        double amount = parseAmount(fields.get("amount"));
+        String description = requireText(fields, "description");
+        LocalDate date = fields.get("date") == null ? LocalDate.now() : Ledger.parseDate(fields.get("date"));
+        String currency = optionalCurrency(fields);
+        if ("income".equals(type)) {
+            Income income = new Income(amount, description, date);
+            income.setCurrency(currency);
+            return income;
+        }
+        if ("expense".equals(type)) {
+            Expense expense = new Expense(amount, description, optionalCategory(fields), date);
+            expense.setCurrency(currency);
+            return expense;
+        }
+        throw new IllegalArgumentException("Поле type должно быть income или expense: " + type);
+    }
+
+    private static <T> T onEdt(Callable<T> action) throws IOException {
+        FutureTask<T> task = new FutureTask<>(action);
+        SwingUtilities.invokeLater(task);
+        try {
+            return task.get(EDT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Запрос прерван.", e);
+        } catch (TimeoutException e) {
+            task.cancel(false);
+            throw new IOException("Интерфейс не ответил за " + EDT_TIMEOUT_SECONDS + " с.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static double parseAmount(String text) {
+        if (text == null) throw new IllegalArgumentException("Не указана сумма (amount).");
+        double amount = Double.parseDouble(text);
+        if (!(amount > 0) || Double.isInfinite(amount)) throw new IllegalArgumentException("Сумма должна быть положительным числом: " + text);
+        return amount;
+    }
+
+    private static String optionalCategory(Map<String, String> body) {
+        return body.get("category") == null ? null : requireText(body, "category").toLowerCase();
+    }
+
+    private String optionalCurrency(Map<String, String> body) {
+        String currency = FxRates.normalize(body.get("currency"));
+        if (currency == null || currency.equals(rates.getBase())) return null;
+        if (!rates.knows(currency)) throw new IllegalArgumentException("Нет курсов для валюты " + currency + ".");
+        return currency;
+    }
+
+    private static String requireText(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null || value.isBlank()) throw new IllegalArgumentException("Не указано поле " + field + ".");
+        if (value.indexOf(';') >= 0 || value.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Поле " + field + " не может содержать ';' или перевод строки.");
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue, int min, int max) {
+        String text = query.get(name);
+        if (text == null) return defaultValue;
+        try {
+            int value = Integer.parseInt(text);
+            if (value >= min && value <= max) return value;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Параметр " + name + " должен быть целым числом от " + min + " до " + max + ": " + text);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean requireGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) return true;
+        sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+        return false;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new Json.Writer(out).beginObject().field("error", message).endObject();
+        send(exchange, status, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
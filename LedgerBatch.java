@@ -0,0 +1,209 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class LedgerBatch {
+    private static final int MAX_REPORTED_ERRORS = 5;
+
+    static final class Result {
+        final List<Object> added;
+        final List<Object> removed;
+        final Set<Object> replaced;
+        final boolean goalsChanged;
+        final boolean categoriesChanged;
+
+        private Result(List<Object> added, List<Object> removed, Set<Object> replaced, boolean goalsChanged, boolean categoriesChanged) {
+            this.added = added;
+            this.removed = removed;
+            this.replaced = replaced;
+            this.goalsChanged = goalsChanged;
+            this.categoriesChanged = categoriesChanged;
+        }
+
+        int size() {
+            return added.size() + removed.size();
+        }
+    }
+
+    private final List<Object> added = new ArrayList<>();
+    private final Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Object, Object> replaced = new IdentityHashMap<>();
+    private final List<String> errors = new ArrayList<>();
+
+    public LedgerBatch add(Object record) {
+        String error = validate(record);
+        if (error != null) errors.add("Новая запись " + record + ": " + error);
+        added.add(record);
+        return this;
+    }
+
+    public LedgerBatch remove(Object record) {
+        if (replaced.containsKey(record)) errors.add("Запись удаляется и изменяется одновременно: " + record);
+        removed.add(record);
+        return this;
+    }
+
+    public LedgerBatch replace(Object record, Object replacement) {
+        if (record.getClass() != replacement.getClass()) {
+            errors.add("Нельзя заменить запись " + record + " записью другого типа.");
+        }
+        String error = validate(replacement);
+        if (error != null) errors.add("Изменение записи " + record + ": " + error);
+        if (removed.contains(record)) errors.add("Запись удаляется и изменяется одновременно: " + record);
+        if (replaced.put(record, replacement) != null) errors.add("Запись изменяется дважды: " + record);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && replaced.isEmpty();
+    }
+
+    public Result commit(Ledger ledger) {
+        List<String> problems = new ArrayList<>(errors);
+        List<List<Object>> lists = lists(ledger);
+        Set<Object> existing = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!removed.isEmpty() || !replaced.isEmpty()) {
+            for (List<Object> list : lists) existing.addAll(list);
+        }
+        for (Object record : removed) {
+            if (!existing.contains(record)) problems.add("Удаляемой записи нет в бюджете: " + record);
+        }
+        for (Object record : replaced.keySet()) {
+            if (!existing.contains(record)) problems.add("Изменяемой записи нет в бюджете: " + record);
+        }
+        checkGoalNames(ledger, problems);
+        if (!problems.isEmpty()) {
+            String message = String.join("\n", problems.subList(0, Math.min(problems.size(), MAX_REPORTED_ERRORS)));
+            if (problems.size() > MAX_REPORTED_ERRORS) message += "\n... и еще " + (problems.size() - MAX_REPORTED_ERRORS);
+            throw new IllegalArgumentException("Пакет изменений отклонен:\n" + message);
+        }
+
+        List<List<Object>> backups = new ArrayList<>();
+        for (List<Object> list : lists) backups.add(new ArrayList<>(list));
+        Set<String> categoriesBackup = new HashSet<>(ledger.getCategories());
+        try {
+            return apply(ledger, lists);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < lists.size(); i++) {
+                lists.get(i).clear();
+                lists.get(i).addAll(backups.get(i));
+            }
+            ledger.getCategories().clear();
+            ledger.getCategories().addAll(categoriesBackup);
+            throw e;
+        }
+    }
+
+    private Result apply(Ledger ledger, List<List<Object>> lists) {
+        List<Object> addedRecords = new ArrayList<>();
+        List<Object> removedRecords = new ArrayList<>();
+        Set<Object> replacedRecords = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean goalsChanged = false;
+
+        for (List<Object> list : lists) {
+            if (!replaced.isEmpty()) {
+                for (int i = 0; i < list.size(); i++) {
+                    Object replacement = replaced.get(list.get(i));
+                    if (replacement != null) {
+                        removedRecords.add(list.get(i));
+                        replacedRecords.add(list.get(i));
+                        addedRecords.add(replacement);
+                        list.set(i, replacement);
+                    }
+                }
+            }
+            if (!removed.isEmpty()) {
+                list.removeIf(record -> {
+                    if (!removed.contains(record)) return false;
+                    removedRecords.add(record);
+                    return true;
+                });
+            }
+        }
+        for (Object record : removedRecords) goalsChanged |= record instanceof FinancialGoal;
+        for (Object record : added) goalsChanged |= record instanceof FinancialGoal;
+
+        for (Object record : added) {
+            listFor(ledger, record).add(record);
+            addedRecords.add(record);
+        }
+
+        boolean categoriesChanged = false;
+        for (Object record : addedRecords) {
+            if (record instanceof Expense) categoriesChanged |= ledger.getCategories().add(((Expense) record).getCategory());
+        }
+        return new Result(addedRecords, removedRecords, replacedRecords, goalsChanged, categoriesChanged);
+    }
+
+    private void checkGoalNames(Ledger ledger, List<String> problems) {
+        Set<String> names = new HashSet<>();
+        for (FinancialGoal goal : ledger.getGoals()) {
+            if (removed.contains(goal)) continue;
+            Object replacement = replaced.get(goal);
+            String name = replacement != null ? ((FinancialGoal) replacement).getName() : goal.getName();
+            if (!names.add(name.toLowerCase())) problems.add("Цель с названием '" + name + "' уже существует.");
+        }
+        for (Object record : added) {
+            if (record instanceof FinancialGoal && !names.add(((FinancialGoal) record).getName().toLowerCase())) {
+                problems.add("Цель с названием '" + ((FinancialGoal) record).getName() + "' уже существует.");
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<Object>> lists(Ledger ledger) {
+        List<List<Object>> lists = new ArrayList<>();
+        lists.add((List<Object>) (List<?>) ledger.getIncomes());
+        lists.add((List<Object>) (List<?>) ledger.getExpenses());
+        lists.add((List<Object>) (List<?>) ledger.getRecurringIncomes());
+        lists.add((List<Object>) (List<?>) ledger.getRecurringExpenses());
+        lists.add((List<Object>) (List<?>) ledger.getGoals());
+        return lists;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> listFor(Ledger ledger, Object record) {
+        List<?> list;
+        if (record instanceof RecurringIncome) list = ledger.getRecurringIncomes();
+        else if (record instanceof RecurringExpense) list = ledger.getRecurringExpenses();
+        else if (record instanceof Income) list = ledger.getIncomes();
+        else if (record instanceof Expense) list = ledger.getExpenses();
+        else if (record instanceof FinancialGoal) list = ledger.getGoals();
+        else throw new IllegalArgumentException("Неизвестный тип записи: " + record);
+        return (List<Object>) list;
+    }
+
+    private static String validate(Object record) {
+        if (record instanceof Income) {
+            Income inc = (Income) record;
+            if (!(inc.getAmount() > 0)) return "сумма должна быть положительным числом";
+            if (inc.getDescription() == null || inc.getDescription().isEmpty()) return "не указано описание";
+            if (inc.getDate() == null) return "не указана дата";
+        } else if (record instanceof Expense) {
+            Expense exp = (Expense) record;
+            if (!(exp.getAmount() > 0)) return "сумма должна быть положительным числом";
+            if (exp.getDescription() == null || exp.getDescription().isEmpty()) return "не указано описание";
+            if (exp.getCategory() == null || exp.getCategory().isEmpty()) return "не указана категория";
+            if (exp.getDate() == null) return "не указана дата";
+        } else if (record instanceof FinancialGoal) {
+            FinancialGoal goal = (FinancialGoal) record;
+            if (goal.getName() == null || goal.getName().isEmpty()) return "не указано название цели";
+            if (!(goal.getTargetAmount() > 0)) return "целевая сумма должна быть положительным числом";
+            if (goal.getCurrentAmount() < 0) return "текущая сумма не может быть отрицательной";
+            if (goal.getDueDate() == null) return "не указана дата завершения";
+        } else {
+            return "неизвестный тип записи";
+        }
+        if (record instanceof RecurringIncome && ((RecurringIncome) record).getRepetitions() < 0
+                || record instanceof RecurringExpense && ((RecurringExpense) record).getRepetitions() < 0) {
+            return "количество повторений не может быть отрицательным";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class LedgerCache {
+    private final int maxLedgers;
+    private final long maxRecords;
+    private final LinkedHashMap<File, Ledger> ledgers = new LinkedHashMap<>(16, 0.75f, true);
+
+    LedgerCache(int maxLedgers, long maxRecords) {
+        if (maxLedgers < 1) throw new IllegalArgumentException("Кэш должен вмещать хотя бы один бюджет: " + maxLedgers);
+        this.maxLedgers = maxLedgers;
+        this.maxRecords = maxRecords;
+    }
+
+    public Ledger get(File file) {
+        return ledgers.get(file);
+    }
+
+    public List<File> put(File file, Ledger ledger) {
+        ledgers.put(file, ledger);
+        return trim(file);
+    }
+
+    public boolean contains(File file) {
+        return ledgers.containsKey(file);
+    }
+
+    public int size() {
+        return ledgers.size();
+    }
+
+    public long recordCount() {
+        long total = 0;
+        for (Ledger ledger : ledgers.values()) total += ledger.recordCount();
+        return total;
+    }
+
+    public List<File> trim(File pinned) {
+        List<File> evicted = new ArrayList<>();
+        long records = recordCount();
+        Iterator<Map.Entry<File, Ledger>> eldest = ledgers.entrySet().iterator();
+        while (eldest.hasNext() && (ledgers.size() > maxLedgers || records > maxRecords)) {
+            Map.Entry<File, Ledger> entry = eldest.next();
+            if (entry.getKey().equals(pinned)) continue;
+            records -= entry.getValue().recordCount();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    public List<File> mostRecentFirst() {
+        List<File> files = new ArrayList<>(ledgers.keySet());
+        Collections.reverse(files);
+        return files;
+    }
+}
@@ -0,0 +1,251 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+class LedgerDiff {
+    static final class Digest {
+        private final long[] incomes;
+        private final long[] expenses;
+        private final long[] recurringIncomes;
+        private final long[] recurringExpenses;
+        private final Map<String, Double> budget;
+        private final Map<String, BudgetPeriod> budgetPeriods;
+        private final Map<String, String> goals;
+        private final Set<String> categories;
+        private final Map<String, String> categoryRules;
+        private final List<Double> alertThresholds;
+        private final double dailyAlertLimit;
+
+        private Digest(Ledger ledger) {
+            incomes = sortedKeys(ledger.getIncomes(), LedgerDiff::key);
+            expenses = sortedKeys(ledger.getExpenses(), LedgerDiff::key);
+            recurringIncomes = sortedKeys(ledger.getRecurringIncomes(), LedgerDiff::key);
+            recurringExpenses = sortedKeys(ledger.getRecurringExpenses(), LedgerDiff::key);
+            budget = new HashMap<>(ledger.getBudget());
+            budgetPeriods = new HashMap<>(ledger.getBudgetPeriods());
+            goals = goalLines(ledger.getGoals());
+            categories = new HashSet<>(ledger.getCategories());
+            categoryRules = new HashMap<>(ledger.getCategoryRules());
+            alertThresholds = new ArrayList<>(ledger.getAlertThresholds());
+            dailyAlertLimit = ledger.getDailyAlertLimit();
+        }
+
+        static Digest of(Ledger ledger) {
+            return new Digest(ledger);
+        }
+    }
+
+    static final class Section<T> {
+        final List<T> added;
+        final Map<Long, Integer> removed;
+
+        private Section(List<T> remote, long[] base, ToLongFunction<T> key) {
+            long[] remoteKeys = sortedKeys(remote, key);
+            Map<Long, Integer> addedKeys = counts(minus(remoteKeys, base));
+            List<T> added = new ArrayList<>();
+            if (!addedKeys.isEmpty()) {
+                for (T record : remote) {
+                    if (take(addedKeys, key.applyAsLong(record))) added.add(record);
+                }
+            }
+            this.added = added;
+            this.removed = counts(minus(base, remoteKeys));
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    static final class Change<V> {
+        final V base;
+        final V remote;
+
+        private Change(V base, V remote) {
+            this.base = base;
+            this.remote = remote;
+        }
+    }
+
+    final Digest baseDigest;
+    final Digest remoteDigest;
+    final Section<Income> incomes;
+    final Section<Expense> expenses;
+    final Section<RecurringIncome> recurringIncomes;
+    final Section<RecurringExpense> recurringExpenses;
+    final Map<String, Change<Double>> budget;
+    final Map<String, Change<BudgetPeriod>> budgetPeriods;
+    final Map<String, Change<FinancialGoal>> goals;
+    final Set<String> addedCategories;
+    final Set<String> removedCategories;
+    final Map<String, Change<String>> categoryRules;
+    final Change<List<Double>> alertThresholds;
+    final Change<Double> dailyAlertLimit;
+
+    private LedgerDiff(Digest base, Ledger remote) {
+        baseDigest = base;
+        remoteDigest = Digest.of(remote);
+        incomes = new Section<>(remote.getIncomes(), base.incomes, LedgerDiff::key);
+        expenses = new Section<>(remote.getExpenses(), base.expenses, LedgerDiff::key);
+        recurringIncomes = new Section<>(remote.getRecurringIncomes(), base.recurringIncomes, LedgerDiff::key);
+        recurringExpenses = new Section<>(remote.getRecurringExpenses(), base.recurringExpenses, LedgerDiff::key);
+
+        budget = changes(base.budget, remote.getBudget());
+        budgetPeriods = changes(base.budgetPeriods, remote.getBudgetPeriods());
+
+        goals = new LinkedHashMap<>();
+        Map<String, FinancialGoal> remoteGoals = new LinkedHashMap<>();
+        for (FinancialGoal goal : remote.getGoals()) remoteGoals.put(goal.getName(), goal);
+        Set<String> goalNames = new HashSet<>(base.goals.keySet());
+        goalNames.addAll(remoteGoals.keySet());
+        for (String name : goalNames) {
+            String before = base.goals.get(name);
+            FinancialGoal after = remoteGoals.get(name);
+            if (!Objects.equals(before, after == null ? null : Ledger.line(after))) {
+                goals.put(name, new Change<>(before == null ? null : parseGoal(before), after));
+            }
+        }
+
+        addedCategories = new HashSet<>(remote.getCategories());
+        addedCategories.removeAll(base.categories);
+        removedCategories = new HashSet<>(base.categories);
+        removedCategories.removeAll(remote.getCategories());
+        categoryRules = changes(base.categoryRules, remote.getCategoryRules());
+        alertThresholds = change(base.alertThresholds, new ArrayList<>(remote.getAlertThresholds()));
+        dailyAlertLimit = change(base.dailyAlertLimit, remote.getDailyAlertLimit());
+    }
+
+    static LedgerDiff between(Digest base, Ledger remote) {
+        return new LedgerDiff(base, remote);
+    }
+
+    boolean isEmpty() {
+        return incomes.isEmpty() && expenses.isEmpty() && recurringIncomes.isEmpty() && recurringExpenses.isEmpty()
+                && budget.isEmpty() && budgetPeriods.isEmpty() && goals.isEmpty() && addedCategories.isEmpty() && removedCategories.isEmpty()
+                && categoryRules.isEmpty() && alertThresholds == null && dailyAlertLimit == null;
+    }
+
+    int recordChanges() {
+        return incomes.added.size() + expenses.added.size() + recurringIncomes.added.size() + recurringExpenses.added.size()
+                + total(incomes.removed) + total(expenses.removed) + total(recurringIncomes.removed) + total(recurringExpenses.removed);
+    }
+
+    static boolean take(Map<Long, Integer> counts, long key) {
+        Integer count = counts.get(key);
+        if (count == null) return false;
+        if (count == 1) counts.remove(key);
+        else counts.put(key, count - 1);
+        return true;
+    }
+
+    private static <V> Change<V> change(V base, V remote) {
+        return Objects.equals(base, remote) ? null : new Change<>(base, remote);
+    }
+
+    private static <V> Map<String, Change<V>> changes(Map<String, V> base, Map<String, V> remote) {
+        Map<String, Change<V>> changes = new LinkedHashMap<>();
+        Set<String> keys = new HashSet<>(base.keySet());
+        keys.addAll(remote.keySet());
+        for (String key : keys) {
+            V before = base.get(key);
+            V after = remote.get(key);
+            Change<V> change = change(before, after);
+            if (change != null) changes.put(key, change);
+        }
+        return changes;
+    }
+
+    static Map<String, String> goalLines(List<FinancialGoal> goals) {
+        Map<String, String> lines = new HashMap<>();
+        for (FinancialGoal goal : goals) lines.put(goal.getName(), Ledger.line(goal));
+        return lines;
+    }
+
+    static long key(Income inc) {
+        long h = mix(0x1L, Math.round(inc.getAmount() * 100));
+        h = mix(h, inc.getDescription());
+        h = mix(h, String.valueOf(inc.getCurrency()));
+        return mix(h, inc.getDate().toEpochDay());
+    }
+
+    static long key(Expense exp) {
+        long h = mix(0x2L, Math.round(exp.getAmount() * 100));
+        h = mix(h, exp.getDescription());
+        h = mix(h, exp.getCategory());
+        h = mix(h, String.valueOf(exp.getCurrency()));
+        return mix(h, exp.getDate().toEpochDay());
+    }
+
+    static long key(RecurringIncome rInc) {
+        long h = mix(key((Income) rInc), String.valueOf(rInc.getRule()));
+        return mix(h, rInc.getRepetitions());
+    }
+
+    static long key(RecurringExpense rExp) {
+        long h = mix(key((Expense) rExp), String.valueOf(rExp.getRule()));
+        return mix(h, rExp.getRepetitions());
+    }
+
+    private static FinancialGoal parseGoal(String line) {
+        String[] parts = line.split(";", -1);
+        FinancialGoal goal = new FinancialGoal(parts[0], Double.parseDouble(parts[1].replace(',', '.')),
+                Double.parseDouble(parts[2].replace(',', '.')), Ledger.parseDate(parts[3]));
+        goal.setCurrency(Ledger.currencyOf(parts, 4));
+        return goal;
+    }
+
+    private static <T> long[] sortedKeys(List<T> records, ToLongFunction<T> key) {
+        long[] keys = new long[records.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = key.applyAsLong(records.get(i));
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static long[] minus(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        int n = 0, i = 0, j = 0;
+        while (i < a.length) {
+            if (j >= b.length || a[i] < b[j]) result[n++] = a[i++];
+            else if (a[i] > b[j]) j++;
+            else { i++; j++; }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static Map<Long, Integer> counts(long[] keys) {
+        if (keys.length == 0) return Collections.emptyMap();
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long key : keys) counts.merge(key, 1, Integer::sum);
+        return counts;
+    }
+
+    private static int total(Map<Long, Integer> counts) {
+        int total = 0;
+        for (int count : counts.values()) total += count;
+        return total;
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static long mix(long h, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h, value.length());
+    }
+}
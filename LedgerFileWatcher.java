@@ -0,0 +1,81 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+class LedgerFileWatcher {
+    private static final long SETTLE_MILLIS = 300;
+
+    private final WatchService watchService;
+    private final Consumer<File> onChange;
+    private final Thread watcher;
+    private volatile File target;
+    private WatchKey key;
+
+    LedgerFileWatcher(Consumer<File> onChange) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.onChange = onChange;
+        this.watcher = new Thread(this::run, "ledger-watch");
+        this.watcher.setDaemon(true);
+    }
+
+    public void start() {
+        watcher.start();
+    }
+
+    public synchronized void watch(File file) throws IOException {
+        Path directory = file.getAbsoluteFile().getParentFile().toPath();
+        if (key != null && !key.watchable().equals(directory)) {
+            key.cancel();
+            key = null;
+        }
+        if (key == null) {
+            key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        target = file;
+    }
+
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Не удалось остановить наблюдение за файлом: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        File changed = null;
+        try {
+            while (true) {
+                WatchKey signalled = changed == null ? watchService.take() : watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (signalled == null) {
+                    if (changed.equals(target)) onChange.accept(changed);
+                    changed = null;
+                    continue;
+                }
+                File watched = target;
+                for (WatchEvent<?> event : signalled.pollEvents()) {
+                    Object context = event.context();
+                    if (watched != null && event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = watched;
+                    } else if (watched != null && context instanceof Path && watched.getName().equals(context.toString())
+                            && signalled.watchable().equals(watched.getAbsoluteFile().getParentFile().toPath())) {
+                        changed = watched;
+                    }
+                }
+                signalled.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // наблюдение остановлено
+        }
+    }
+}
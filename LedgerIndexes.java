@@ -0,0 +1,183 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+class LedgerIndexes {
+    static final class Rebuilt {
+        private final LedgerIndexes indexes;
+        private final List<RebuildableAggregate> built;
+
+        private Rebuilt(LedgerIndexes indexes, List<RebuildableAggregate> built) {
+            this.indexes = indexes;
+            this.built = built;
+        }
+    }
+
+    private final List<LedgerAggregate> aggregates = new ArrayList<>();
+    private final List<LedgerAggregate> observers = new ArrayList<>();
+    private final FxRates rates;
+    private final Set<RecurringIncome> recurringIncomes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<RecurringExpense> recurringExpenses = Collections.newSetFromMap(new IdentityHashMap<>());
+    private LocalDate indexedThrough = LocalDate.now();
+    private boolean rebuilding;
+
+    LedgerIndexes(FxRates rates) {
+        this.rates = rates;
+    }
+
+    public void register(LedgerAggregate aggregate) {
+        aggregates.add(aggregate);
+    }
+
+    public void observe(LedgerAggregate observer) {
+        observers.add(observer);
+    }
+
+    public void incomeAdded(Income income) {
+        income(income, 1);
+    }
+
+    public void incomeRemoved(Income income) {
+        income(income, -1);
+    }
+
+    public void expenseAdded(Expense expense) {
+        expense(expense, 1);
+    }
+
+    public void expenseRemoved(Expense expense) {
+        expense(expense, -1);
+    }
+
+    public void recurringIncomeAdded(RecurringIncome rInc) {
+        if (!recurringIncomes.add(rInc)) return;
+        recurringChanged();
+        trackRecurringIncome(rInc, rInc.getDate(), indexedThrough, 1);
+    }
+
+    public void recurringIncomeRemoved(RecurringIncome rInc) {
+        if (!recurringIncomes.remove(rInc)) return;
+        recurringChanged();
+        trackRecurringIncome(rInc, rInc.getDate(), indexedThrough, -1);
+    }
+
+    public void recurringExpenseAdded(RecurringExpense rExp) {
+        if (!recurringExpenses.add(rExp)) return;
+        recurringChanged();
+        trackRecurringExpense(rExp, rExp.getDate(), indexedThrough, 1);
+    }
+
+    public void recurringExpenseRemoved(RecurringExpense rExp) {
+        if (!recurringExpenses.remove(rExp)) return;
+        recurringChanged();
+        trackRecurringExpense(rExp, rExp.getDate(), indexedThrough, -1);
+    }
+
+    public LocalDate getIndexedThrough() {
+        return indexedThrough;
+    }
+
+    public boolean advanceTo(LocalDate today) {
+        if (!today.isAfter(indexedThrough)) return false;
+        LocalDate from = indexedThrough.plusDays(1);
+        indexedThrough = today;
+        for (RecurringIncome rInc : recurringIncomes) trackRecurringIncome(rInc, from, today, 1);
+        for (RecurringExpense rExp : recurringExpenses) trackRecurringExpense(rExp, from, today, 1);
+        return true;
+    }
+
+    public void rebuild(List<Income> incomes, List<Expense> expenses,
+                        List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses) {
+        for (LedgerAggregate aggregate : aggregates) aggregate.clear();
+        this.recurringIncomes.clear();
+        this.recurringExpenses.clear();
+        indexedThrough = LocalDate.now();
+        rebuilding = true;
+        try {
+            for (Income inc : incomes) incomeAdded(inc);
+            for (Expense exp : expenses) expenseAdded(exp);
+            for (RecurringIncome rInc : recurringIncomes) recurringIncomeAdded(rInc);
+            for (RecurringExpense rExp : recurringExpenses) recurringExpenseAdded(rExp);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    // Safe to call off the EDT: fills detached copies of the aggregates without touching the registered ones.
+    public Rebuilt prepare(List<Income> incomes, List<Expense> expenses,
+                           List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses) {
+        LedgerIndexes detached = new LedgerIndexes(rates);
+        List<RebuildableAggregate> built = new ArrayList<>();
+        for (LedgerAggregate aggregate : aggregates) {
+            RebuildableAggregate copy = aggregate instanceof RebuildableAggregate ? ((RebuildableAggregate) aggregate).detached() : null;
+            built.add(copy);
+            if (copy != null) detached.register(copy);
+        }
+        detached.rebuild(incomes, expenses, recurringIncomes, recurringExpenses);
+        return new Rebuilt(detached, built);
+    }
+
+    public void install(Rebuilt rebuilt, List<Income> incomes, List<Expense> expenses,
+                        List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses) {
+        for (int i = 0; i < aggregates.size(); i++) {
+            RebuildableAggregate built = rebuilt.built.get(i);
+            if (built != null) ((RebuildableAggregate) aggregates.get(i)).adopt(built);
+            else aggregates.get(i).clear();
+        }
+        this.recurringIncomes.clear();
+        this.recurringIncomes.addAll(rebuilt.indexes.recurringIncomes);
+        this.recurringExpenses.clear();
+        this.recurringExpenses.addAll(rebuilt.indexes.recurringExpenses);
+        indexedThrough = rebuilt.indexes.indexedThrough;
+        rebuilding = true;
+        try {
+            for (Income inc : incomes) incomeAdded(inc);
+            for (Expense exp : expenses) expenseAdded(exp);
+            for (RecurringIncome rInc : recurringIncomes) recurringIncomeAdded(rInc);
+            for (RecurringExpense rExp : recurringExpenses) recurringExpenseAdded(rExp);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    private void income(Income income, int sign) {
+        if (income.getCurrency() != null) income = new Income(rates.toBase(income), income.getDescription(), income.getDate());
+        for (LedgerAggregate aggregate : aggregates) aggregate.onIncome(income, sign);
+        if (!rebuilding) {
+            for (LedgerAggregate observer : observers) observer.onIncome(income, sign);
+        }
+    }
+
+    private void expense(Expense expense, int sign) {
+        if (expense.getCurrency() != null) {
+            expense = new Expense(rates.toBase(expense), expense.getDescription(), expense.getCategory(), expense.getDate());
+        }
+        for (LedgerAggregate aggregate : aggregates) aggregate.onExpense(expense, sign);
+        if (!rebuilding) {
+            for (LedgerAggregate observer : observers) observer.onExpense(expense, sign);
+        }
+    }
+
+    private void recurringChanged() {
+        for (LedgerAggregate aggregate : aggregates) aggregate.onRecurringChanged();
+    }
+
+    private void trackRecurringIncome(RecurringIncome rInc, LocalDate from, LocalDate to, int sign) {
+        rInc.forEachOccurrence(from, to, transactionDate -> {
+            double amount = rates.toBase(rInc.getAmount(), rInc.getCurrency(), transactionDate);
+            income(new Income(amount, rInc.getDescription() + " (Повтор)", transactionDate), sign);
+        });
+    }
+
+    private void trackRecurringExpense(RecurringExpense rExp, LocalDate from, LocalDate to, int sign) {
+        rExp.forEachOccurrence(from, to, transactionDate -> {
+            double amount = rates.toBase(rExp.getAmount(), rExp.getCurrency(), transactionDate);
+            expense(new Expense(amount, rExp.getDescription() + " (Повтор)", rExp.getCategory(), transactionDate), sign);
+        });
+    }
+}
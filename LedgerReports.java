@@ -0,0 +1,450 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+class LedgerReports {
+    static final int MONTE_CARLO_PATHS = 10_000;
+    static final int MONTE_CARLO_LOOKBACK_MONTHS = 12;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final RollupCube rollupCube;
+    private final ExpenseDistributionIndex expenseDistribution;
+    private final PeriodSpendIndex periodSpend;
+
+    LedgerReports(RollupCube rollupCube, ExpenseDistributionIndex expenseDistribution, PeriodSpendIndex periodSpend) {
+        this.rollupCube = rollupCube;
+        this.expenseDistribution = expenseDistribution;
+        this.periodSpend = periodSpend;
+    }
+
+    public void writeReport(LedgerSnapshot snapshot, String searchKeyword, String filterCategory, String filterMonth, String filterYear,
+                            PrintWriter out) {
+        out.print("===== ОБЩИЙ ФИНАНСОВЫЙ ОТЧЕТ =====\n");
+        out.print("Дата отчета: " + LocalDate.now().format(DATE_FORMATTER) + " " + LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")) + "\n\n");
+
+        FxRates rates = snapshot.getRates();
+        List<Income> effectiveIncomes = snapshot.getEffectiveIncomes(LocalDate.now());
+        List<Expense> effectiveExpenses = snapshot.getEffectiveExpenses(LocalDate.now());
+        ViewRecomputer.checkCancelled();
+
+        List<Income> filteredIncomes = effectiveIncomes.stream()
+                .filter(incomeFilter(searchKeyword, filterMonth, filterYear))
+                .collect(Collectors.toList());
+
+        List<Expense> filteredExpenses = effectiveExpenses.stream()
+                .filter(expenseFilter(searchKeyword, filterCategory, filterMonth, filterYear))
+                .collect(Collectors.toList());
+
+        double totalIncome = filteredIncomes.stream().mapToDouble(rates::toBase).sum();
+        double totalExpense = filteredExpenses.stream().mapToDouble(rates::toBase).sum();
+        double currentBalance = totalIncome - totalExpense;
+
+        if (!rates.currencies().isEmpty()) out.printf("Суммы приведены к %s по курсу на дату операции.%n", rates.getBase());
+        out.printf("Общая сумма доходов (отфильтровано): %.2f%n", totalIncome);
+        out.printf("Общая сумма расходов (отфильтровано): %.2f%n", totalExpense);
+        out.printf("Текущий баланс: %.2f%n%n", currentBalance);
+
+        out.print("===== РАСХОДЫ ПО КАТЕГОРИЯМ =====\n");
+        Map<String, Double> expensesByCategory = filteredExpenses.stream()
+                .collect(Collectors.groupingBy(Expense::getCategory, Collectors.summingDouble(rates::toBase)));
+        Map<String, Double> budget = snapshot.getBudget();
+        Set<String> treeCategories = new HashSet<>(expensesByCategory.keySet());
+        treeCategories.addAll(budget.keySet());
+        CategoryTree tree = CategoryTree.of(treeCategories);
+        double[] rolledUp = tree.rollup(expensesByCategory);
+
+        if (!expensesByCategory.isEmpty()) {
+            writeCategoryTree(out, tree, rolledUp, "- ", "");
+        } else {
+            out.print("Нет отфильтрованных расходов по категориям.\n");
+        }
+        out.print("\n");
+
+        out.print("===== РАСПРЕДЕЛЕНИЕ РАСХОДОВ ПО КАТЕГОРИЯМ =====\n");
+        if (!expensesByCategory.isEmpty()) {
+            Map<String, TDigest> distributions = expenseDistributions(snapshot, filteredExpenses, expensesByCategory.keySet(), searchKeyword, filterMonth, filterYear);
+            distributions.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> {
+                        TDigest digest = entry.getValue();
+                        out.printf("- %s: Медиана: %.2f, P90: %.2f, P99: %.2f, Записей: %d%n",
+                                capitalize(entry.getKey()), digest.quantile(0.5), digest.quantile(0.9), digest.quantile(0.99), digest.size());
+                    });
+            if (distributions.size() == 1) {
+                writeHistogram(out, distributions.values().iterator().next(), 10);
+            }
+        } else {
+            out.print("Нет данных для распределения расходов.\n");
+        }
+        out.print("\n");
+
+        out.print("===== СТАТУС БЮДЖЕТА =====\n");
+        if (!budget.isEmpty()) {
+            budget.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> {
+                        String category = entry.getKey();
+                        double limit = entry.getValue();
+                        BudgetPeriod period = snapshot.getBudgetPeriods().get(category);
+                        if (period != null && periodSpend != null) {
+                            writePeriodBudgetLine(out, category, periodSpend.status(category, limit, period, LocalDate.now()), period);
+                            return;
+                        }
+                        double spent = tree.total(rolledUp, category);
+                        double remaining = limit - spent;
+                        String status = (remaining >= 0) ? "осталось" : "превышен";
+                        out.printf("- %s: Лимит: %.2f, Потрачено: %.2f, %s: %.2f%n", capitalize(category), limit, spent, status, remaining);
+                    });
+        } else {
+            out.print("Бюджет не установлен для каких-либо категорий.\n");
+        }
+        out.print("\n");
+
+        out.print("===== СПИСОК РАЗОВЫХ ДОХОДОВ =====\n");
+        int number = 0;
+        for (Income inc : filteredIncomes) {
+            if (inc.getDescription().contains("(Повтор)")) continue;
+            if (number % 1024 == 0) ViewRecomputer.checkCancelled();
+            out.printf("%d. Дата: %s, Сумма: %.2f%s, Описание: %s%n",
+                    ++number, inc.getDate().format(DATE_FORMATTER), inc.getAmount(), currencyNote(inc.getCurrency()), inc.getDescription());
+        }
+        if (number == 0) out.print("Нет отфильтрованных разовых записей о доходах.\n");
+        out.print("\n");
+
+        out.print("===== СПИСОК РАЗОВЫХ РАСХОДОВ =====\n");
+        number = 0;
+        for (Expense exp : filteredExpenses) {
+            if (exp.getDescription().contains("(Повтор)")) continue;
+            if (number % 1024 == 0) ViewRecomputer.checkCancelled();
+            out.printf("%d. Дата: %s, Сумма: %.2f%s, Категория: %s, Описание: %s%n",
+                    ++number, exp.getDate().format(DATE_FORMATTER), exp.getAmount(), currencyNote(exp.getCurrency()), capitalize(exp.getCategory()), exp.getDescription());
+        }
+        if (number == 0) out.print("Нет отфильтрованных разовых записей о расходах.\n");
+        out.print("\n");
+
+        out.print("===== СПИСОК ПОВТОРЯЮЩИХСЯ ДОХОДОВ =====\n");
+        List<RecurringIncome> recurringIncomes = snapshot.getRecurringIncomes();
+        if (!recurringIncomes.isEmpty()) {
+            for (int i = 0; i < recurringIncomes.size(); i++) {
+                RecurringIncome rInc = recurringIncomes.get(i);
+                out.printf("%d. Нач. дата: %s, Сумма: %.2f%s, Описание: %s, Частота: %s, Повторений: %d%n",
+                        i + 1, rInc.getDate().format(DATE_FORMATTER), rInc.getAmount(), currencyNote(rInc.getCurrency()), rInc.getDescription(), rInc.getFrequency(), rInc.getRepetitions());
+            }
+        } else {
+            out.print("Нет повторяющихся записей о доходах.\n");
+        }
+        out.print("\n");
+
+        out.print("===== СПИСОК ПОВТОРЯЮЩИХСЯ РАСХОДОВ =====\n");
+        List<RecurringExpense> recurringExpenses = snapshot.getRecurringExpenses();
+        if (!recurringExpenses.isEmpty()) {
+            for (int i = 0; i < recurringExpenses.size(); i++) {
+                RecurringExpense rExp = recurringExpenses.get(i);
+                out.printf("%d. Нач. дата: %s, Сумма: %.2f%s, Категория: %s, Описание: %s, Частота: %s, Повторений: %d%n",
+                        i + 1, rExp.getDate().format(DATE_FORMATTER), rExp.getAmount(), currencyNote(rExp.getCurrency()), rExp.getDescription(), capitalize(rExp.getCategory()), rExp.getFrequency(), rExp.getRepetitions());
+            }
+        } else {
+            out.print("Нет повторяющихся записей о расходах.\n");
+        }
+        out.print("\n");
+    }
+
+    private static void writePeriodBudgetLine(PrintWriter out, String category, PeriodSpendIndex.Status status, BudgetPeriod period) {
+        String state = status.remaining() >= 0 ? "осталось" : "превышен";
+        out.printf("- %s (%s, %s): Лимит: %.2f", capitalize(category), period.describe(), status.periodLabel(), status.limit);
+        if (period.isRollover()) out.printf(", Перенос: %.2f", status.carried);
+        out.printf(", Потрачено: %.2f, %s: %.2f%n", status.spent, state, status.remaining());
+    }
+
+    public static boolean isUnfiltered(String searchKeyword, String filterCategory, String filterMonth, String filterYear) {
+        return isBlank(searchKeyword) && isBlank(filterCategory) && isBlank(filterMonth) && isBlank(filterYear);
+    }
+
+    public static Predicate<Income> incomeFilter(String searchKeyword, String filterMonth, String filterYear) {
+        Predicate<String> description = descriptionFilter(searchKeyword);
+        Predicate<LocalDate> date = dateFilter(filterMonth, filterYear);
+        return inc -> description.test(inc.getDescription()) && date.test(inc.getDate());
+    }
+
+    public static Predicate<Expense> expenseFilter(String searchKeyword, String filterCategory, String filterMonth, String filterYear) {
+        Predicate<String> description = descriptionFilter(searchKeyword);
+        Predicate<LocalDate> date = dateFilter(filterMonth, filterYear);
+        String category = isBlank(filterCategory) ? null : CategoryTree.normalize(filterCategory.toLowerCase());
+        return exp -> description.test(exp.getDescription()) &&
+                (category == null || CategoryTree.isWithin(exp.getCategory().toLowerCase(), category)) &&
+                date.test(exp.getDate());
+    }
+
+    private static Predicate<String> descriptionFilter(String searchKeyword) {
+        if (isBlank(searchKeyword)) return text -> true;
+        String keyword = searchKeyword.toLowerCase();
+        return text -> text.toLowerCase().contains(keyword);
+    }
+
+    private static Predicate<LocalDate> dateFilter(String filterMonth, String filterYear) {
+        Predicate<LocalDate> byMonth = date -> true;
+        if (!isBlank(filterMonth)) {
+            YearMonth month = parseFilterMonth(filterMonth);
+            byMonth = month == null ? date -> false : date -> date.getYear() == month.getYear() && date.getMonthValue() == month.getMonthValue();
+        }
+        if (isBlank(filterYear)) return byMonth;
+
+        Integer year = parseFilterYear(filterYear);
+        if (year == null) return date -> false;
+        return byMonth.and(date -> date.getYear() == year);
+    }
+
+    private static YearMonth parseFilterMonth(String text) {
+        try {
+            YearMonth month = YearMonth.parse(text);
+            return month.format(MONTH_FORMATTER).equals(text) ? month : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseFilterYear(String text) {
+        try {
+            int year = Integer.parseInt(text);
+            return String.valueOf(year).equals(text) ? year : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.isEmpty();
+    }
+
+    private Map<String, TDigest> expenseDistributions(LedgerSnapshot snapshot, List<Expense> filteredExpenses, Set<String> reportCategories,
+                                                      String searchKeyword, String filterMonth, String filterYear) {
+        Map<String, TDigest> distributions = new HashMap<>();
+        if (searchKeyword != null && !searchKeyword.isEmpty()) {
+            for (Expense exp : filteredExpenses) {
+                distributions.computeIfAbsent(exp.getCategory(), k -> new TDigest()).add(snapshot.getRates().toBase(exp));
+            }
+            return distributions;
+        }
+
+        YearMonth from = null;
+        YearMonth to = null;
+        try {
+            if (filterMonth != null && !filterMonth.isEmpty()) {
+                from = to = YearMonth.parse(filterMonth);
+            } else if (filterYear != null && !filterYear.isEmpty()) {
+                int year = Integer.parseInt(filterYear);
+                from = YearMonth.of(year, 1);
+                to = YearMonth.of(year, 12);
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return distributions;
+        }
+
+        for (String category : reportCategories) {
+            distributions.put(category, expenseDistribution.distribution(category, from, to,
+                    snapshot::forEachExpenseAmount, snapshot.getDistributionVersion()));
+        }
+        return distributions;
+    }
+
+    private static void writeHistogram(PrintWriter out, TDigest digest, int bins) {
+        double min = digest.getMin();
+        double max = digest.getMax();
+        if (digest.isEmpty() || max <= min) return;
+
+        double[] edges = new double[bins + 1];
+        for (int i = 0; i <= bins; i++) {
+            edges[i] = min + (max - min) * i / bins;
+        }
+        long[] counts = digest.histogram(edges);
+        long peak = Arrays.stream(counts).max().orElse(1);
+
+        out.print("  Гистограмма сумм:\n");
+        for (int i = 0; i < bins; i++) {
+            int barLength = peak > 0 ? (int) Math.round(30.0 * counts[i] / peak) : 0;
+            out.printf("  %10.2f - %10.2f | %-30s %d%n", edges[i], edges[i + 1], "#".repeat(barLength), counts[i]);
+        }
+    }
+
+    public Collection<String> writeSummary(PrintWriter out) {
+        out.print("ЕЖЕМЕСЯЧНАЯ СВОДКА:\n-------------------\n");
+        writeSummaryLines(out, summarizeSeries(rollupCube.series(RollupCube.Level.MONTH, RollupCube.ALL_CATEGORIES),
+                key -> RollupCube.monthOf(key).toString()), "  Нет данных для ежемесячной сводки.\n");
+
+        Map<String, Map<String, Double>> yearlyData = summarizeSeries(
+                rollupCube.series(RollupCube.Level.YEAR, RollupCube.ALL_CATEGORIES), String::valueOf);
+
+        out.print("\nЕЖЕГОДНАЯ СВОДКА:\n-------------------\n");
+        writeSummaryLines(out, yearlyData, "  Нет данных для ежегодной сводки.\n");
+        return new ArrayList<>(yearlyData.keySet());
+    }
+
+    public static Map<String, Map<String, Double>> summarizeSeries(NavigableMap<Integer, double[]> series, IntFunction<String> label) {
+        Map<String, Map<String, Double>> summary = new LinkedHashMap<>();
+        for (Map.Entry<Integer, double[]> entry : series.entrySet()) {
+            double income = entry.getValue()[RollupCube.INCOME];
+            double expense = entry.getValue()[RollupCube.EXPENSE];
+            Map<String, Double> data = new HashMap<>();
+            data.put("income", income);
+            data.put("expense", expense);
+            data.put("balance", income - expense);
+            summary.put(label.apply(entry.getKey()), data);
+        }
+        return summary;
+    }
+
+    public static void writeSummaryLines(PrintWriter out, Map<String, Map<String, Double>> data, String emptyMessage) {
+        if (data.isEmpty()) {
+            out.print(emptyMessage);
+            return;
+        }
+        data.forEach((period, values) ->
+                out.printf("  %s: Доход: %.2f, Расход: %.2f, Баланс: %.2f%n",
+                        period, values.getOrDefault("income", 0.0), values.getOrDefault("expense", 0.0), values.getOrDefault("balance", 0.0)));
+    }
+
+    public static void writeCategoryLines(PrintWriter out, Map<String, Double> byCategory) {
+        if (byCategory.isEmpty()) {
+            out.print("  Нет расходов по категориям.\n");
+            return;
+        }
+        CategoryTree tree = CategoryTree.of(byCategory.keySet());
+        writeCategoryTree(out, tree, tree.rollup(byCategory), "  ", "Расход: ");
+    }
+
+    private static void writeCategoryTree(PrintWriter out, CategoryTree tree, double[] totals, String indent, String valueLabel) {
+        for (int id = 0; id < tree.size(); id++) {
+            if (totals[id] == 0) continue;
+            out.printf("%s%s%s: %s%.2f%n", "  ".repeat(tree.depth(id)), indent, capitalize(tree.label(id)), valueLabel, totals[id]);
+        }
+    }
+
+    public double currentBalance() {
+        double balance = 0;
+        for (double[] totals : rollupCube.series(RollupCube.Level.YEAR, RollupCube.ALL_CATEGORIES).values()) {
+            balance += totals[RollupCube.INCOME] - totals[RollupCube.EXPENSE];
+        }
+        return balance;
+    }
+
+    public ForecastEngine writeForecast(LedgerSnapshot snapshot, int numMonths, boolean stochastic, PrintWriter out) {
+        out.print("ПРОГНОЗ БАЛАНСА:\n-------------------\n\n");
+
+        ForecastEngine engine = ForecastEngine.compile(snapshot.getRecurringIncomes(), snapshot.getRecurringExpenses(), snapshot.getRates(),
+                snapshot.getCurrentBalance(), YearMonth.now().plusMonths(1), numMonths);
+        out.printf("Текущий баланс: %.2f%n%n", engine.getStartingBalance());
+
+        for (int i = 0; i < engine.getHorizon(); i++) {
+            out.printf("  %s: Прогнозируемый баланс: %.2f (Доход: %.2f, Расход: %.2f)%n",
+                    engine.getFirstMonth().plusMonths(i), engine.balanceAt(i), engine.incomeAt(i), engine.expenseAt(i));
+        }
+
+        if (stochastic) {
+            ViewRecomputer.checkCancelled();
+            writeStochasticForecast(out, snapshot, engine);
+        }
+        return engine;
+    }
+
+    private static void writeStochasticForecast(PrintWriter out, LedgerSnapshot snapshot, ForecastEngine engine) {
+        long started = System.nanoTime();
+        MonteCarloForecast model = MonteCarloForecast.fit(snapshot.getIncomes(), snapshot.getExpenses(), snapshot.getRates(), YearMonth.now().minusMonths(1), MONTE_CARLO_LOOKBACK_MONTHS);
+        MonteCarloForecast.Bands bands = model.simulate(engine, MONTE_CARLO_PATHS, System.nanoTime());
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        out.printf("%nСТОХАСТИЧЕСКИЙ ПРОГНОЗ (%d траекторий, %d мс):%n-------------------%n", MONTE_CARLO_PATHS, elapsedMillis);
+        for (int i = 0; i < model.getCategories().size(); i++) {
+            out.printf("  %s: среднее в месяц %.2f, отклонение %.2f%n",
+                    model.getCategories().get(i), model.getExpenseMean(i), model.getExpenseDeviation(i));
+        }
+        for (int i = 0; i < bands.getHorizon(); i++) {
+            out.printf("  %s: P10: %.2f, P50: %.2f, P90: %.2f%n",
+                    bands.getFirstMonth().plusMonths(i), bands.p10(i), bands.p50(i), bands.p90(i));
+        }
+    }
+
+    public static void exportCsv(Ledger ledger, File outputDir) throws IOException {
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "incomes_onetime.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Amount,Description,Date,Currency");
+            for (Income inc : ledger.getIncomes()) {
+                pw.println(String.format("%.2f,%s,%s,%s", inc.getAmount(), inc.getDescription(), inc.getDate().format(DATE_FORMATTER), currencyColumn(inc.getCurrency())));
+            }
+        }
+
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "expenses_onetime.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Amount,Description,Category,Date,Currency");
+            for (Expense exp : ledger.getExpenses()) {
+                pw.println(String.format("%.2f,%s,%s,%s,%s", exp.getAmount(), exp.getDescription(), exp.getCategory(), exp.getDate().format(DATE_FORMATTER), currencyColumn(exp.getCurrency())));
+            }
+        }
+
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "incomes_recurring.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Amount,Description,StartDate,Frequency,Repetitions,Currency");
+            for (RecurringIncome rInc : ledger.getRecurringIncomes()) {
+                pw.println(String.format("%.2f,%s,%s,\"%s\",%d,%s", rInc.getAmount(), rInc.getDescription(), rInc.getDate().format(DATE_FORMATTER), rInc.getRule(), rInc.getRepetitions(), currencyColumn(rInc.getCurrency())));
+            }
+        }
+
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "expenses_recurring.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Amount,Description,Category,StartDate,Frequency,Repetitions,Currency");
+            for (RecurringExpense rExp : ledger.getRecurringExpenses()) {
+                pw.println(String.format("%.2f,%s,%s,%s,\"%s\",%d,%s", rExp.getAmount(), rExp.getDescription(), rExp.getCategory(), rExp.getDate().format(DATE_FORMATTER), rExp.getRule(), rExp.getRepetitions(), currencyColumn(rExp.getCurrency())));
+            }
+        }
+
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "goals.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Name,TargetAmount,CurrentAmount,DueDate,Currency");
+            for (FinancialGoal goal : ledger.getGoals()) {
+                pw.println(String.format("%s,%.2f,%.2f,%s,%s", goal.getName(), goal.getTargetAmount(), goal.getCurrentAmount(), goal.getDueDate().format(DATE_FORMATTER), currencyColumn(goal.getCurrency())));
+            }
+        }
+
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "budget.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Category,Amount");
+            for (Map.Entry<String, Double> entry : ledger.getBudget().entrySet()) {
+                pw.println(String.format("%s,%.2f", entry.getKey(), entry.getValue()));
+            }
+        }
+
+        try (PrintWriter pw = new PrintWriter(new File(outputDir, "categories.csv"), StandardCharsets.UTF_8)) {
+            pw.println("Category");
+            for (String cat : ledger.getCategories()) {
+                pw.println(cat);
+            }
+        }
+    }
+
+    static String currencyNote(String currency) {
+        return currency == null ? "" : " " + currency;
+    }
+
+    private static String currencyColumn(String currency) {
+        return currency == null ? "" : currency;
+    }
+
+    static String capitalize(String text) {
+        return text.substring(0, 1).toUpperCase() + text.substring(1);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjDoubleConsumer;
+
+// Only the lists are copied; this relies on records never being mutated once they are in the ledger.
+class LedgerSnapshot {
+    private final List<Income> incomes;
+    private final List<Expense> expenses;
+    private final List<RecurringIncome> recurringIncomes;
+    private final List<RecurringExpense> recurringExpenses;
+    private final List<FinancialGoal> goals;
+    private final Map<String, Double> budget;
+    private final Map<String, BudgetPeriod> budgetPeriods;
+    private final FxRates rates;
+    private final double currentBalance;
+    private final long distributionVersion;
+    private final long projectionVersion;
+
+    LedgerSnapshot(Collection<Income> incomes, Collection<Expense> expenses,
+                   Collection<RecurringIncome> recurringIncomes, Collection<RecurringExpense> recurringExpenses,
+                   Collection<FinancialGoal> goals, Map<String, Double> budget, Map<String, BudgetPeriod> budgetPeriods,
+                   FxRates rates, double currentBalance, long distributionVersion, long projectionVersion) {
+        this.incomes = new ArrayList<>(incomes);
+        this.expenses = new ArrayList<>(expenses);
+        this.recurringIncomes = new ArrayList<>(recurringIncomes);
+        this.recurringExpenses = new ArrayList<>(recurringExpenses);
+        this.goals = new ArrayList<>(goals);
+        this.budget = new HashMap<>(budget);
+        this.budgetPeriods = new HashMap<>(budgetPeriods);
+        this.rates = rates;
+        this.currentBalance = currentBalance;
+        this.distributionVersion = distributionVersion;
+        this.projectionVersion = projectionVersion;
+    }
+
+    public List<Income> getIncomes() { return incomes; }
+    public List<Expense> getExpenses() { return expenses; }
+    public List<RecurringIncome> getRecurringIncomes() { return recurringIncomes; }
+    public List<RecurringExpense> getRecurringExpenses() { return recurringExpenses; }
+    public List<FinancialGoal> getGoals() { return goals; }
+    public Map<String, Double> getBudget() { return budget; }
+    public Map<String, BudgetPeriod> getBudgetPeriods() { return budgetPeriods; }
+    public FxRates getRates() { return rates; }
+    public double getCurrentBalance() { return currentBalance; }
+    public long getDistributionVersion() { return distributionVersion; }
+    public long getProjectionVersion() { return projectionVersion; }
+
+    public List<Income> getEffectiveIncomes(LocalDate untilDate) {
+        List<Income> effectiveIncomes = new ArrayList<>(incomes);
+        if (untilDate == null) untilDate = LocalDate.now();
+
+        for (RecurringIncome rInc : recurringIncomes) {
+            rInc.forEachOccurrence(rInc.getDate(), untilDate, transactionDate -> {
+                Income occurrence = new Income(rInc.getAmount(), rInc.getDescription() + " (Повтор)", transactionDate);
+                occurrence.setCurrency(rInc.getCurrency());
+                effectiveIncomes.add(occurrence);
+            });
+        }
+        return effectiveIncomes;
+    }
+
+    public List<Expense> getEffectiveExpenses(LocalDate untilDate) {
+        List<Expense> effectiveExpenses = new ArrayList<>(expenses);
+        if (untilDate == null) untilDate = LocalDate.now();
+
+        for (RecurringExpense rExp : recurringExpenses) {
+            rExp.forEachOccurrence(rExp.getDate(), untilDate, transactionDate -> {
+                Expense occurrence = new Expense(rExp.getAmount(), rExp.getDescription() + " (Повтор)", rExp.getCategory(), transactionDate);
+                occurrence.setCurrency(rExp.getCurrency());
+                effectiveExpenses.add(occurrence);
+            });
+        }
+        return effectiveExpenses;
+    }
+
+    public void forEachExpenseAmount(String category, Set<YearMonth> months, ObjDoubleConsumer<YearMonth> sink) {
+        for (Expense exp : expenses) {
+            if (!exp.getCategory().equals(category)) continue;
+            YearMonth month = YearMonth.from(exp.getDate());
+            if (months.contains(month)) sink.accept(month, rates.toBase(exp));
+        }
+        LocalDate from = Collections.min(months).atDay(1);
+        LocalDate to = Collections.max(months).atEndOfMonth();
+        LocalDate today = LocalDate.now();
+        if (from.isAfter(today)) return;
+        if (to.isAfter(today)) to = today;
+        for (RecurringExpense rExp : recurringExpenses) {
+            if (!rExp.getCategory().equals(category)) continue;
+            rExp.forEachOccurrence(from, to, date -> {
+                YearMonth month = YearMonth.from(date);
+                if (months.contains(month)) sink.accept(month, rates.toBase(rExp.getAmount(), rExp.getCurrency(), date));
+            });
+        }
+    }
+}
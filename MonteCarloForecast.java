@@ -0,0 +1,151 @@
+package org.example;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+class MonteCarloForecast {
+    static class Bands {
+        private final YearMonth firstMonth;
+        private final double[] p10;
+        private final double[] p50;
+        private final double[] p90;
+
+        Bands(YearMonth firstMonth, double[] p10, double[] p50, double[] p90) {
+            this.firstMonth = firstMonth;
+            this.p10 = p10;
+            this.p50 = p50;
+            this.p90 = p90;
+        }
+
+        public YearMonth getFirstMonth() { return firstMonth; }
+        public int getHorizon() { return p50.length; }
+        public double p10(int offset) { return p10[offset]; }
+        public double p50(int offset) { return p50[offset]; }
+        public double p90(int offset) { return p90[offset]; }
+    }
+
+    private final List<String> categories;
+    private final double[] expenseMeans;
+    private final double[] expenseDeviations;
+    private final double incomeMean;
+    private final double incomeDeviation;
+
+    private MonteCarloForecast(List<String> categories, double[] expenseMeans, double[] expenseDeviations,
+                               double incomeMean, double incomeDeviation) {
+        this.categories = categories;
+        this.expenseMeans = expenseMeans;
+        this.expenseDeviations = expenseDeviations;
+        this.incomeMean = incomeMean;
+        this.incomeDeviation = incomeDeviation;
+    }
+
+    public static MonteCarloForecast fit(List<Income> incomes, List<Expense> expenses, FxRates rates, YearMonth lastMonth, int lookbackMonths) {
+        int firstKey = RollupCube.monthKey(lastMonth) - lookbackMonths + 1;
+        int lastKey = RollupCube.monthKey(lastMonth);
+
+        double[] incomeTotals = new double[lookbackMonths];
+        for (Income inc : incomes) {
+            int key = RollupCube.monthKey(YearMonth.from(inc.getDate()));
+            if (key >= firstKey && key <= lastKey) incomeTotals[key - firstKey] += rates.toBase(inc);
+        }
+
+        Map<String, double[]> expenseTotals = new HashMap<>();
+        for (Expense exp : expenses) {
+            int key = RollupCube.monthKey(YearMonth.from(exp.getDate()));
+            if (key >= firstKey && key <= lastKey) {
+                expenseTotals.computeIfAbsent(exp.getCategory(), k -> new double[lookbackMonths])[key - firstKey] += rates.toBase(exp);
+            }
+        }
+
+        List<String> categories = new ArrayList<>(expenseTotals.keySet());
+        categories.sort(String.CASE_INSENSITIVE_ORDER);
+        double[] means = new double[categories.size()];
+        double[] deviations = new double[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            double[] totals = expenseTotals.get(categories.get(i));
+            means[i] = mean(totals);
+            deviations[i] = deviation(totals, means[i]);
+        }
+
+        double incomeMean = mean(incomeTotals);
+        return new MonteCarloForecast(categories, means, deviations, incomeMean, deviation(incomeTotals, incomeMean));
+    }
+
+    public List<String> getCategories() { return categories; }
+    public double getExpenseMean(int category) { return expenseMeans[category]; }
+    public double getExpenseDeviation(int category) { return expenseDeviations[category]; }
+
+    public Bands simulate(ForecastEngine deterministic, int paths, long seed) {
+        int months = deterministic.getHorizon();
+        double[] balances = new double[months * paths];
+        double[] recurringFlow = new double[months];
+        for (int m = 0; m < months; m++) {
+            recurringFlow[m] = deterministic.incomeAt(m) - deterministic.expenseAt(m);
+        }
+
+        int chunks = Math.min(paths, Runtime.getRuntime().availableProcessors() * 4);
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] generators = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) generators[c] = root.split();
+
+        double startingBalance = deterministic.getStartingBalance();
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            SplittableRandom random = generators[c];
+            int from = (int) ((long) paths * c / chunks);
+            int to = (int) ((long) paths * (c + 1) / chunks);
+            for (int p = from; p < to; p++) {
+                double balance = startingBalance;
+                for (int m = 0; m < months; m++) {
+                    balance += recurringFlow[m] + sampleVariableFlow(random);
+                    balances[m * paths + p] = balance;
+                }
+            }
+        });
+
+        double[] p10 = new double[months];
+        double[] p50 = new double[months];
+        double[] p90 = new double[months];
+        IntStream.range(0, months).parallel().forEach(m -> {
+            double[] column = Arrays.copyOfRange(balances, m * paths, (m + 1) * paths);
+            Arrays.sort(column);
+            p10[m] = percentile(column, 0.10);
+            p50[m] = percentile(column, 0.50);
+            p90[m] = percentile(column, 0.90);
+        });
+        return new Bands(deterministic.getFirstMonth(), p10, p50, p90);
+    }
+
+    private double sampleVariableFlow(SplittableRandom random) {
+        double flow = Math.max(0, incomeMean + incomeDeviation * random.nextGaussian());
+        for (int i = 0; i < expenseMeans.length; i++) {
+            flow -= Math.max(0, expenseMeans[i] + expenseDeviations[i] * random.nextGaussian());
+        }
+        return flow;
+    }
+
+    private static double percentile(double[] sorted, double q) {
+        double position = q * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double deviation(double[] values, double mean) {
+        if (values.length < 2) return 0;
+        double sum = 0;
+        for (double v : values) sum += (v - mean) * (v - mean);
+        return Math.sqrt(sum / (values.length - 1));
+    }
+}
@@ -0,0 +1,84 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+class MpscRingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private long head;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Емкость буфера должна быть степенью двойки: " + capacity);
+        }
+        slots = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException();
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        while (!offer(element)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return false;
+            if (++spins < 64) Thread.onSpinWait();
+            else LockSupport.parkNanos(50_000);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> sink, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) break;
+            E element = (E) slots[index];
+            slots[index] = null;
+            sequences.lazySet(index, head + slots.length);
+            head++;
+            drained++;
+            sink.accept(element);
+        }
+        if (drained > 0) consumed.lazySet(head);
+        return drained;
+    }
+
+    public long size() {
+        return Math.max(0, tail.get() - consumed.get());
+    }
+}
@@ -0,0 +1,121 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+class PeriodSpendIndex implements RebuildableAggregate {
+    static final class Status {
+        final BudgetPeriod.Unit unit;
+        final int bucket;
+        final double limit;
+        final double carried;
+        final double spent;
+
+        private Status(BudgetPeriod.Unit unit, int bucket, double limit, double carried, double spent) {
+            this.unit = unit;
+            this.bucket = bucket;
+            this.limit = limit;
+            this.carried = carried;
+            this.spent = spent;
+        }
+
+        double available() {
+            return limit + carried;
+        }
+
+        double remaining() {
+            return available() - spent;
+        }
+
+        double utilization() {
+            return available() > 0 ? spent / available() : spent > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+
+        String periodLabel() {
+            return unit.start(bucket) + " — " + unit.end(bucket);
+        }
+    }
+
+    private static final class Series {
+        final TreeMap<Integer, double[]> cells = new TreeMap<>();
+        double total;
+    }
+
+    private final Map<BudgetPeriod.Unit, Map<String, Series>> buckets = new EnumMap<>(BudgetPeriod.Unit.class);
+
+    PeriodSpendIndex() {
+        for (BudgetPeriod.Unit unit : BudgetPeriod.Unit.values()) buckets.put(unit, new HashMap<>());
+    }
+
+    @Override
+    public void onIncome(Income income, int sign) {
+    }
+
+    @Override
+    public synchronized void onExpense(Expense expense, int sign) {
+        double amount = sign * expense.getAmount();
+        for (String category : CategoryTree.withAncestors(expense.getCategory())) {
+            for (BudgetPeriod.Unit unit : BudgetPeriod.Unit.values()) {
+                apply(unit, category, unit.bucketOf(expense.getDate()), amount, sign);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Map<String, Series> byCategory : buckets.values()) byCategory.clear();
+    }
+
+    @Override
+    public RebuildableAggregate detached() {
+        return new PeriodSpendIndex();
+    }
+
+    @Override
+    public synchronized void adopt(RebuildableAggregate built) {
+        PeriodSpendIndex other = (PeriodSpendIndex) built;
+        for (BudgetPeriod.Unit unit : BudgetPeriod.Unit.values()) {
+            buckets.get(unit).clear();
+            buckets.get(unit).putAll(other.buckets.get(unit));
+        }
+    }
+
+    public synchronized double spent(String category, BudgetPeriod.Unit unit, int bucket) {
+        Series series = buckets.get(unit).get(CategoryTree.normalize(category));
+        if (series == null) return 0;
+        double[] cell = series.cells.get(bucket);
+        return cell == null ? 0 : cell[0];
+    }
+
+    public synchronized Status status(String category, double limit, BudgetPeriod period, LocalDate today) {
+        BudgetPeriod.Unit unit = period.getUnit();
+        int current = unit.bucketOf(today);
+        Series series = buckets.get(unit).get(CategoryTree.normalize(category));
+        if (series == null) return new Status(unit, current, limit, 0, 0);
+
+        double carried = 0;
+        if (period.isRollover() && series.cells.firstKey() < current) {
+            double spentBefore = series.total;
+            for (double[] cell : series.cells.tailMap(current, true).values()) spentBefore -= cell[0];
+            carried = (double) (current - series.cells.firstKey()) * limit - spentBefore;
+        }
+        double[] cell = series.cells.get(current);
+        return new Status(unit, current, limit, carried, cell == null ? 0 : cell[0]);
+    }
+
+    private void apply(BudgetPeriod.Unit unit, String category, int bucket, double amount, int sign) {
+        Series series = buckets.get(unit).computeIfAbsent(category, k -> new Series());
+        double[] cell = series.cells.computeIfAbsent(bucket, k -> new double[2]);
+        cell[0] += amount;
+        cell[1] += sign;
+        series.total += amount;
+        if (cell[1] <= 0) {
+            series.total -= cell[0];
+            series.cells.remove(bucket);
+            if (series.cells.isEmpty()) buckets.get(unit).remove(category);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+final class PersistentList<T> implements Iterable<T> {
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null, null, 0);
+
+    private final T head;
+    private final PersistentList<T> tail;
+    private final int size;
+
+    private PersistentList(T head, PersistentList<T> tail, int size) {
+        this.head = head;
+        this.tail = tail;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    public PersistentList<T> prepend(T value) {
+        return new PersistentList<>(value, this, size + 1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public T head() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return head;
+    }
+
+    public PersistentList<T> tail() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return tail;
+    }
+
+    public Iterable<T> inInsertionOrder() {
+        Deque<T> reversed = new ArrayDeque<>(size);
+        for (T value : this) reversed.push(value);
+        return reversed;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private PersistentList<T> current = PersistentList.this;
+
+            @Override
+            public boolean hasNext() {
+                return !current.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                T value = current.head();
+                current = current.tail;
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package org.example;
+
+// An aggregate whose state can be built off the EDT in a detached instance and then adopted in one step.
+interface RebuildableAggregate extends LedgerAggregate {
+    RebuildableAggregate detached();
+
+    void adopt(RebuildableAggregate built);
+}
@@ -0,0 +1,241 @@
+package org.example;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+class RecurrenceRule {
+    enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    static final String DAILY_LABEL = "Ежедневно";
+    static final String WEEKLY_LABEL = "Еженедельно";
+    static final String BIWEEKLY_LABEL = "Раз в две недели";
+    static final String MONTHLY_LABEL = "Ежемесячно";
+    static final String QUARTERLY_LABEL = "Ежеквартально";
+    static final String YEARLY_LABEL = "Ежегодно";
+    static final String LAST_BUSINESS_DAY_LABEL = "Последний рабочий день месяца";
+    static final String NTH_WEEKDAY_LABEL = "N-й день недели месяца";
+    static final String[] LABELS = {DAILY_LABEL, WEEKLY_LABEL, BIWEEKLY_LABEL, MONTHLY_LABEL, QUARTERLY_LABEL,
+            YEARLY_LABEL, LAST_BUSINESS_DAY_LABEL, NTH_WEEKDAY_LABEL};
+
+    private static final String LAST_BUSINESS_DAY = "LASTBD";
+    private static final String[] WEEKDAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+    private final Frequency frequency;
+    private final int interval;
+    private final int weekdayOrdinal;
+    private final DayOfWeek weekday;
+    private final boolean lastBusinessDay;
+    private final LocalDate until;
+
+    private RecurrenceRule(Frequency frequency, int interval, int weekdayOrdinal, DayOfWeek weekday, boolean lastBusinessDay, LocalDate until) {
+        if (interval <= 0) throw new IllegalArgumentException("Интервал повторения должен быть положительным: " + interval);
+        if (weekday != null && (weekdayOrdinal == 0 || weekdayOrdinal < -1 || weekdayOrdinal > 4)) {
+            throw new IllegalArgumentException("Номер дня недели должен быть от 1 до 4 или -1: " + weekdayOrdinal);
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.weekdayOrdinal = weekdayOrdinal;
+        this.weekday = weekday;
+        this.lastBusinessDay = lastBusinessDay;
+        this.until = until;
+    }
+
+    public static RecurrenceRule every(Frequency frequency, int interval, LocalDate until) {
+        return new RecurrenceRule(frequency, interval, 0, null, false, until);
+    }
+
+    public static RecurrenceRule monthly() {
+        return every(Frequency.MONTHLY, 1, null);
+    }
+
+    public static RecurrenceRule nthWeekday(int ordinal, DayOfWeek weekday, int intervalMonths, LocalDate until) {
+        return new RecurrenceRule(Frequency.MONTHLY, intervalMonths, ordinal, weekday, false, until);
+    }
+
+    public static RecurrenceRule lastBusinessDay(int intervalMonths, LocalDate until) {
+        return new RecurrenceRule(Frequency.MONTHLY, intervalMonths, 0, null, true, until);
+    }
+
+    public static RecurrenceRule fromLabel(String label, LocalDate startDate, LocalDate until) {
+        switch (label) {
+            case DAILY_LABEL: return every(Frequency.DAILY, 1, until);
+            case WEEKLY_LABEL: return every(Frequency.WEEKLY, 1, until);
+            case BIWEEKLY_LABEL: return every(Frequency.WEEKLY, 2, until);
+            case MONTHLY_LABEL: return every(Frequency.MONTHLY, 1, until);
+            case QUARTERLY_LABEL: return every(Frequency.MONTHLY, 3, until);
+            case YEARLY_LABEL: return every(Frequency.YEARLY, 1, until);
+            case LAST_BUSINESS_DAY_LABEL: return lastBusinessDay(1, until);
+            case NTH_WEEKDAY_LABEL: return nthWeekday(weekdayOrdinalOf(startDate), startDate.getDayOfWeek(), 1, until);
+            default: throw new IllegalArgumentException("Неизвестная частота: " + label);
+        }
+    }
+
+    public static RecurrenceRule parse(String text, LocalDate startDate) {
+        if (text == null || text.isEmpty() || text.equals(MONTHLY_LABEL)) return monthly();
+        if (!text.startsWith("FREQ=")) return fromLabel(text, startDate, null);
+
+        Frequency frequency = null;
+        int interval = 1;
+        int ordinal = 0;
+        DayOfWeek weekday = null;
+        boolean lastBusinessDay = false;
+        LocalDate until = null;
+        try {
+            for (String part : text.split(",")) {
+                int eq = part.indexOf('=');
+                if (eq < 0) throw new IllegalArgumentException("Неверная часть правила повторения: " + part);
+                String key = part.substring(0, eq);
+                String value = part.substring(eq + 1);
+                switch (key) {
+                    case "FREQ": frequency = Frequency.valueOf(value); break;
+                    case "INTERVAL": interval = Integer.parseInt(value); break;
+                    case "UNTIL": until = LocalDate.parse(value); break;
+                    case "BYDAY":
+                        if (value.equals(LAST_BUSINESS_DAY)) {
+                            lastBusinessDay = true;
+                        } else {
+                            ordinal = Integer.parseInt(value.substring(0, value.length() - 2));
+                            weekday = weekdayOf(value.substring(value.length() - 2));
+                        }
+                        break;
+                    default: throw new IllegalArgumentException("Неизвестный параметр правила повторения: " + key);
+                }
+            }
+        } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Неверное правило повторения: " + text, e);
+        }
+        if (frequency == null) throw new IllegalArgumentException("В правиле повторения не указана частота: " + text);
+        return new RecurrenceRule(frequency, interval, ordinal, weekday, lastBusinessDay, until);
+    }
+
+    public RecurrenceRule startingOn(LocalDate startDate) {
+        if (weekday == null) return this;
+        return nthWeekday(weekdayOrdinalOf(startDate), startDate.getDayOfWeek(), interval, until);
+    }
+
+    public RecurrenceRule withUntil(LocalDate until) {
+        return Objects.equals(until, this.until) ? this : new RecurrenceRule(frequency, interval, weekdayOrdinal, weekday, lastBusinessDay, until);
+    }
+
+    public Frequency getFrequency() { return frequency; }
+    public int getInterval() { return interval; }
+    public LocalDate getUntil() { return until; }
+
+    public boolean isMonthAligned() {
+        return frequency == Frequency.MONTHLY && interval == 1 && weekday == null && !lastBusinessDay;
+    }
+
+    public String getLabel() {
+        if (lastBusinessDay && interval == 1) return LAST_BUSINESS_DAY_LABEL;
+        if (weekday != null && interval == 1) return NTH_WEEKDAY_LABEL;
+        if (weekday == null && !lastBusinessDay) {
+            if (frequency == Frequency.DAILY && interval == 1) return DAILY_LABEL;
+            if (frequency == Frequency.WEEKLY && interval == 1) return WEEKLY_LABEL;
+            if (frequency == Frequency.WEEKLY && interval == 2) return BIWEEKLY_LABEL;
+            if (frequency == Frequency.MONTHLY && interval == 1) return MONTHLY_LABEL;
+            if (frequency == Frequency.MONTHLY && interval == 3) return QUARTERLY_LABEL;
+            if (frequency == Frequency.YEARLY && interval == 1) return YEARLY_LABEL;
+        }
+        return toString();
+    }
+
+    public String describe() {
+        return getLabel() + (until != null ? " до " + until : "");
+    }
+
+    public LocalDate occurrence(LocalDate start, long index) {
+        long steps = index * interval;
+        switch (frequency) {
+            case DAILY: return start.plusDays(steps);
+            case WEEKLY: return start.plusWeeks(steps);
+            case YEARLY: return start.plusYears(steps);
+            default:
+                if (weekday == null && !lastBusinessDay) return start.plusMonths(steps);
+                return dayInMonth(anchorMonth(start).plusMonths(steps));
+        }
+    }
+
+    public long firstIndexOnOrAfter(LocalDate start, LocalDate date) {
+        if (!date.isAfter(start)) return 0;
+        long estimate;
+        switch (frequency) {
+            case DAILY: estimate = ChronoUnit.DAYS.between(start, date) / interval; break;
+            case WEEKLY: estimate = ChronoUnit.WEEKS.between(start, date) / interval; break;
+            case YEARLY: estimate = ChronoUnit.YEARS.between(start, date) / interval; break;
+            default: estimate = ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date)) / interval;
+        }
+        estimate = Math.max(estimate, 0);
+        while (estimate > 0 && !occurrence(start, estimate - 1).isBefore(date)) estimate--;
+        while (occurrence(start, estimate).isBefore(date)) estimate++;
+        return estimate;
+    }
+
+    public long endIndex(LocalDate start, int count) {
+        long end = count > 0 ? count : Long.MAX_VALUE;
+        if (until != null) end = Math.min(end, firstIndexOnOrAfter(start, until.plusDays(1)));
+        return end;
+    }
+
+    public long countBetween(LocalDate start, int count, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return 0;
+        long end = Math.min(endIndex(start, count), firstIndexOnOrAfter(start, to.plusDays(1)));
+        long first = firstIndexOnOrAfter(start, from);
+        return Math.max(0, end - first);
+    }
+
+    public void forEachBetween(LocalDate start, int count, LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+        long end = endIndex(start, count);
+        for (long i = firstIndexOnOrAfter(start, from); i < end; i++) {
+            LocalDate date = occurrence(start, i);
+            if (date.isAfter(to)) break;
+            action.accept(date);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(",");
+        joiner.add("FREQ=" + frequency);
+        if (interval != 1) joiner.add("INTERVAL=" + interval);
+        if (lastBusinessDay) joiner.add("BYDAY=" + LAST_BUSINESS_DAY);
+        if (weekday != null) joiner.add("BYDAY=" + weekdayOrdinal + WEEKDAY_CODES[weekday.getValue() - 1]);
+        if (until != null) joiner.add("UNTIL=" + until);
+        return joiner.toString();
+    }
+
+    private YearMonth anchorMonth(LocalDate start) {
+        YearMonth month = YearMonth.from(start);
+        return dayInMonth(month).isBefore(start) ? month.plusMonths(1) : month;
+    }
+
+    private LocalDate dayInMonth(YearMonth month) {
+        if (lastBusinessDay) {
+            LocalDate date = month.atEndOfMonth();
+            while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                date = date.minusDays(1);
+            }
+            return date;
+        }
+        return month.atDay(1).with(TemporalAdjusters.dayOfWeekInMonth(weekdayOrdinal, weekday));
+    }
+
+    private static int weekdayOrdinalOf(LocalDate date) {
+        int ordinal = (date.getDayOfMonth() - 1) / 7 + 1;
+        return ordinal > 4 || date.plusWeeks(1).getMonth() != date.getMonth() ? -1 : ordinal;
+    }
+
+    private static DayOfWeek weekdayOf(String code) {
+        for (int i = 0; i < WEEKDAY_CODES.length; i++) {
+            if (WEEKDAY_CODES[i].equals(code.toUpperCase(Locale.ROOT))) return DayOfWeek.of(i + 1);
+        }
+        throw new IllegalArgumentException("Неизвестный день недели: " + code);
+    }
+}
@@ -0,0 +1,38 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+class RecurringExpense extends Expense {
+    private RecurrenceRule rule;
+    private int repetitions;
+
+    public RecurringExpense(double amount, String description, String category, LocalDate startDate, String frequency, int repetitions) {
+        this(amount, description, category, startDate, RecurrenceRule.parse(frequency, startDate), repetitions);
+    }
+
+    public RecurringExpense(double amount, String description, String category, LocalDate startDate, RecurrenceRule rule, int repetitions) {
+        super(amount, description, category, startDate);
+        this.rule = rule;
+        this.repetitions = repetitions;
+    }
+
+    public String getFrequency() { return rule.describe(); }
+    public RecurrenceRule getRule() { return rule; }
+    public int getRepetitions() { return repetitions; }
+
+    public void setFrequency(String frequency) { this.rule = RecurrenceRule.parse(frequency, getDate()); }
+    public void setRule(RecurrenceRule rule) { this.rule = rule; }
+    public void setRepetitions(int repetitions) { this.repetitions = repetitions; }
+
+    public void forEachOccurrence(LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+        rule.forEachBetween(getDate(), repetitions, from, to, action);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Повторяющийся расход: %.2f, Описание: %s, Категория: %s, Нач. дата: %s, Частота: %s, Повторений: %d",
+                getAmount(), getDescription(), getCategory(), getDate().format(DateTimeFormatter.ISO_LOCAL_DATE), rule.describe(), repetitions);
+    }
+}
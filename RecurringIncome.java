@@ -0,0 +1,38 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+class RecurringIncome extends Income {
+    private RecurrenceRule rule;
+    private int repetitions;
+
+    public RecurringIncome(double amount, String description, LocalDate startDate, String frequency, int repetitions) {
+        this(amount, description, startDate, RecurrenceRule.parse(frequency, startDate), repetitions);
+    }
+
+    public RecurringIncome(double amount, String description, LocalDate startDate, RecurrenceRule rule, int repetitions) {
+        super(amount, description, startDate);
+        this.rule = rule;
+        this.repetitions = repetitions;
+    }
+
+    public String getFrequency() { return rule.describe(); }
+    public RecurrenceRule getRule() { return rule; }
+    public int getRepetitions() { return repetitions; }
+
+    public void setFrequency(String frequency) { this.rule = RecurrenceRule.parse(frequency, getDate()); }
+    public void setRule(RecurrenceRule rule) { this.rule = rule; }
+    public void setRepetitions(int repetitions) { this.repetitions = repetitions; }
+
+    public void forEachOccurrence(LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+        rule.forEachBetween(getDate(), repetitions, from, to, action);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Повторяющийся доход: %.2f, Описание: %s, Нач. дата: %s, Частота: %s, Повторений: %d",
+                getAmount(), getDescription(), getDate().format(DateTimeFormatter.ISO_LOCAL_DATE), rule.describe(), repetitions);
+    }
+}
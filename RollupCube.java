@@ -0,0 +1,139 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class RollupCube implements RebuildableAggregate {
+    enum Level { YEAR, MONTH, DAY }
+
+    static final String ALL_CATEGORIES = "";
+    static final int INCOME = 0;
+    static final int EXPENSE = 1;
+    private static final int COUNT = 2;
+
+    private final Map<Level, Map<String, TreeMap<Integer, double[]>>> cells = new EnumMap<>(Level.class);
+
+    public RollupCube() {
+        for (Level level : Level.values()) cells.put(level, new HashMap<>());
+    }
+
+    public static int yearKey(int year) {
+        return year;
+    }
+
+    public static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    public static YearMonth monthOf(int monthKey) {
+        return YearMonth.of(Math.floorDiv(monthKey, 12), Math.floorMod(monthKey, 12) + 1);
+    }
+
+    public static int dayKey(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    public static LocalDate dayOf(int dayKey) {
+        return LocalDate.ofEpochDay(dayKey);
+    }
+
+    @Override
+    public synchronized void onIncome(Income income, int sign) {
+        LocalDate date = income.getDate();
+        double amount = sign * income.getAmount();
+        apply(Level.YEAR, ALL_CATEGORIES, yearKey(date.getYear()), INCOME, amount, sign);
+        apply(Level.MONTH, ALL_CATEGORIES, monthKey(YearMonth.from(date)), INCOME, amount, sign);
+        apply(Level.DAY, ALL_CATEGORIES, dayKey(date), INCOME, amount, sign);
+    }
+
+    @Override
+    public synchronized void onExpense(Expense expense, int sign) {
+        LocalDate date = expense.getDate();
+        double amount = sign * expense.getAmount();
+        int year = yearKey(date.getYear());
+        int month = monthKey(YearMonth.from(date));
+        int day = dayKey(date);
+        for (String category : new String[]{ALL_CATEGORIES, expense.getCategory()}) {
+            apply(Level.YEAR, category, year, EXPENSE, amount, sign);
+            apply(Level.MONTH, category, month, EXPENSE, amount, sign);
+            apply(Level.DAY, category, day, EXPENSE, amount, sign);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Map<String, TreeMap<Integer, double[]>> byCategory : cells.values()) byCategory.clear();
+    }
+
+    @Override
+    public RebuildableAggregate detached() {
+        return new RollupCube();
+    }
+
+    @Override
+    public synchronized void adopt(RebuildableAggregate built) {
+        RollupCube other = (RollupCube) built;
+        for (Level level : Level.values()) {
+            cells.get(level).clear();
+            cells.get(level).putAll(other.cells.get(level));
+        }
+    }
+
+    public synchronized double get(Level level, int key, String category, int kind) {
+        TreeMap<Integer, double[]> series = cells.get(level).get(category);
+        if (series == null) return 0;
+        double[] cell = series.get(key);
+        return cell == null ? 0 : cell[kind];
+    }
+
+    public NavigableMap<Integer, double[]> series(Level level, String category) {
+        return series(level, category, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public synchronized NavigableMap<Integer, double[]> series(Level level, String category, int fromKey, int toKey) {
+        TreeMap<Integer, double[]> series = cells.get(level).get(category);
+        TreeMap<Integer, double[]> copy = new TreeMap<>();
+        if (series == null) return copy;
+        for (Map.Entry<Integer, double[]> entry : series.subMap(fromKey, true, toKey, true).entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().clone());
+        }
+        return copy;
+    }
+
+    public synchronized Map<String, Double> expensesByCategory(Level level, int key) {
+        Map<String, Double> result = new TreeMap<>();
+        for (Map.Entry<String, TreeMap<Integer, double[]>> entry : cells.get(level).entrySet()) {
+            if (entry.getKey().equals(ALL_CATEGORIES)) continue;
+            double[] cell = entry.getValue().get(key);
+            if (cell != null) result.put(entry.getKey(), cell[EXPENSE]);
+        }
+        return result;
+    }
+
+    public synchronized Map<String, Double> totalExpensesByCategory() {
+        Map<String, Double> result = new TreeMap<>();
+        for (Map.Entry<String, TreeMap<Integer, double[]>> entry : cells.get(Level.YEAR).entrySet()) {
+            if (entry.getKey().equals(ALL_CATEGORIES)) continue;
+            double total = 0;
+            for (double[] cell : entry.getValue().values()) total += cell[EXPENSE];
+            result.put(entry.getKey(), total);
+        }
+        return result;
+    }
+
+    private void apply(Level level, String category, int key, int kind, double amount, int sign) {
+        TreeMap<Integer, double[]> series = cells.get(level).computeIfAbsent(category, k -> new TreeMap<>());
+        double[] cell = series.computeIfAbsent(key, k -> new double[3]);
+        cell[kind] += amount;
+        cell[COUNT] += sign;
+        if (cell[COUNT] <= 0) {
+            series.remove(key);
+            if (series.isEmpty()) cells.get(level).remove(category);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.StringJoiner;
+
+class Scenario {
+    abstract static class Adjustment {
+        double adjustIncome(RecurringIncome template, double amount) {
+            return amount;
+        }
+
+        double adjustExpense(RecurringExpense template, double amount) {
+            return amount;
+        }
+
+        void contribute(ForecastEngine.Builder builder) {
+        }
+
+        abstract String describe();
+    }
+
+    static class Evaluation {
+        private final Scenario scenario;
+        private final ForecastEngine forecast;
+        private final double minBalance;
+        private final int reachableGoals;
+        private final int openGoals;
+
+        Evaluation(Scenario scenario, ForecastEngine forecast, double minBalance, int reachableGoals, int openGoals) {
+            this.scenario = scenario;
+            this.forecast = forecast;
+            this.minBalance = minBalance;
+            this.reachableGoals = reachableGoals;
+            this.openGoals = openGoals;
+        }
+
+        public Scenario getScenario() { return scenario; }
+        public ForecastEngine getForecast() { return forecast; }
+        public double getEndBalance() { return forecast.balanceAt(forecast.getHorizon() - 1); }
+        public double getMinBalance() { return minBalance; }
+        public int getReachableGoals() { return reachableGoals; }
+        public int getOpenGoals() { return openGoals; }
+    }
+
+    private final String name;
+    private final PersistentList<Adjustment> adjustments;
+
+    private Scenario(String name, PersistentList<Adjustment> adjustments) {
+        this.name = name;
+        this.adjustments = adjustments;
+    }
+
+    public static Scenario base(String name) {
+        return new Scenario(name, PersistentList.empty());
+    }
+
+    public Scenario derive(String newName, Adjustment adjustment) {
+        return new Scenario(newName, adjustments.prepend(adjustment));
+    }
+
+    public String getName() { return name; }
+
+    public String describe() {
+        if (adjustments.isEmpty()) return "Без изменений";
+        StringJoiner joiner = new StringJoiner("; ");
+        for (Adjustment adjustment : adjustments.inInsertionOrder()) joiner.add(adjustment.describe());
+        return joiner.toString();
+    }
+
+    public ForecastEngine forecast(List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses, FxRates rates,
+                                   double startingBalance, YearMonth firstMonth, int horizon) {
+        ForecastEngine.Builder builder = new ForecastEngine.Builder(firstMonth, horizon);
+        Iterable<Adjustment> ordered = adjustments.inInsertionOrder();
+        LocalDate today = LocalDate.now();
+
+        for (RecurringIncome rInc : recurringIncomes) {
+            double amount = rates.toBase(rInc.getAmount(), rInc.getCurrency(), today);
+            for (Adjustment adjustment : ordered) amount = adjustment.adjustIncome(rInc, amount);
+            if (amount != 0) builder.addIncome(rInc.getRule(), rInc.getDate(), rInc.getRepetitions(), amount);
+        }
+        for (RecurringExpense rExp : recurringExpenses) {
+            double amount = rates.toBase(rExp.getAmount(), rExp.getCurrency(), today);
+            for (Adjustment adjustment : ordered) amount = adjustment.adjustExpense(rExp, amount);
+            if (amount != 0) builder.addExpense(rExp.getRule(), rExp.getDate(), rExp.getRepetitions(), amount);
+        }
+        for (Adjustment adjustment : ordered) adjustment.contribute(builder);
+
+        return builder.build(startingBalance);
+    }
+
+    public Evaluation evaluate(List<RecurringIncome> recurringIncomes, List<RecurringExpense> recurringExpenses,
+                               List<FinancialGoal> goals, FxRates rates, double startingBalance, YearMonth firstMonth, int horizon) {
+        ForecastEngine engine = forecast(recurringIncomes, recurringExpenses, rates, startingBalance, firstMonth, horizon);
+
+        double minBalance = startingBalance;
+        for (int i = 0; i < engine.getHorizon(); i++) minBalance = Math.min(minBalance, engine.balanceAt(i));
+
+        int reachable = 0;
+        int open = 0;
+        for (FinancialGoal goal : goals) {
+            double remaining = rates.remaining(goal);
+            if (remaining <= 0) continue;
+            open++;
+            int dueOffset = engine.offsetOf(YearMonth.from(goal.getDueDate()));
+            if (dueOffset < 0 || engine.getHorizon() == 0) continue;
+            double saved = engine.balanceAt(Math.min(dueOffset, engine.getHorizon() - 1)) - startingBalance;
+            if (saved >= remaining) reachable++;
+        }
+        return new Evaluation(this, engine, minBalance, reachable, open);
+    }
+
+    public static Adjustment scaleCategory(String category, double percent) {
+        double factor = 1 + percent / 100;
+        return new Adjustment() {
+            @Override
+            double adjustExpense(RecurringExpense template, double amount) {
+                return template.getCategory().equalsIgnoreCase(category) ? amount * factor : amount;
+            }
+
+            @Override
+            String describe() {
+                return String.format("%s %+.1f%%", category, percent);
+            }
+        };
+    }
+
+    public static Adjustment addRecurringExpense(RecurringExpense template) {
+        return new Adjustment() {
+            @Override
+            void contribute(ForecastEngine.Builder builder) {
+                builder.addExpense(template.getRule(), template.getDate(), template.getRepetitions(), template.getAmount());
+            }
+
+            @Override
+            String describe() {
+                return String.format("+ расход '%s' %.2f x%d", template.getDescription(), template.getAmount(), template.getRepetitions());
+            }
+        };
+    }
+
+    public static Adjustment addRecurringIncome(RecurringIncome template) {
+        return new Adjustment() {
+            @Override
+            void contribute(ForecastEngine.Builder builder) {
+                builder.addIncome(template.getRule(), template.getDate(), template.getRepetitions(), template.getAmount());
+            }
+
+            @Override
+            String describe() {
+                return String.format("+ доход '%s' %.2f x%d", template.getDescription(), template.getAmount(), template.getRepetitions());
+            }
+        };
+    }
+
+    public static Adjustment excludeRecurring(String description) {
+        return new Adjustment() {
+            @Override
+            double adjustIncome(RecurringIncome template, double amount) {
+                return template.getDescription().equalsIgnoreCase(description) ? 0 : amount;
+            }
+
+            @Override
+            double adjustExpense(RecurringExpense template, double amount) {
+                return template.getDescription().equalsIgnoreCase(description) ? 0 : amount;
+            }
+
+            @Override
+            String describe() {
+                return "без '" + description + "'";
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+class SeriesDownsampler {
+    private SeriesDownsampler() {
+    }
+
+    public static int[] largestTriangleThreeBuckets(double[] x, double[] y, int threshold) {
+        int length = x.length;
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) all[i] = i;
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int anchor = 0;
+        selected[0] = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextFrom = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextTo = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextFrom; i < nextTo; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = Math.max(nextTo - nextFrom, 1);
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            int from = (int) Math.floor(bucket * bucketSize) + 1;
+            int to = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = from;
+            for (int i = from; i < to; i++) {
+                double area = Math.abs((x[anchor] - avgX) * (y[i] - y[anchor]) - (x[anchor] - x[i]) * (avgY - y[anchor]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[bucket + 1] = chosen;
+            anchor = chosen;
+        }
+        selected[threshold - 1] = length - 1;
+        return selected;
+    }
+}
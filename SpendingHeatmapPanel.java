@@ -0,0 +1,197 @@
+package org.example;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.border.EmptyBorder;
+import java.awt.BorderLayout;
+import java.awt.CardLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+class SpendingHeatmapPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String YEAR_VIEW = "Год";
+    private static final String MONTH_VIEW = "Месяц";
+    private static final int WEEKS = 54;
+    private static final String[] DAY_NAMES = {"Пн", "Вт", "Ср", "Чт", "Пт", "Сб", "Вс"};
+    private static final Color EMPTY_COLOR = new Color(235, 237, 240);
+    private static final Color HOT_COLOR = new Color(196, 30, 58);
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("LLLL yyyy", Locale.forLanguageTag("ru"));
+
+    private final DailySpendingIndex dailySpending;
+    private final JLabel periodLabel = new JLabel("", SwingConstants.CENTER);
+    private final JLabel legendLabel = new JLabel();
+    private final JComboBox<String> viewComboBox = new JComboBox<>(new String[]{YEAR_VIEW, MONTH_VIEW});
+    private final CardLayout cards = new CardLayout();
+    private final JPanel cardPanel = new JPanel(cards);
+    private final JLabel[] yearCells = new JLabel[7 * WEEKS];
+    private final JLabel[] monthCells = new JLabel[6 * 7];
+    private YearMonth displayedMonth = YearMonth.now();
+
+    public SpendingHeatmapPanel(DailySpendingIndex dailySpending) {
+        super(new BorderLayout(5, 5));
+        this.dailySpending = dailySpending;
+
+        JButton previousButton = new JButton("<");
+        JButton nextButton = new JButton(">");
+        previousButton.addActionListener(e -> step(-1));
+        nextButton.addActionListener(e -> step(1));
+        viewComboBox.addActionListener(e -> {
+            cards.show(cardPanel, (String) viewComboBox.getSelectedItem());
+            refresh();
+        });
+
+        JPanel navPanel = new JPanel(new BorderLayout(5, 5));
+        navPanel.add(previousButton, BorderLayout.WEST);
+        navPanel.add(periodLabel, BorderLayout.CENTER);
+        navPanel.add(nextButton, BorderLayout.EAST);
+        JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlsPanel.add(new JLabel("Вид:"));
+        controlsPanel.add(viewComboBox);
+        controlsPanel.add(legendLabel);
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(navPanel, BorderLayout.NORTH);
+        topPanel.add(controlsPanel, BorderLayout.SOUTH);
+
+        cardPanel.add(createYearGrid(), YEAR_VIEW);
+        cardPanel.add(createMonthGrid(), MONTH_VIEW);
+
+        add(topPanel, BorderLayout.NORTH);
+        add(cardPanel, BorderLayout.CENTER);
+        refresh();
+    }
+
+    public void refresh() {
+        if (MONTH_VIEW.equals(viewComboBox.getSelectedItem())) refreshMonth();
+        else refreshYear();
+    }
+
+    private void step(int direction) {
+        displayedMonth = MONTH_VIEW.equals(viewComboBox.getSelectedItem())
+                ? displayedMonth.plusMonths(direction) : displayedMonth.plusYears(direction);
+        refresh();
+    }
+
+    private JPanel createYearGrid() {
+        JPanel grid = new JPanel(new GridLayout(7, WEEKS + 1, 2, 2));
+        for (int row = 0; row < 7; row++) {
+            grid.add(new JLabel(DAY_NAMES[row], SwingConstants.RIGHT));
+            for (int week = 0; week < WEEKS; week++) {
+                JLabel cell = createCell(new Dimension(14, 14));
+                yearCells[row * WEEKS + week] = cell;
+                grid.add(cell);
+            }
+        }
+        JPanel wrapper = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        wrapper.add(grid);
+        return wrapper;
+    }
+
+    private JPanel createMonthGrid() {
+        JPanel grid = new JPanel(new GridLayout(7, 7, 3, 3));
+        for (String dayName : DAY_NAMES) grid.add(new JLabel(dayName, SwingConstants.CENTER));
+        for (int i = 0; i < monthCells.length; i++) {
+            JLabel cell = createCell(new Dimension(60, 40));
+            cell.setHorizontalAlignment(SwingConstants.CENTER);
+            cell.setFont(cell.getFont().deriveFont(Font.BOLD));
+            monthCells[i] = cell;
+            grid.add(cell);
+        }
+        grid.setBorder(new EmptyBorder(5, 5, 5, 5));
+        return grid;
+    }
+
+    private static JLabel createCell(Dimension size) {
+        JLabel cell = new JLabel();
+        cell.setOpaque(true);
+        cell.setPreferredSize(size);
+        cell.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+        return cell;
+    }
+
+    private void refreshYear() {
+        int year = displayedMonth.getYear();
+        periodLabel.setText(String.valueOf(year));
+        LocalDate firstDay = LocalDate.of(year, 1, 1);
+        LocalDate gridStart = firstDay.minusDays(firstDay.getDayOfWeek().getValue() - 1);
+        LocalDate gridEnd = gridStart.plusDays(yearCells.length - 1);
+        double[] totals = dailySpending.range(gridStart, gridEnd);
+        double max = maxWithin(totals, gridStart, year, null);
+
+        for (int week = 0; week < WEEKS; week++) {
+            for (int row = 0; row < 7; row++) {
+                int offset = week * 7 + row;
+                LocalDate date = gridStart.plusDays(offset);
+                paintCell(yearCells[row * WEEKS + week], date.getYear() == year ? date : null, totals[offset], max);
+            }
+        }
+        legendLabel.setText(String.format("Макс. за день: %.2f", max));
+    }
+
+    private void refreshMonth() {
+        periodLabel.setText(displayedMonth.format(MONTH_FORMAT));
+        LocalDate firstDay = displayedMonth.atDay(1);
+        LocalDate gridStart = firstDay.minusDays(firstDay.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+        double[] totals = dailySpending.range(gridStart, gridStart.plusDays(monthCells.length - 1));
+        double max = maxWithin(totals, gridStart, displayedMonth.getYear(), displayedMonth);
+
+        for (int i = 0; i < monthCells.length; i++) {
+            LocalDate date = gridStart.plusDays(i);
+            boolean inMonth = YearMonth.from(date).equals(displayedMonth);
+            paintCell(monthCells[i], inMonth ? date : null, totals[i], max);
+            monthCells[i].setText(inMonth ? String.valueOf(date.getDayOfMonth()) : "");
+        }
+        legendLabel.setText(String.format("Итого за месяц: %.2f, макс. за день: %.2f", sumWithin(totals, gridStart, displayedMonth), max));
+    }
+
+    private static double maxWithin(double[] totals, LocalDate gridStart, int year, YearMonth month) {
+        double max = 0;
+        for (int i = 0; i < totals.length; i++) {
+            LocalDate date = gridStart.plusDays(i);
+            if (date.getYear() != year || (month != null && !YearMonth.from(date).equals(month))) continue;
+            max = Math.max(max, totals[i]);
+        }
+        return max;
+    }
+
+    private static double sumWithin(double[] totals, LocalDate gridStart, YearMonth month) {
+        double sum = 0;
+        for (int i = 0; i < totals.length; i++) {
+            if (YearMonth.from(gridStart.plusDays(i)).equals(month)) sum += totals[i];
+        }
+        return sum;
+    }
+
+    private static void paintCell(JLabel cell, LocalDate date, double amount, double max) {
+        if (date == null) {
+            cell.setBackground(cell.getParent() != null ? cell.getParent().getBackground() : Color.WHITE);
+            cell.setToolTipText(null);
+            return;
+        }
+        double spent = Math.abs(amount) < 0.005 ? 0 : amount;
+        double intensity = max > 0 && spent > 0 ? Math.sqrt(spent / max) : 0;
+        cell.setBackground(blend(EMPTY_COLOR, HOT_COLOR, intensity));
+        cell.setForeground(intensity > 0.6 ? Color.WHITE : Color.DARK_GRAY);
+        cell.setToolTipText(String.format("%s: %.2f", date.format(DateTimeFormatter.ISO_LOCAL_DATE), spent));
+    }
+
+    private static Color blend(Color from, Color to, double t) {
+        return new Color(
+                (int) Math.round(from.getRed() + (to.getRed() - from.getRed()) * t),
+                (int) Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * t),
+                (int) Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * t));
+    }
+}
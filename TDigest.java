@@ -0,0 +1,211 @@
+package org.example;
+
+import java.util.Arrays;
+
+class TDigest {
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroidCount;
+
+    private double[] bufferValues;
+    private double[] bufferWeights;
+    private int bufferCount;
+    private final int bufferLimit;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(100);
+    }
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        this.bufferLimit = (int) Math.ceil(compression) * 5;
+        this.means = new double[0];
+        this.weights = new double[0];
+        this.bufferValues = new double[8];
+        this.bufferWeights = new double[8];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0) return;
+        if (bufferCount == bufferValues.length) {
+            if (bufferCount >= bufferLimit) {
+                compress();
+            } else {
+                int grown = Math.min(bufferLimit, bufferCount * 2);
+                bufferValues = Arrays.copyOf(bufferValues, grown);
+                bufferWeights = Arrays.copyOf(bufferWeights, grown);
+            }
+        }
+        bufferValues[bufferCount] = value;
+        bufferWeights[bufferCount] = weight;
+        bufferCount++;
+        totalWeight += weight;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    public void merge(TDigest other) {
+        if (other == null || other.totalWeight == 0) return;
+        other.compress();
+        for (int i = 0; i < other.centroidCount; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long size() {
+        return Math.round(totalWeight);
+    }
+
+    public boolean isEmpty() {
+        return totalWeight == 0;
+    }
+
+    public double getMin() {
+        return totalWeight == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return totalWeight == 0 ? Double.NaN : max;
+    }
+
+    public int centroidCount() {
+        compress();
+        return centroidCount;
+    }
+
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Квантиль должен быть в диапазоне [0, 1]: " + q);
+        compress();
+        if (centroidCount == 0) return Double.NaN;
+        if (centroidCount == 1) return means[0];
+
+        double index = q * totalWeight;
+        double firstHalf = weights[0] / 2;
+        if (index < firstHalf) {
+            return min + (means[0] - min) * index / firstHalf;
+        }
+
+        double cumulative = firstHalf;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + step > index) {
+                double t = (index - cumulative) / step;
+                return means[i] + t * (means[i + 1] - means[i]);
+            }
+            cumulative += step;
+        }
+
+        double lastHalf = weights[centroidCount - 1] / 2;
+        double t = Math.min(1, (index - cumulative) / lastHalf);
+        return means[centroidCount - 1] + t * (max - means[centroidCount - 1]);
+    }
+
+    public double cdf(double x) {
+        compress();
+        if (centroidCount == 0) return Double.NaN;
+        if (x < min) return 0;
+        if (x >= max) return 1;
+        if (centroidCount == 1) return (x - min) / (max - min);
+
+        if (x < means[0]) {
+            return (weights[0] / 2) * (x - min) / (means[0] - min) / totalWeight;
+        }
+
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (x < means[i + 1]) {
+                double span = means[i + 1] - means[i];
+                double t = span > 0 ? (x - means[i]) / span : 1;
+                return (cumulative + t * step) / totalWeight;
+            }
+            cumulative += step;
+        }
+
+        double lastHalf = weights[centroidCount - 1] / 2;
+        double span = max - means[centroidCount - 1];
+        double t = span > 0 ? (x - means[centroidCount - 1]) / span : 1;
+        return (cumulative + t * lastHalf) / totalWeight;
+    }
+
+    public long[] histogram(double[] edges) {
+        long[] counts = new long[Math.max(edges.length - 1, 0)];
+        if (totalWeight == 0) return counts;
+        double previous = cdf(edges[0]);
+        for (int i = 0; i < counts.length; i++) {
+            double next = (i == counts.length - 1 && edges[i + 1] >= max) ? 1 : cdf(edges[i + 1]);
+            counts[i] = Math.round((next - previous) * totalWeight);
+            previous = next;
+        }
+        return counts;
+    }
+
+    private void compress() {
+        if (bufferCount == 0) return;
+
+        int total = centroidCount + bufferCount;
+        double[] allMeans = new double[total];
+        double[] allWeights = new double[total];
+        System.arraycopy(means, 0, allMeans, 0, centroidCount);
+        System.arraycopy(weights, 0, allWeights, 0, centroidCount);
+        System.arraycopy(bufferValues, 0, allMeans, centroidCount, bufferCount);
+        System.arraycopy(bufferWeights, 0, allWeights, centroidCount, bufferCount);
+        bufferCount = 0;
+
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] newMeans = new double[total];
+        double[] newWeights = new double[total];
+        int count = 0;
+
+        double currentMean = allMeans[order[0]];
+        double currentWeight = allWeights[order[0]];
+        double weightSoFar = 0;
+        double kLeft = scale(0);
+
+        for (int i = 1; i < total; i++) {
+            int idx = order[i];
+            double proposed = currentWeight + allWeights[idx];
+            if (scale((weightSoFar + proposed) / totalWeight) - kLeft <= 1) {
+                currentMean += (allMeans[idx] - currentMean) * allWeights[idx] / proposed;
+                currentWeight = proposed;
+            } else {
+                newMeans[count] = currentMean;
+                newWeights[count] = currentWeight;
+                count++;
+                weightSoFar += currentWeight;
+                kLeft = scale(weightSoFar / totalWeight);
+                currentMean = allMeans[idx];
+                currentWeight = allWeights[idx];
+            }
+        }
+        newMeans[count] = currentMean;
+        newWeights[count] = currentWeight;
+        count++;
+
+        if (count > means.length) {
+            means = new double[count];
+            weights = new double[count];
+        }
+        System.arraycopy(newMeans, 0, means, 0, count);
+        System.arraycopy(newWeights, 0, weights, 0, count);
+        centroidCount = count;
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+}
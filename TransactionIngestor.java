@@ -0,0 +1,96 @@
+package org.example;
+
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+class TransactionIngestor {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final MpscRingBuffer<Object> buffer;
+    private final int maxBatch;
+    private final Consumer<List<Object>> applyOnEdt;
+    private final AtomicLong applied = new AtomicLong();
+    private final Thread applier;
+    private volatile boolean running = true;
+
+    TransactionIngestor(int capacity, int maxBatch, Consumer<List<Object>> applyOnEdt) {
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.maxBatch = maxBatch;
+        this.applyOnEdt = applyOnEdt;
+        this.applier = new Thread(this::run, "ledger-ingest");
+        this.applier.setDaemon(true);
+    }
+
+    public void start() {
+        applier.start();
+    }
+
+    public boolean offer(Income income) {
+        return buffer.offer(checkOneTime(income));
+    }
+
+    public boolean offer(Expense expense) {
+        return buffer.offer(checkOneTime(expense));
+    }
+
+    public boolean offer(Income income, long timeout, TimeUnit unit) throws InterruptedException {
+        return buffer.offer(checkOneTime(income), timeout, unit);
+    }
+
+    public boolean offer(Expense expense, long timeout, TimeUnit unit) throws InterruptedException {
+        return buffer.offer(checkOneTime(expense), timeout, unit);
+    }
+
+    public long getApplied() {
+        return applied.get();
+    }
+
+    public long getPending() {
+        return buffer.size();
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(applier);
+    }
+
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        applier.join(unit.toMillis(timeout));
+        return !applier.isAlive();
+    }
+
+    private static <T> T checkOneTime(T transaction) {
+        if (transaction instanceof RecurringIncome || transaction instanceof RecurringExpense) {
+            throw new IllegalArgumentException("Повторяющиеся записи нельзя добавлять через очередь.");
+        }
+        return transaction;
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(maxBatch);
+        while (running || buffer.size() > 0) {
+            if (buffer.drain(batch::add, maxBatch) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                SwingUtilities.invokeAndWait(() -> applyOnEdt.accept(batch));
+                applied.addAndGet(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (InvocationTargetException e) {
+                System.err.println("Ошибка при применении пакета из " + batch.size() + " записей: " + e.getCause());
+                e.getCause().printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class ViewGraph implements LedgerAggregate {
+    enum Part { INCOMES, EXPENSES, RECURRING, BUDGET, GOALS, CATEGORIES }
+
+    private static class Node {
+        private final Runnable recompute;
+        private boolean dirty = true;
+
+        Node(Runnable recompute) {
+            this.recompute = recompute;
+        }
+    }
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Map<Part, List<Node>> dependents = new EnumMap<>(Part.class);
+    private boolean flushScheduled;
+
+    public ViewGraph() {
+        for (Part part : Part.values()) dependents.put(part, new ArrayList<>());
+    }
+
+    public void register(String view, Runnable recompute, Part first, Part... rest) {
+        if (nodes.containsKey(view)) throw new IllegalArgumentException("Представление уже зарегистрировано: " + view);
+        Node node = new Node(recompute);
+        nodes.put(view, node);
+        for (Part part : EnumSet.of(first, rest)) dependents.get(part).add(node);
+        scheduleFlush();
+    }
+
+    public void invalidate(Part part) {
+        for (Node node : dependents.get(part)) node.dirty = true;
+        scheduleFlush();
+    }
+
+    public void invalidateView(String view) {
+        Node node = nodes.get(view);
+        if (node == null) throw new IllegalArgumentException("Неизвестное представление: " + view);
+        node.dirty = true;
+        scheduleFlush();
+    }
+
+    public void invalidateAll() {
+        for (Node node : nodes.values()) node.dirty = true;
+        scheduleFlush();
+    }
+
+    public void flush() {
+        flushScheduled = false;
+        for (Node node : nodes.values()) {
+            if (!node.dirty) continue;
+            node.dirty = false;
+            node.recompute.run();
+        }
+    }
+
+    @Override
+    public void onIncome(Income income, int sign) {
+        invalidate(Part.INCOMES);
+    }
+
+    @Override
+    public void onExpense(Expense expense, int sign) {
+        invalidate(Part.EXPENSES);
+    }
+
+    @Override
+    public void onRecurringChanged() {
+        invalidate(Part.RECURRING);
+    }
+
+    @Override
+    public void clear() {
+        invalidate(Part.INCOMES);
+        invalidate(Part.EXPENSES);
+        invalidate(Part.RECURRING);
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        SwingUtilities.invokeLater(this::flush);
+    }
+}
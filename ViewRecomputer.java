@@ -0,0 +1,51 @@
+package org.example;
+
+import javax.swing.SwingWorker;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+class ViewRecomputer {
+    private final Map<String, SwingWorker<?, ?>> inFlight = new HashMap<>();
+    private final BiConsumer<String, Throwable> errorHandler;
+
+    public ViewRecomputer(BiConsumer<String, Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public <T> void submit(String view, Callable<T> computation, Consumer<T> publisher) {
+        SwingWorker<?, ?> previous = inFlight.remove(view);
+        if (previous != null) previous.cancel(true);
+
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return computation.call();
+            }
+
+            @Override
+            protected void done() {
+                if (inFlight.get(view) != this) return;
+                inFlight.remove(view);
+                try {
+                    publisher.accept(get());
+                } catch (CancellationException ignored) {
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof CancellationException)) errorHandler.accept(view, e.getCause());
+                }
+            }
+        };
+        inFlight.put(view, worker);
+        worker.execute();
+    }
+
+    public static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Пересчет отменен");
+    }
+}